@@ -0,0 +1,55 @@
+package com.personalexpensetracker.expensetracker.benchmark;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Fills an empty benchmark database with synthetic categories and expenses before any other runner,
+ * so the sample data initializer skips and the rollup runner backfills the cube from these rows.
+ * Generation is deterministic: the same volume always produces the same data.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class BenchmarkDataSeeder implements ApplicationRunner, Ordered {
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    @Value("${benchmark.expenses}")
+    private long expenses;
+    
+    @Value("${benchmark.categories}")
+    private int categories;
+    
+    @Override
+    public void run(ApplicationArguments args) {
+        long started = System.nanoTime();
+        jdbcTemplate.update("INSERT INTO categories (name, description) " +
+                "SELECT CONCAT('Category ', \"X\"), CONCAT('Synthetic category ', \"X\") FROM SYSTEM_RANGE(1, ?)", categories);
+        Long firstCategoryId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM categories", Long.class);
+        
+        // Skewed categories (higher ids are more frequent), three years of dates ending today,
+        // amounts from 1.00 to 200.99 and notes drawn from a small vocabulary plus a reference number
+        jdbcTemplate.update("INSERT INTO expenses (amount, date, note, category_id, created_at, updated_at) " +
+                "SELECT 1 + MOD(\"X\" * 7919, 20000) / 100.0, " +
+                "DATEADD('DAY', -MOD(\"X\" * 31, 1095), CURRENT_DATE), " +
+                "CONCAT(CASE MOD(\"X\", 10) WHEN 0 THEN 'coffee beans' WHEN 1 THEN 'grocery store' " +
+                "WHEN 2 THEN 'train ticket' WHEN 3 THEN 'electricity bill' WHEN 4 THEN 'movie night' " +
+                "WHEN 5 THEN 'pharmacy' WHEN 6 THEN 'hotel booking' WHEN 7 THEN 'online course' " +
+                "WHEN 8 THEN 'coffee with friends' ELSE 'miscellaneous' END, ' #', MOD(\"X\", 997)), " +
+                "? + FLOOR(SQRT(MOD(\"X\" * 2654435761, ?))), CURRENT_DATE, CURRENT_DATE " +
+                "FROM SYSTEM_RANGE(1, ?)",
+                firstCategoryId, (long) categories * categories, expenses);
+        log.info("Seeded {} expenses across {} categories in {} ms",
+                expenses, categories, (System.nanoTime() - started) / 1_000_000);
+    }
+    
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
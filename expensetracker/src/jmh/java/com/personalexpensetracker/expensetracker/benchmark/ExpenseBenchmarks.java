@@ -0,0 +1,126 @@
+package com.personalexpensetracker.expensetracker.benchmark;
+
+import com.personalexpensetracker.expensetracker.ExpensetrackerApplication;
+import com.personalexpensetracker.expensetracker.controller.HomeController;
+import com.personalexpensetracker.expensetracker.dto.AnalyticsResult;
+import com.personalexpensetracker.expensetracker.dto.ExpenseView;
+import com.personalexpensetracker.expensetracker.service.ExpenseColumnStore;
+import com.personalexpensetracker.expensetracker.service.ExpenseColumnStore.GroupBy;
+import com.personalexpensetracker.expensetracker.service.ExpenseService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.ui.ExtendedModelMap;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service and controller hot paths against an in-memory H2 database seeded with
+ * {@code expenses} synthetic rows across {@code categories} categories.
+ * <p>
+ * Run with {@code mvn -Pbenchmark -DskipTests test-compile exec:exec}; pass JMH options through
+ * {@code -Djmh.args="..."}, e.g. {@code -Djmh.args="-p expenses=1000000,10000000 -jvmArgsAppend -Xmx16g"}.
+ * Throughput and sampled latency percentiles are reported per benchmark, allocation rate by the gc profiler.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ExpenseBenchmarks {
+    
+    private static final Sort LIST_SORT = Sort.by("date").descending().and(Sort.by("id").descending());
+    private static final int PAGE_SIZE = 20;
+    
+    @Param({"10000"})
+    public long expenses;
+    
+    @Param({"20"})
+    public int categories;
+    
+    private ConfigurableApplicationContext context;
+    private ExpenseService expenseService;
+    private HomeController homeController;
+    private ExpenseColumnStore columnStore;
+    private LocalDate today;
+    private Pageable deepPage;
+    
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(ExpensetrackerApplication.class, BenchmarkDataSeeder.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:benchmark;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.hibernate.ddl-auto=create",
+                        "--spring.jpa.properties.hibernate.generate_statistics=false",
+                        "--logging.level.root=WARN",
+                        "--benchmark.expenses=" + expenses,
+                        "--benchmark.categories=" + categories);
+        expenseService = context.getBean(ExpenseService.class);
+        homeController = context.getBean(HomeController.class);
+        columnStore = context.getBean(ExpenseColumnStore.class);
+        today = LocalDate.now();
+        deepPage = PageRequest.of((int) (expenses / PAGE_SIZE / 2), PAGE_SIZE, LIST_SORT);
+    }
+    
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+    
+    @Benchmark
+    public BigDecimal getTotalExpenses() {
+        return expenseService.getTotalExpenses();
+    }
+    
+    @Benchmark
+    public List<Object[]> getCategorySummaryByDateRange() {
+        return expenseService.getCategorySummaryByDateRange(today.minusDays(90), today);
+    }
+    
+    @Benchmark
+    public List<Object[]> getMonthlySummary() {
+        return expenseService.getMonthlySummary(today.getYear());
+    }
+    
+    // Same question as getCategorySummaryByDateRange, answered by the in-memory column store
+    @Benchmark
+    public AnalyticsResult analyticsCategorySummaryByDateRange() {
+        return columnStore.aggregate(GroupBy.CATEGORY, null, today.minusDays(90), today, null);
+    }
+    
+    @Benchmark
+    public AnalyticsResult analyticsMonthlySummary() {
+        return columnStore.aggregate(GroupBy.MONTH, null, today.withDayOfYear(1), null, null);
+    }
+    
+    @Benchmark
+    public Page<ExpenseView> searchByNote() {
+        return expenseService.searchByNote("coffee", null, null, null, PageRequest.of(0, PAGE_SIZE));
+    }
+    
+    @Benchmark
+    public Page<ExpenseView> findAllFirstPage() {
+        return expenseService.findViews(null, null, null, PageRequest.of(0, PAGE_SIZE, LIST_SORT));
+    }
+    
+    @Benchmark
+    public Page<ExpenseView> findAllDeepPage() {
+        return expenseService.findViews(null, null, null, deepPage);
+    }
+    
+    @Benchmark
+    public ExtendedModelMap home() {
+        ExtendedModelMap model = new ExtendedModelMap();
+        homeController.home(model);
+        return model;
+    }
+}
@@ -0,0 +1,74 @@
+package com.personalexpensetracker.expensetracker.benchmark;
+
+import com.personalexpensetracker.expensetracker.model.Money;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Summing {@code size} expense amounts as {@link BigDecimal}s versus as {@link Money} cents.
+ * Compare {@code gc.alloc.rate.norm}: BigDecimal allocates on every addition, Money records
+ * somewhat less, and the cents column loop nothing. Run on its own with {@code -Djmh.args="MoneyBenchmarks"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MoneyBenchmarks {
+    
+    @Param({"1000000"})
+    public int size;
+    
+    private List<BigDecimal> amounts;
+    private long[] cents;
+    private List<Money> monies;
+    
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        amounts = new ArrayList<>(size);
+        cents = new long[size];
+        monies = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            long value = random.nextLong(1, 100_000);
+            amounts.add(BigDecimal.valueOf(value, Money.SCALE));
+            cents[i] = value;
+            monies.add(Money.ofCents(value));
+        }
+    }
+    
+    // What getTotalExpenses used to do over the loaded rows
+    @Benchmark
+    public BigDecimal bigDecimalReduce() {
+        return amounts.stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+    
+    @Benchmark
+    public BigDecimal bigDecimalLoop() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (BigDecimal amount : amounts) {
+            total = total.add(amount);
+        }
+        return total;
+    }
+    
+    @Benchmark
+    public BigDecimal moneyPlus() {
+        Money total = Money.ZERO;
+        for (Money money : monies) {
+            total = total.plus(money);
+        }
+        return total.toBigDecimal();
+    }
+    
+    @Benchmark
+    public BigDecimal centsColumn() {
+        return Money.toBigDecimal(Money.sum(cents, 0, cents.length));
+    }
+}
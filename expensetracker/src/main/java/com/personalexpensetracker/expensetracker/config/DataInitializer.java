@@ -3,37 +3,55 @@ package com.personalexpensetracker.expensetracker.config;
 import com.personalexpensetracker.expensetracker.model.Category;
 import com.personalexpensetracker.expensetracker.model.Expense;
 import com.personalexpensetracker.expensetracker.service.CategoryService;
-import com.personalexpensetracker.expensetracker.service.ExpenseService;
+import com.personalexpensetracker.expensetracker.service.ExpenseBulkWriter;
 import lombok.RequiredArgsConstructor;
-import org.springframework.boot.CommandLineRunner;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.stereotype.Component;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
 
+// Seeds sample data into an empty database once the application accepts traffic,
+// on a background thread so neither startup nor readiness waits for it
+@Slf4j
 @Component
 @RequiredArgsConstructor
-public class DataInitializer implements CommandLineRunner {
+public class DataInitializer {
     
     private final CategoryService categoryService;
-    private final ExpenseService expenseService;
+    private final ExpenseBulkWriter expenseBulkWriter;
+    private final AsyncTaskExecutor taskExecutor;
     
-    @Override
-    public void run(String... args) throws Exception {
+    @Value("${expensetracker.seed.enabled:true}")
+    private boolean enabled;
+    
+    @EventListener
+    public void onReadiness(AvailabilityChangeEvent<ReadinessState> event) {
+        if (enabled && event.getState() == ReadinessState.ACCEPTING_TRAFFIC) {
+            taskExecutor.execute(this::seed);
+        }
+    }
+    
+    void seed() {
         try {
-            System.out.println("DataInitializer: Starting data initialization...");
+            log.info("Starting data initialization");
             // Only initialize if no categories exist
             if (categoryService.findAll().isEmpty()) {
-                System.out.println("DataInitializer: No categories found, initializing data...");
+                log.info("No categories found, initializing sample data");
+                long started = System.nanoTime();
                 initializeCategories();
                 initializeExpenses();
-                System.out.println("DataInitializer: Data initialization completed successfully!");
+                log.info("Data initialization completed in {} ms", (System.nanoTime() - started) / 1_000_000);
             } else {
-                System.out.println("DataInitializer: Categories already exist, skipping initialization.");
+                log.info("Categories already exist, skipping initialization");
             }
         } catch (Exception e) {
-            System.err.println("DataInitializer: Error during initialization: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error during data initialization", e);
         }
     }
     
@@ -50,7 +68,7 @@ public class DataInitializer implements CommandLineRunner {
             new Category("Miscellaneous", "Other expenses that don't fit into specific categories")
         );
         
-        categories.forEach(categoryService::saveCategory);
+        categoryService.saveAll(categories);
     }
     
     private void initializeExpenses() {
@@ -91,7 +109,8 @@ public class DataInitializer implements CommandLineRunner {
             createExpense(new BigDecimal("67.80"), LocalDate.now().minusDays(18), "Dinner with friends", foodCategory)
         );
         
-        sampleExpenses.forEach(expenseService::saveExpense);
+        // One JDBC batch; rollups and in-memory views are updated as for single saves
+        expenseBulkWriter.insert(sampleExpenses);
     }
     
     private Expense createExpense(BigDecimal amount, LocalDate date, String note, Category category) {
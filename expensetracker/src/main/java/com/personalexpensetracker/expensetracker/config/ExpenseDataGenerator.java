@@ -0,0 +1,248 @@
+package com.personalexpensetracker.expensetracker.config;
+
+import com.personalexpensetracker.expensetracker.model.Category;
+import com.personalexpensetracker.expensetracker.model.Expense;
+import com.personalexpensetracker.expensetracker.repository.ExpenseRepository;
+import com.personalexpensetracker.expensetracker.service.CategoryService;
+import com.personalexpensetracker.expensetracker.service.ExpenseBulkWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fills an empty database with synthetic expenses for load and capacity testing
+ * ({@code --spring.profiles.active=generator}, settings in application-generator.properties).
+ * <p>
+ * Category popularity follows a Zipf distribution, amounts are log-normal around a
+ * per-category median with a yearly season (peaking in December) and a weekend bump,
+ * and notes are drawn from a per-category vocabulary so note search has realistic terms.
+ * The expenses are cut into fixed chunks, each generated from its own random stream derived
+ * from the seed and covering its own slice of the date range. The same settings therefore
+ * produce the same rows however the producer threads are scheduled; only the ids differ.
+ * Chunks are written in parallel through {@link ExpenseBulkWriter}, all for one tenant
+ * ({@code expensetracker.generator.tenant}); run the generator once per tenant to load several.
+ */
+@Slf4j
+@Component
+@Profile("generator")
+public class ExpenseDataGenerator implements ApplicationRunner, Ordered {
+    
+    private static final List<CategoryProfile> PROFILES = List.of(
+        new CategoryProfile("Food & Dining", 18, new String[] {"Lunch", "Dinner", "Groceries", "Coffee", "Takeaway", "Bakery", "Breakfast"}),
+        new CategoryProfile("Transportation", 25, new String[] {"Uber ride", "Gas for car", "Bus pass", "Parking", "Train ticket", "Car wash"}),
+        new CategoryProfile("Shopping", 45, new String[] {"New shirt", "Shoes", "Electronics", "Books", "Gift", "Home supplies"}),
+        new CategoryProfile("Bills & Utilities", 90, new String[] {"Electricity bill", "Water bill", "Internet bill", "Phone bill", "Gas bill"}),
+        new CategoryProfile("Entertainment", 22, new String[] {"Movie ticket", "Concert", "Streaming subscription", "Video game", "Museum"}),
+        new CategoryProfile("Healthcare", 60, new String[] {"Pharmacy", "Doctor visit", "Dentist", "Vitamins", "Eye exam"}),
+        new CategoryProfile("Travel", 250, new String[] {"Hotel", "Flight", "Airport taxi", "Travel insurance", "Rental car"}),
+        new CategoryProfile("Education", 40, new String[] {"Online course", "Textbook", "Workshop", "Exam fee", "Stationery"}),
+        new CategoryProfile("Personal Care", 30, new String[] {"Haircut", "Gym membership", "Cosmetics", "Spa", "Laundry"}),
+        new CategoryProfile("Miscellaneous", 20, new String[] {"Donation", "Postage", "Bank fee", "Subscription", "Repair"})
+    );
+    private static final String[] QUALIFIERS = {"with friends", "downtown", "weekly", "at work", "online", "for family", "weekend"};
+    private static final double AMOUNT_SIGMA = 0.6;
+    private static final double SEASONAL_AMPLITUDE = 0.2;
+    private static final double WEEKEND_FACTOR = 1.15;
+    private static final double NOTE_PROBABILITY = 0.9;
+    
+    private final CategoryService categoryService;
+    private final ExpenseRepository expenseRepository;
+    private final ExpenseBulkWriter bulkWriter;
+    private final long expenses;
+    private final int categories;
+    private final int years;
+    private final LocalDate endDate;
+    private final long seed;
+    private final double zipfExponent;
+    private final int producers;
+    private final int batchSize;
+    private final String tenant;
+    
+    public ExpenseDataGenerator(CategoryService categoryService,
+                                ExpenseRepository expenseRepository,
+                                ExpenseBulkWriter bulkWriter,
+                                @Value("${expensetracker.generator.expenses:1000000}") long expenses,
+                                @Value("${expensetracker.generator.categories:10}") int categories,
+                                @Value("${expensetracker.generator.years:3}") int years,
+                                @Value("${expensetracker.generator.end-date:2025-12-31}") String endDate,
+                                @Value("${expensetracker.generator.seed:42}") long seed,
+                                @Value("${expensetracker.generator.zipf-exponent:1.1}") double zipfExponent,
+                                @Value("${expensetracker.generator.producers:0}") int producers,
+                                @Value("${expensetracker.generator.batch-size:5000}") int batchSize,
+                                @Value("${expensetracker.generator.tenant:default}") String tenant) {
+        this.categoryService = categoryService;
+        this.expenseRepository = expenseRepository;
+        this.bulkWriter = bulkWriter;
+        this.expenses = expenses;
+        this.categories = categories;
+        this.years = years;
+        this.endDate = LocalDate.parse(endDate);
+        this.seed = seed;
+        this.zipfExponent = zipfExponent;
+        this.producers = producers > 0 ? producers : Runtime.getRuntime().availableProcessors();
+        this.batchSize = batchSize;
+        if (!TenantContext.isValid(tenant)) {
+            throw new IllegalArgumentException("Invalid generator tenant: " + tenant);
+        }
+        this.tenant = tenant;
+    }
+    
+    // Before the rollup backfill and the sample data initializer, which then find data and skip
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+    
+    @Override
+    public void run(ApplicationArguments args) {
+        TenantContext.as(tenant, this::generate);
+    }
+    
+    private void generate() {
+        if (expenseRepository.count() > 0) {
+            log.info("Expenses already exist for tenant {}, skipping synthetic data generation", tenant);
+            return;
+        }
+        long started = System.nanoTime();
+        List<Category> categoryList = ensureCategories();
+        double[] cumulativeWeights = zipfCumulativeWeights(categoryList.size());
+        int chunks = (int) ((expenses + batchSize - 1) / batchSize);
+        log.info("Generating {} expenses for tenant {} in {} chunks over {} categories with {} producers (seed {})",
+                expenses, tenant, chunks, categoryList.size(), producers, seed);
+        
+        AtomicLong written = new AtomicLong();
+        long reportEvery = Math.max(expenses / 10, 1);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        try {
+            List<Future<?>> futures = new ArrayList<>(chunks);
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                int index = chunk;
+                futures.add(executor.submit(() -> {
+                    List<Expense> batch = generateChunk(index, chunks, categoryList, cumulativeWeights);
+                    bulkWriter.insert(batch);
+                    long total = written.addAndGet(batch.size());
+                    if (total / reportEvery != (total - batch.size()) / reportEvery) {
+                        log.info("Generated {} of {} expenses", total, expenses);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Synthetic data generation failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Synthetic data generation interrupted", e);
+        } finally {
+            executor.shutdownNow();
+        }
+        
+        long elapsedMillis = Math.max((System.nanoTime() - started) / 1_000_000, 1);
+        log.info("Generated {} expenses in {} ms ({} rows/s)", written.get(), elapsedMillis, written.get() * 1000 / elapsedMillis);
+    }
+    
+    // The first categories use realistic names and vocabularies; any beyond that are numbered
+    private List<Category> ensureCategories() {
+        List<Category> missing = new ArrayList<>();
+        for (int i = 0; i < categories; i++) {
+            if (categoryService.findByName(categoryName(i)).isEmpty()) {
+                missing.add(new Category(categoryName(i), "Synthetic category"));
+            }
+        }
+        if (!missing.isEmpty()) {
+            categoryService.saveAll(missing);
+        }
+        List<Category> result = new ArrayList<>();
+        for (int i = 0; i < categories; i++) {
+            result.add(categoryService.findByName(categoryName(i)).orElseThrow());
+        }
+        return result;
+    }
+    
+    // Chunk i covers the i-th slice of the date range, so parallel chunks mostly touch different rollup cells
+    List<Expense> generateChunk(int index, int chunks, List<Category> categoryList, double[] cumulativeWeights) {
+        SplittableRandom random = new SplittableRandom(seed ^ (index * 0x9E3779B97F4A7C15L));
+        long firstDay = endDate.minusYears(years).plusDays(1).toEpochDay();
+        long days = endDate.toEpochDay() - firstDay + 1;
+        long fromDay = firstDay + days * index / chunks;
+        long toDay = Math.max(firstDay + days * (index + 1) / chunks, fromDay + 1);
+        int count = (int) Math.min(batchSize, expenses - (long) index * batchSize);
+        
+        List<Expense> batch = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int categoryIndex = pick(cumulativeWeights, random.nextDouble());
+            CategoryProfile profile = profile(categoryIndex);
+            LocalDate date = LocalDate.ofEpochDay(fromDay + random.nextLong(toDay - fromDay));
+            
+            Expense expense = new Expense();
+            // Producer threads have no tenant of their own
+            expense.setTenantId(tenant);
+            expense.setCategory(categoryList.get(categoryIndex));
+            expense.setDate(date);
+            expense.setAmount(amount(profile, date, random));
+            if (random.nextDouble() < NOTE_PROBABILITY) {
+                String note = profile.notes()[random.nextInt(profile.notes().length)];
+                expense.setNote(random.nextInt(3) == 0 ? note + " " + QUALIFIERS[random.nextInt(QUALIFIERS.length)] : note);
+            }
+            batch.add(expense);
+        }
+        return batch;
+    }
+    
+    private BigDecimal amount(CategoryProfile profile, LocalDate date, SplittableRandom random) {
+        // Cosine over the year, peaking just before Christmas
+        double season = 1 + SEASONAL_AMPLITUDE * Math.cos(2 * Math.PI * (date.getDayOfYear() - 355) / 365.25);
+        boolean weekend = date.getDayOfWeek() == DayOfWeek.SATURDAY || date.getDayOfWeek() == DayOfWeek.SUNDAY;
+        double amount = profile.medianAmount() * Math.exp(AMOUNT_SIGMA * random.nextGaussian()) * season
+                * (weekend ? WEEKEND_FACTOR : 1);
+        return BigDecimal.valueOf(Math.max(Math.round(amount * 100), 1), 2);
+    }
+    
+    double[] zipfCumulativeWeights(int size) {
+        double[] cumulative = new double[size];
+        double total = 0;
+        for (int rank = 1; rank <= size; rank++) {
+            total += 1 / Math.pow(rank, zipfExponent);
+            cumulative[rank - 1] = total;
+        }
+        for (int i = 0; i < size; i++) {
+            cumulative[i] /= total;
+        }
+        return cumulative;
+    }
+    
+    private static int pick(double[] cumulativeWeights, double value) {
+        int index = Arrays.binarySearch(cumulativeWeights, value);
+        return Math.min(index >= 0 ? index : -index - 1, cumulativeWeights.length - 1);
+    }
+    
+    private static String categoryName(int categoryIndex) {
+        int round = categoryIndex / PROFILES.size();
+        return profile(categoryIndex).name() + (round == 0 ? "" : " " + (round + 1));
+    }
+    
+    private static CategoryProfile profile(int categoryIndex) {
+        return PROFILES.get(categoryIndex % PROFILES.size());
+    }
+    
+    private record CategoryProfile(String name, double medianAmount, String[] notes) {
+    }
+}
@@ -0,0 +1,44 @@
+package com.personalexpensetracker.expensetracker.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Time from JVM start until the first application request has been answered,
+// reported once as expensetracker.startup.first.request (management port requests do not count)
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FirstRequestTimer extends OncePerRequestFilter {
+    
+    private final MeterRegistry meterRegistry;
+    private final AtomicBoolean recorded = new AtomicBoolean();
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (!recorded.get() && recorded.compareAndSet(false, true)) {
+                long millis = ManagementFactory.getRuntimeMXBean().getUptime();
+                TimeGauge.builder("expensetracker.startup.first.request", () -> millis, TimeUnit.MILLISECONDS)
+                        .description("Time from JVM start until the first request was served")
+                        .register(meterRegistry);
+                log.info("First request ({} {}) served {} ms after JVM start", request.getMethod(), request.getRequestURI(), millis);
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.personalexpensetracker.expensetracker.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Hibernate second-level and query cache backed by an in-process Caffeine JCache manager.
+ * Regions: the {@code categories} entity region, the {@code category-list} and
+ * {@code expense-summaries} query regions, and Hibernate's default query/timestamp regions.
+ * Size and TTL apply to every region except the update timestamps, which must never expire
+ * before the query results they guard.
+ */
+@Configuration
+public class HibernateCacheConfig {
+    
+    static final List<String> DATA_REGIONS = List.of(
+            "categories", "category-list", "expense-summaries", "default-query-results-region");
+    static final String TIMESTAMPS_REGION = "default-update-timestamps-region";
+    
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(@Value("${expensetracker.cache.max-entries:10000}") long maxEntries,
+                                              @Value("${expensetracker.cache.ttl:10m}") Duration ttl) {
+        // A private URI per application context, so several contexts in one JVM never share regions
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("expensetracker-hibernate-" + UUID.randomUUID()), getClass().getClassLoader());
+        for (String region : DATA_REGIONS) {
+            CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+            configuration.setMaximumSize(OptionalLong.of(maxEntries));
+            configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+            configuration.setStatisticsEnabled(true);
+            cacheManager.createCache(region, configuration);
+        }
+        cacheManager.createCache(TIMESTAMPS_REGION, new CaffeineConfiguration<>());
+        return cacheManager;
+    }
+    
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.USE_QUERY_CACHE, true);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+    
+    // Hit ratio per second-level cache region and for the query cache as a whole
+    @Bean
+    public MeterBinder hibernateCacheHitRatios(EntityManagerFactory entityManagerFactory) {
+        return registry -> {
+            Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            for (String region : DATA_REGIONS) {
+                Gauge.builder("expensetracker.hibernate.cache.hit.ratio", statistics,
+                                stats -> ratio(stats.getCacheRegionStatistics(region)))
+                        .tag("region", region)
+                        .description("Second-level cache hit ratio")
+                        .register(registry);
+            }
+            Gauge.builder("expensetracker.hibernate.query.cache.hit.ratio", statistics,
+                            stats -> ratio(stats.getQueryCacheHitCount(), stats.getQueryCacheMissCount()))
+                    .description("Query cache hit ratio")
+                    .register(registry);
+        };
+    }
+    
+    private static double ratio(CacheRegionStatistics region) {
+        return region == null ? 0 : ratio(region.getHitCount(), region.getMissCount());
+    }
+    
+    private static double ratio(long hits, long misses) {
+        return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+    }
+}
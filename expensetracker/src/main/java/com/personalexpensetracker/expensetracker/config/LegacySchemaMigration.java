@@ -0,0 +1,98 @@
+package com.personalexpensetracker.expensetracker.config;
+
+import org.flywaydb.core.api.MigrationVersion;
+import org.flywaydb.core.api.migration.Context;
+import org.flywaydb.core.api.migration.JavaMigration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * V5: drops what V4 replaced with per-tenant keys and indexes, where it exists. The global unique
+ * key on categories.name is called uk_categories_name when V1 created it, but carries a name
+ * Hibernate generated on databases baselined from ddl-auto=update, so it is looked up by its
+ * column. The single-tenant date indexes only exist where a later ddl-auto=update created them.
+ */
+@Component
+public class LegacySchemaMigration implements JavaMigration {
+    
+    private static final String FIND_NAME_KEYS = """
+            SELECT tc.constraint_name
+            FROM information_schema.table_constraints tc
+            JOIN information_schema.key_column_usage kcu
+              ON kcu.constraint_schema = tc.constraint_schema
+             AND kcu.constraint_name = tc.constraint_name
+             AND kcu.table_name = tc.table_name
+            WHERE tc.table_schema = ? AND LOWER(tc.table_name) = 'categories' AND tc.constraint_type = 'UNIQUE'
+            GROUP BY tc.constraint_name
+            HAVING COUNT(*) = 1 AND LOWER(MAX(kcu.column_name)) = 'name'
+            """;
+    
+    // Superseded by idx_expenses_tenant_date_id, idx_rollup_tenant_date and idx_rollup_tenant_year_month
+    private static final Map<String, List<String>> SINGLE_TENANT_INDEXES = Map.of(
+            "expenses", List.of("idx_expenses_date_id"),
+            "expense_daily_rollups", List.of("idx_rollup_date", "idx_rollup_year_month"));
+    
+    @Override
+    public MigrationVersion getVersion() {
+        return MigrationVersion.fromVersion("5");
+    }
+    
+    @Override
+    public String getDescription() {
+        return "drop legacy category name key and single-tenant indexes";
+    }
+    
+    @Override
+    public Integer getChecksum() {
+        return null;
+    }
+    
+    @Override
+    public boolean canExecuteInTransaction() {
+        return true;
+    }
+    
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        // MySQL reports the database as the catalog, H2 as the schema
+        String schema = connection.getSchema() != null ? connection.getSchema() : connection.getCatalog();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+        List<String> keys = jdbcTemplate.queryForList(FIND_NAME_KEYS, String.class, schema);
+        for (String key : keys) {
+            jdbcTemplate.execute("ALTER TABLE categories DROP CONSTRAINT " + key);
+        }
+        
+        for (Map.Entry<String, List<String>> table : SINGLE_TENANT_INDEXES.entrySet()) {
+            Set<String> existing = indexNames(connection.getMetaData(), connection.getCatalog(), connection.getSchema(), table.getKey());
+            for (String index : table.getValue()) {
+                if (existing.contains(index)) {
+                    jdbcTemplate.execute("DROP INDEX " + index + " ON " + table.getKey());
+                }
+            }
+        }
+    }
+    
+    private static Set<String> indexNames(DatabaseMetaData metaData, String catalog, String schema, String table) throws Exception {
+        Set<String> names = new HashSet<>();
+        try (ResultSet indexes = metaData.getIndexInfo(catalog, schema, table, false, false)) {
+            while (indexes.next()) {
+                String name = indexes.getString("INDEX_NAME");
+                if (name != null) {
+                    names.add(name.toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        return names;
+    }
+}
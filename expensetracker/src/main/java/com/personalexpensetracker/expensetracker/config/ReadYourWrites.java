@@ -0,0 +1,46 @@
+package com.personalexpensetracker.expensetracker.config;
+
+import java.util.function.Supplier;
+
+/**
+ * Pins the current thread to the primary database while replica routing is enabled.
+ * Read-only transactions normally go to a replica; connections opened while pinned go to
+ * the primary instead. The pin only affects connections opened inside it, so code that may
+ * run inside a transaction which already holds a replica connection needs a new transaction.
+ * Without replica routing everything uses the primary and the pin has no effect.
+ */
+public final class ReadYourWrites {
+    
+    private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+    
+    private ReadYourWrites() {
+    }
+    
+    public static boolean isPinned() {
+        return Boolean.TRUE.equals(PINNED.get());
+    }
+    
+    public static <T> T onPrimary(Supplier<T> action) {
+        boolean previous = pin();
+        try {
+            return action.get();
+        } finally {
+            restore(previous);
+        }
+    }
+    
+    // Returns the previous state for restore, so pins can nest
+    static boolean pin() {
+        boolean previous = isPinned();
+        PINNED.set(Boolean.TRUE);
+        return previous;
+    }
+    
+    static void restore(boolean previous) {
+        if (previous) {
+            PINNED.set(Boolean.TRUE);
+        } else {
+            PINNED.remove();
+        }
+    }
+}
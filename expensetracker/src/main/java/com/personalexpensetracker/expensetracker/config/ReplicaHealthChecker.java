@@ -0,0 +1,96 @@
+package com.personalexpensetracker.expensetracker.config;
+
+import com.personalexpensetracker.expensetracker.config.ReplicaRoutingDataSource.Replica;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures replica lag with a heartbeat row: each check writes the current time to
+ * replica_heartbeat on the primary, then reads the replicated value on every replica.
+ * A replica is used for reads while that heartbeat is at most {@code maxLagMillis} old,
+ * so the measured lag includes up to one check interval. A replica that cannot be queried,
+ * or has no heartbeat yet, is unhealthy; reads then fall back to the primary.
+ */
+@Slf4j
+public class ReplicaHealthChecker {
+    
+    private final JdbcTemplate primary;
+    private final List<Replica> replicas;
+    private final long maxLagMillis;
+    private final long intervalMillis;
+    private ScheduledExecutorService scheduler;
+    
+    public ReplicaHealthChecker(DataSource primary, List<Replica> replicas, long maxLagMillis, long intervalMillis) {
+        this.primary = new JdbcTemplate(primary);
+        this.replicas = replicas;
+        this.maxLagMillis = maxLagMillis;
+        this.intervalMillis = intervalMillis;
+    }
+    
+    // The first check runs after one interval; until then every read goes to the primary
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-health-checker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::checkReplicas, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+    
+    void checkReplicas() {
+        long now = System.currentTimeMillis();
+        try {
+            if (primary.update("UPDATE replica_heartbeat SET beat_at = ? WHERE id = 1", now) == 0) {
+                primary.update("INSERT INTO replica_heartbeat (id, beat_at) VALUES (1, ?)", now);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Could not write the replica heartbeat on the primary: {}", e.getMostSpecificCause().getMessage());
+        }
+        for (Replica replica : replicas) {
+            check(replica, now);
+        }
+    }
+    
+    private void check(Replica replica, long now) {
+        Long beat;
+        try {
+            beat = new JdbcTemplate(replica.getDataSource())
+                    .queryForObject("SELECT beat_at FROM replica_heartbeat WHERE id = 1", Long.class);
+        } catch (EmptyResultDataAccessException e) {
+            beat = null;
+        } catch (DataAccessException e) {
+            if (replica.isHealthy()) {
+                log.warn("Replica {} failed its health check, reading from the primary: {}",
+                        replica.getName(), e.getMostSpecificCause().getMessage());
+            }
+            replica.update(false, Double.NaN);
+            return;
+        }
+        
+        long lag = beat == null ? Long.MAX_VALUE : Math.max(now - beat, 0);
+        boolean healthy = lag <= maxLagMillis;
+        if (healthy != replica.isHealthy()) {
+            if (healthy) {
+                log.info("Replica {} is {} ms behind, routing reads to it", replica.getName(), lag);
+            } else {
+                log.warn("Replica {} is {} behind (limit {} ms), reading from the primary", replica.getName(),
+                        beat == null ? "an unknown time" : lag + " ms", maxLagMillis);
+            }
+        }
+        replica.update(healthy, beat == null ? Double.NaN : lag);
+    }
+}
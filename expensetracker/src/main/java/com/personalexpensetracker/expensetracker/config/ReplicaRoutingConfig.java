@@ -0,0 +1,94 @@
+package com.personalexpensetracker.expensetracker.config;
+
+import com.personalexpensetracker.expensetracker.config.ReplicaRoutingDataSource.Replica;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Read/write splitting ({@code expensetracker.datasource.routing.enabled}).
+ * <p>
+ * The application data source is a {@link LazyConnectionDataSourceProxy} over the primary pool.
+ * It opens the physical connection only at the first statement, once the transaction's read-only
+ * flag is known, and sends read-only transactions to {@link ReplicaRoutingDataSource}. Everything
+ * else, including Flyway and the JDBC batch writers, uses the primary. Replica lag is checked by
+ * {@link ReplicaHealthChecker}; browsers that just wrote are pinned to the primary by
+ * {@link ReadYourWritesFilter}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "expensetracker.datasource.routing.enabled", havingValue = "true")
+public class ReplicaRoutingConfig {
+    
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+    
+    // Replica URLs are comma separated; the credentials default to the primary's
+    @Bean
+    public ReplicaRoutingDataSource replicaDataSource(HikariDataSource primaryDataSource,
+                                                      DataSourceProperties properties,
+                                                      MeterRegistry meterRegistry,
+                                                      @Value("${expensetracker.datasource.replicas}") String urls,
+                                                      @Value("${expensetracker.datasource.replica-username:${spring.datasource.username:}}") String username,
+                                                      @Value("${expensetracker.datasource.replica-password:${spring.datasource.password:}}") String password,
+                                                      @Value("${expensetracker.datasource.replica-pool-size:10}") int poolSize) {
+        List<Replica> replicas = new ArrayList<>();
+        for (String url : Arrays.stream(urls.split(",")).map(String::trim).filter(url -> !url.isEmpty()).toList()) {
+            HikariDataSource dataSource = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(properties.determineDriverClassName())
+                    .url(url)
+                    .username(username)
+                    .password(password)
+                    .build();
+            String name = "replica-" + (replicas.size() + 1);
+            dataSource.setPoolName(name);
+            dataSource.setMaximumPoolSize(poolSize);
+            dataSource.setReadOnly(true);
+            replicas.add(new Replica(name, dataSource));
+        }
+        if (replicas.isEmpty()) {
+            throw new IllegalStateException("expensetracker.datasource.routing.enabled needs at least one URL in expensetracker.datasource.replicas");
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, meterRegistry);
+    }
+    
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaRoutingDataSource replicaDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(replicaDataSource);
+        return dataSource;
+    }
+    
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public ReplicaHealthChecker replicaHealthChecker(HikariDataSource primaryDataSource,
+                                                     ReplicaRoutingDataSource replicaDataSource,
+                                                     @Value("${expensetracker.datasource.max-lag-ms:3000}") long maxLagMillis,
+                                                     @Value("${expensetracker.datasource.health-check-interval-ms:1000}") long intervalMillis) {
+        return new ReplicaHealthChecker(primaryDataSource, replicaDataSource.getReplicas(), maxLagMillis, intervalMillis);
+    }
+    
+    // Keep sticky-ms above max-lag-ms plus one check interval, or a user may miss their own write
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter(@Value("${expensetracker.datasource.sticky-ms:5000}") long stickyMillis) {
+        return new ReadYourWritesFilter(stickyMillis);
+    }
+}
@@ -0,0 +1,115 @@
+package com.personalexpensetracker.expensetracker.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Target for read-only connections: round-robin over the replicas that passed their last
+ * health check, or the primary when none did or the thread is pinned to it
+ * ({@link ReadYourWrites}). Reads are counted per target as expensetracker.datasource.reads.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+    
+    static final String PRIMARY = "primary";
+    
+    private final List<Replica> replicas;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Map<String, Counter> reads = new HashMap<>();
+    
+    public ReplicaRoutingDataSource(DataSource primary, List<Replica> replicas, MeterRegistry meterRegistry) {
+        this.replicas = List.copyOf(replicas);
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        reads.put(PRIMARY, readCounter(meterRegistry, PRIMARY));
+        for (Replica replica : replicas) {
+            targets.put(replica.getName(), replica.getDataSource());
+            reads.put(replica.getName(), readCounter(meterRegistry, replica.getName()));
+            TimeGauge.builder("expensetracker.datasource.replica.lag", replica, TimeUnit.MILLISECONDS, Replica::getLagMillis)
+                    .description("Age of the newest heartbeat seen on the replica; NaN when unknown")
+                    .tag("replica", replica.getName())
+                    .register(meterRegistry);
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+    }
+    
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+    
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String target = PRIMARY;
+        if (!ReadYourWrites.isPinned()) {
+            int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+            for (int i = 0; i < replicas.size(); i++) {
+                Replica replica = replicas.get((start + i) % replicas.size());
+                if (replica.isHealthy()) {
+                    target = replica.getName();
+                    break;
+                }
+            }
+        }
+        reads.get(target).increment();
+        return target;
+    }
+    
+    @Override
+    public void destroy() {
+        replicas.forEach(replica -> replica.getDataSource().close());
+    }
+    
+    private static Counter readCounter(MeterRegistry meterRegistry, String target) {
+        return Counter.builder("expensetracker.datasource.reads")
+                .description("Read-only connections opened, by target")
+                .tag("target", target)
+                .register(meterRegistry);
+    }
+    
+    // One replica pool and the outcome of its last health check; unhealthy until the first check passes
+    public static final class Replica {
+        
+        private final String name;
+        private final HikariDataSource dataSource;
+        private volatile boolean healthy;
+        private volatile double lagMillis = Double.NaN;
+        
+        public Replica(String name, HikariDataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+        
+        public String getName() {
+            return name;
+        }
+        
+        public HikariDataSource getDataSource() {
+            return dataSource;
+        }
+        
+        public boolean isHealthy() {
+            return healthy;
+        }
+        
+        public double getLagMillis() {
+            return lagMillis;
+        }
+        
+        void update(boolean healthy, double lagMillis) {
+            this.lagMillis = lagMillis;
+            this.healthy = healthy;
+        }
+    }
+}
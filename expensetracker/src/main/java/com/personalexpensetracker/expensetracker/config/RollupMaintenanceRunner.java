@@ -0,0 +1,51 @@
+package com.personalexpensetracker.expensetracker.config;
+
+import com.personalexpensetracker.expensetracker.repository.ExpenseRepository;
+import com.personalexpensetracker.expensetracker.service.ExpenseRollupService;
+import com.personalexpensetracker.expensetracker.service.ExpenseRollupService.RollupVerification;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Rebuilds or verifies the expense rollups from the command line:
+ * {@code --rollups=rebuild} or {@code --rollups=verify}.
+ * Also backfills the rollups on the first start against an existing database.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RollupMaintenanceRunner implements ApplicationRunner {
+    
+    private final ExpenseRollupService rollupService;
+    private final ExpenseRepository expenseRepository;
+    
+    // As the root tenant: the backfill and the checks cover every tenant
+    @Override
+    public void run(ApplicationArguments args) {
+        TenantContext.as(TenantContext.ROOT, () -> maintain(args));
+    }
+    
+    private void maintain(ApplicationArguments args) {
+        List<String> commands = args.containsOption("rollups") ? args.getOptionValues("rollups") : List.of();
+        
+        if (commands.contains("rebuild") || (rollupService.isEmpty() && expenseRepository.count() > 0)) {
+            rollupService.rebuild();
+        }
+        
+        if (commands.contains("verify")) {
+            RollupVerification verification = rollupService.verify();
+            if (verification.isConsistent()) {
+                log.info("Expense rollups verified: {} cells match the expenses table and archive", verification.rollupCells());
+            } else {
+                log.warn("Expense rollups have {} mismatches (run with --rollups=rebuild to repair)",
+                        verification.mismatchCount());
+                verification.mismatches().forEach(mismatch -> log.warn("  {}", mismatch));
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.personalexpensetracker.expensetracker.config;
+
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * The tenant (user) whose data the current thread works on. Hibernate reads it through
+ * {@link TenantIdentifierResolver} when a session opens and restricts every query on
+ * expenses, categories and rollups to that tenant. Threads without a tenant, such as
+ * startup tasks, work on {@link #DEFAULT}. Maintenance across all tenants runs as
+ * {@link #ROOT}, which Hibernate does not filter; root can never come from a request.
+ */
+public final class TenantContext {
+    
+    public static final String DEFAULT = "default";
+    public static final String ROOT = "*";
+    
+    private static final Pattern VALID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+    
+    private TenantContext() {
+    }
+    
+    public static String current() {
+        String tenant = CURRENT.get();
+        return tenant != null ? tenant : DEFAULT;
+    }
+    
+    public static boolean isValid(String tenant) {
+        return tenant != null && VALID.matcher(tenant).matches();
+    }
+    
+    public static <T> T as(String tenant, Supplier<T> action) {
+        if (!ROOT.equals(tenant) && !isValid(tenant)) {
+            throw new IllegalArgumentException("Invalid tenant id: " + tenant);
+        }
+        String previous = set(tenant);
+        try {
+            return action.get();
+        } finally {
+            set(previous);
+        }
+    }
+    
+    public static void as(String tenant, Runnable action) {
+        as(tenant, () -> {
+            action.run();
+            return null;
+        });
+    }
+    
+    public static <T> T asRoot(Supplier<T> action) {
+        return as(ROOT, action);
+    }
+    
+    // The tenant an entity belongs to; entities not persisted yet belong to the current tenant
+    public static String of(String entityTenant) {
+        return entityTenant != null ? entityTenant : current();
+    }
+    
+    // The tenant set on this thread, or null
+    static String explicit() {
+        return CURRENT.get();
+    }
+    
+    // Returns the previous tenant (null when none was set) for restoring it
+    static String set(String tenant) {
+        String previous = CURRENT.get();
+        if (tenant != null) {
+            CURRENT.set(tenant);
+        } else {
+            CURRENT.remove();
+        }
+        return previous;
+    }
+}
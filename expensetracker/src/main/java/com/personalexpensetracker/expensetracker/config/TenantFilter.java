@@ -0,0 +1,77 @@
+package com.personalexpensetracker.expensetracker.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.security.Principal;
+import java.util.Set;
+
+// Sets the tenant for the rest of the request. An authenticated request belongs to its principal's
+// tenant, and a header naming another tenant is refused. Otherwise the header is only accepted for
+// the configured tenants; requests with neither use the default tenant.
+// Runs first, so the open-in-view session and every other filter already see the tenant.
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class TenantFilter extends OncePerRequestFilter {
+    
+    private final String header;
+    private final Set<String> allowed;
+    
+    public TenantFilter(@Value("${expensetracker.tenant.header:X-Tenant-Id}") String header,
+                        @Value("${expensetracker.tenant.allowed:}") String allowed) {
+        this.header = header;
+        this.allowed = StringUtils.commaDelimitedListToSet(allowed.replace(" ", ""));
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String requested = request.getHeader(header);
+        Principal principal = request.getUserPrincipal();
+        String tenant = requested;
+        if (principal != null) {
+            tenant = principal.getName();
+            if (!TenantContext.isValid(tenant)) {
+                response.sendError(HttpServletResponse.SC_FORBIDDEN, "User is not a valid tenant");
+                return;
+            }
+            if (requested != null && !requested.equals(tenant)) {
+                response.sendError(HttpServletResponse.SC_FORBIDDEN, header + " does not match the authenticated user");
+                return;
+            }
+        } else if (requested != null) {
+            if (!TenantContext.isValid(requested)) {
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid " + header + " header");
+                return;
+            }
+            if (!allowed.contains(requested)) {
+                response.sendError(HttpServletResponse.SC_FORBIDDEN, "Unknown tenant in " + header + " header");
+                return;
+            }
+        }
+        // Responses differ per tenant, so caches must key on the header
+        response.addHeader(HttpHeaders.VARY, header);
+        String previous = TenantContext.set(tenant);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            TenantContext.set(previous);
+        }
+    }
+    
+    // Async dispatches (streamed exports) run on other threads and need the tenant too
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+}
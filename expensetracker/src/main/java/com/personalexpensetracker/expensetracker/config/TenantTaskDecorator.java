@@ -0,0 +1,28 @@
+package com.personalexpensetracker.expensetracker.config;
+
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.stereotype.Component;
+
+// Carries the submitting thread's tenant and primary pin into tasks on the application task executor
+// (dashboard widgets, streamed exports), which would otherwise run as the default tenant and read
+// from a replica that may not have the request's own writes yet
+@Component
+public class TenantTaskDecorator implements TaskDecorator {
+    
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        String tenant = TenantContext.explicit();
+        boolean pinned = ReadYourWrites.isPinned();
+        return () -> {
+            String previous = TenantContext.set(tenant);
+            boolean previousPin = ReadYourWrites.isPinned();
+            ReadYourWrites.restore(pinned);
+            try {
+                runnable.run();
+            } finally {
+                ReadYourWrites.restore(previousPin);
+                TenantContext.set(previous);
+            }
+        };
+    }
+}
@@ -0,0 +1,42 @@
+package com.personalexpensetracker.expensetracker.controller;
+
+import com.personalexpensetracker.expensetracker.dto.AnalyticsResult;
+import com.personalexpensetracker.expensetracker.service.ExpenseColumnStore;
+import com.personalexpensetracker.expensetracker.service.ExpenseColumnStore.GroupBy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Controller
+@RequestMapping("/analytics")
+@RequiredArgsConstructor
+public class AnalyticsController {
+    
+    private final ExpenseColumnStore columnStore;
+    
+    // Ad-hoc aggregation, e.g. /analytics/api?groupBy=MONTH&categoryId=1&categoryId=2&startDate=2024-01-01&note=taxi
+    @GetMapping("/api")
+    @ResponseBody
+    public ResponseEntity<AnalyticsResult> aggregate(
+            @RequestParam(defaultValue = "NONE") GroupBy groupBy,
+            @RequestParam(required = false) List<Long> categoryId,
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate,
+            @RequestParam(required = false) String note) {
+        // Answers only once the startup load has finished, so totals are never partial
+        if (!columnStore.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        LocalDate start = startDate != null ? LocalDate.parse(startDate) : null;
+        LocalDate end = endDate != null ? LocalDate.parse(endDate) : null;
+        return ResponseEntity.ok(columnStore.aggregate(groupBy, categoryId, start, end, note));
+    }
+}
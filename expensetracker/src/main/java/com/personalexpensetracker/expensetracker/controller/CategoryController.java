@@ -1,7 +1,9 @@
 package com.personalexpensetracker.expensetracker.controller;
 
 import com.personalexpensetracker.expensetracker.model.Category;
+import com.personalexpensetracker.expensetracker.service.CategoryCache;
 import com.personalexpensetracker.expensetracker.service.CategoryService;
+import com.personalexpensetracker.expensetracker.service.DataVersion;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -9,10 +11,13 @@ import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import jakarta.validation.Valid;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Controller
@@ -21,6 +26,7 @@ import java.util.Optional;
 public class CategoryController {
     
     private final CategoryService categoryService;
+    private final DataVersion dataVersion;
     
     @GetMapping
     public String listCategories(Model model) {
@@ -99,10 +105,27 @@ public class CategoryController {
     // REST API endpoints
     @GetMapping("/api")
     @ResponseBody
-    public ResponseEntity<List<Category>> getAllCategories() {
+    public ResponseEntity<List<Category>> getAllCategories(WebRequest request) {
+        DataVersion.Stamp version = dataVersion.current();
+        if (request.checkNotModified(version.eTag(), version.lastModified())) {
+            return null;
+        }
         return ResponseEntity.ok(categoryService.findAll());
     }
     
+    @GetMapping("/api/cache-stats")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getCacheStatistics() {
+        CategoryCache.Statistics statistics = categoryService.getCacheStatistics();
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("hits", statistics.hits());
+        response.put("misses", statistics.misses());
+        response.put("evictions", statistics.evictions());
+        response.put("hitRatio", statistics.hitRatio());
+        response.put("size", statistics.size());
+        return ResponseEntity.ok(response);
+    }
+    
     @GetMapping("/api/{id}")
     @ResponseBody
     public ResponseEntity<Category> getCategory(@PathVariable Long id) {
@@ -1,28 +1,52 @@
 package com.personalexpensetracker.expensetracker.controller;
 
+import com.personalexpensetracker.expensetracker.dto.BatchItemResult;
+import com.personalexpensetracker.expensetracker.dto.CursorPage;
+import com.personalexpensetracker.expensetracker.dto.ExpensePatch;
+import com.personalexpensetracker.expensetracker.dto.ExpenseView;
+import com.personalexpensetracker.expensetracker.dto.ImportResult;
+import com.personalexpensetracker.expensetracker.model.Category;
 import com.personalexpensetracker.expensetracker.model.Expense;
 import com.personalexpensetracker.expensetracker.service.ExpenseService;
 import com.personalexpensetracker.expensetracker.service.CategoryService;
+import com.personalexpensetracker.expensetracker.service.DataVersion;
+import com.personalexpensetracker.expensetracker.service.ExpenseChangeBus;
+import com.personalexpensetracker.expensetracker.service.ExpenseExportService;
+import com.personalexpensetracker.expensetracker.service.ExpenseImportService;
+import com.personalexpensetracker.expensetracker.service.ExpenseIngestPipeline;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import org.springframework.transaction.annotation.Transactional;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+@Slf4j
 @Controller
 @RequestMapping("/expenses")
 @RequiredArgsConstructor
@@ -30,6 +54,14 @@ public class ExpenseController {
     
     private final ExpenseService expenseService;
     private final CategoryService categoryService;
+    private final ExpenseImportService expenseImportService;
+    private final ExpenseExportService expenseExportService;
+    private final DataVersion dataVersion;
+    private final ExpenseIngestPipeline ingestPipeline;
+    private final ExpenseChangeBus changeBus;
+    
+    // Newest first; id breaks ties between expenses on the same day
+    private static final Sort LIST_SORT = Sort.by("date").descending().and(Sort.by("id").descending());
     
     @GetMapping
     public String listExpenses(
@@ -39,26 +71,39 @@ public class ExpenseController {
             @RequestParam(required = false) String startDate,
             @RequestParam(required = false) String endDate,
             @RequestParam(required = false) String search,
+            @RequestParam(required = false) String cursor,
             Model model) {
         
-        Pageable pageable = PageRequest.of(page, size, Sort.by("date").descending());
-        Page<Expense> expenses;
+        // Keyset mode: any cursor parameter (empty for the first page) switches to seek pagination
+        if (cursor != null && (search == null || search.trim().isEmpty())) {
+            LocalDate start = startDate != null && endDate != null ? LocalDate.parse(startDate) : null;
+            LocalDate end = startDate != null && endDate != null ? LocalDate.parse(endDate) : null;
+            CursorPage<ExpenseView> expenses = expenseService.scroll(categoryId, start, end, cursor, size);
+            
+            model.addAttribute("expenses", new SliceImpl<>(expenses.content(), PageRequest.of(0, size), expenses.hasNext()));
+            model.addAttribute("nextCursor", expenses.nextCursor());
+            model.addAttribute("keyset", true);
+            model.addAttribute("categories", categoryService.findAll());
+            model.addAttribute("currentPage", 0);
+            model.addAttribute("totalPages", 0);
+            model.addAttribute("size", size);
+            model.addAttribute("categoryId", categoryId);
+            model.addAttribute("startDate", startDate);
+            model.addAttribute("endDate", endDate);
+            model.addAttribute("search", search);
+            return "expenses/list";
+        }
         
-        if (categoryId != null && startDate != null && endDate != null) {
-            expenses = expenseService.findByCategoryAndDateRange(
-                    categoryId, LocalDate.parse(startDate), LocalDate.parse(endDate), pageable);
-        } else if (categoryId != null) {
-            expenses = expenseService.findByCategoryId(categoryId, pageable);
-        } else if (startDate != null && endDate != null) {
-            expenses = expenseService.findByDateRange(
-                    LocalDate.parse(startDate), LocalDate.parse(endDate), pageable);
-        } else if (search != null && !search.trim().isEmpty()) {
-            List<Expense> searchResults = expenseService.searchByNote(search);
-            // Convert to page manually for search results
-            expenses = Page.empty();
-            model.addAttribute("searchResults", searchResults);
+        Pageable pageable = PageRequest.of(page, size, LIST_SORT);
+        LocalDate start = startDate != null && endDate != null ? LocalDate.parse(startDate) : null;
+        LocalDate end = startDate != null && endDate != null ? LocalDate.parse(endDate) : null;
+        Page<ExpenseView> expenses;
+        
+        if (search != null && !search.trim().isEmpty()) {
+            // Ranked, paginated note search; category and date filters narrow the results
+            expenses = expenseService.searchByNote(search, categoryId, start, end, PageRequest.of(page, size));
         } else {
-            expenses = expenseService.findAll(pageable);
+            expenses = expenseService.findViews(categoryId, start, end, pageable);
         }
         
         model.addAttribute("expenses", expenses);
@@ -103,48 +148,36 @@ public class ExpenseController {
     }
     
     @GetMapping("/edit/{id}")
-@Transactional(readOnly = true)
-public String showEditForm(@PathVariable Long id, Model model) {
-    try {
-        System.out.println("Edit endpoint called with ID: " + id);
-        Optional<Expense> expense = expenseService.findById(id);
-        System.out.println("Expense found: " + expense.isPresent());
-        if (expense.isPresent()) {
-            System.out.println("Expense details: " + expense.get());
-            try {
-                if (expense.get().getCategory() != null) {
-                    System.out.println("Category: " + expense.get().getCategory().getName());
-                }
-            } catch (Exception ex) {
-                System.out.println("Warning: Category could not be loaded (possibly lazy init).");
+    @Transactional(readOnly = true)
+    public String showEditForm(@PathVariable Long id, Model model) {
+        try {
+            log.debug("Edit form requested for expense {}", id);
+            Optional<Expense> expense = expenseService.findById(id);
+            if (expense.isPresent()) {
+                model.addAttribute("expense", expense.get());
+                model.addAttribute("categories", categoryService.findAll());
+                return "expenses/form";
+            } else {
+                log.debug("Expense {} not found, redirecting to expenses list", id);
+                return "redirect:/expenses";
             }
-
-            model.addAttribute("expense", expense.get());
-            model.addAttribute("categories", categoryService.findAll());
-            System.out.println("Categories loaded: " + categoryService.findAll().size());
-            return "expenses/form";
-        } else {
-            System.out.println("Expense not found, redirecting to expenses list");
+        } catch (Exception e) {
+            log.error("Error loading edit form for expense {}", id, e);
             return "redirect:/expenses";
         }
-    } catch (Exception e) {
-        System.err.println("Error in edit endpoint: " + e.getMessage());
-        e.printStackTrace();
-        return "redirect:/expenses";
     }
-}
-
+    
     @GetMapping("/test/{id}")
     @ResponseBody
     @Transactional(readOnly = true)
     public String testEdit(@PathVariable Long id) {
         try {
-            System.out.println("Test endpoint called with ID: " + id);
+            log.debug("Test endpoint called for expense {}", id);
             Optional<Expense> expense = expenseService.findById(id);
             if (expense.isPresent()) {
                 // Access the category to initialize it
                 if (expense.get().getCategory() != null) {
-                    System.out.println("Category: " + expense.get().getCategory().getName());
+                    log.debug("Expense {} has category {}", id, expense.get().getCategory().getName());
                 }
                 return "Expense found: " + expense.get().toString();
             } else {
@@ -192,10 +225,15 @@ public String showEditForm(@PathVariable Long id, Model model) {
     public String showSummary(
             @RequestParam(required = false) String startDate,
             @RequestParam(required = false) String endDate,
+            WebRequest request,
             Model model) {
         
         LocalDate start = startDate != null ? LocalDate.parse(startDate) : LocalDate.now().withDayOfMonth(1);
         LocalDate end = endDate != null ? LocalDate.parse(endDate) : LocalDate.now();
+        DataVersion.Stamp version = dataVersion.current();
+        if (request.checkNotModified(version.eTag(start, end, LocalDate.now().getYear()), version.lastModified())) {
+            return null;
+        }
         
         BigDecimal totalAmount = expenseService.getTotalAmountByDateRange(start, end);
         List<Object[]> categorySummary = expenseService.getCategorySummaryByDateRange(start, end);
@@ -213,24 +251,144 @@ public String showEditForm(@PathVariable Long id, Model model) {
     // REST API endpoints
     @GetMapping("/api")
     @ResponseBody
-    public ResponseEntity<Page<Expense>> getAllExpenses(
+    public ResponseEntity<Page<ExpenseView>> getAllExpenses(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by("date").descending());
-        return ResponseEntity.ok(expenseService.findAll(pageable));
+            @RequestParam(defaultValue = "10") int size,
+            WebRequest request) {
+        DataVersion.Stamp version = dataVersion.current();
+        if (request.checkNotModified(version.eTag(), version.lastModified())) {
+            return null;
+        }
+        Pageable pageable = PageRequest.of(page, size, LIST_SORT);
+        return ResponseEntity.ok(expenseService.findViews(null, null, null, pageable));
+    }
+    
+    // Keyset-paginated listing; pass back nextCursor to continue, omit it to start from the newest
+    @GetMapping("/api/scroll")
+    @ResponseBody
+    public ResponseEntity<CursorPage<ExpenseView>> scrollExpenses(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate,
+            WebRequest request) {
+        DataVersion.Stamp version = dataVersion.current();
+        if (request.checkNotModified(version.eTag(), version.lastModified())) {
+            return null;
+        }
+        LocalDate start = startDate != null && endDate != null ? LocalDate.parse(startDate) : null;
+        LocalDate end = startDate != null && endDate != null ? LocalDate.parse(endDate) : null;
+        return ResponseEntity.ok(expenseService.scroll(categoryId, start, end, cursor, size));
+    }
+    
+    // Streams every matching expense as CSV or NDJSON without loading them into memory
+    @GetMapping("/api/export")
+    @ResponseBody
+    public ResponseEntity<StreamingResponseBody> exportExpenses(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate) {
+        LocalDate start = startDate != null ? LocalDate.parse(startDate) : null;
+        LocalDate end = endDate != null ? LocalDate.parse(endDate) : null;
+        boolean ndjson = "ndjson".equalsIgnoreCase(format);
+        
+        StreamingResponseBody body = ndjson
+                ? output -> expenseExportService.exportNdjson(categoryId, start, end, output)
+                : output -> expenseExportService.exportCsv(categoryId, start, end, output);
+        return ResponseEntity.ok()
+                .contentType(ndjson ? MediaType.parseMediaType("application/x-ndjson") : MediaType.parseMediaType("text/csv"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"expenses." + (ndjson ? "ndjson" : "csv") + "\"")
+                .body(body);
+    }
+    
+    // Live updates as Server-Sent Events: "changes" batches whose id is their offset, "totals", and "reset"
+    // when the client must reload. Resumes after ?from=<offset> or the Last-Event-ID browsers resend.
+    @GetMapping(value = "/api/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ResponseBody
+    public SseEmitter streamChanges(@RequestParam(required = false) Long from,
+                                    @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return changeBus.subscribe(from != null ? from : lastEventId);
+    }
+    
+    @GetMapping("/api/summary")
+    @ResponseBody
+    public ResponseEntity<List<Map<String, Object>>> getCategoryStatistics(
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate,
+            WebRequest request) {
+        LocalDate start = startDate != null ? LocalDate.parse(startDate) : LocalDate.now().withDayOfMonth(1);
+        LocalDate end = endDate != null ? LocalDate.parse(endDate) : LocalDate.now();
+        DataVersion.Stamp version = dataVersion.current();
+        if (request.checkNotModified(version.eTag(start, end), version.lastModified())) {
+            return null;
+        }
+        
+        List<Map<String, Object>> statistics = new ArrayList<>();
+        for (Object[] row : expenseService.getCategoryStatisticsByDateRange(start, end)) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("category", row[0]);
+            item.put("total", row[1]);
+            item.put("count", row[2]);
+            item.put("min", row[3]);
+            item.put("max", row[4]);
+            statistics.add(item);
+        }
+        return ResponseEntity.ok(statistics);
+    }
+    
+    // Batch endpoints for clients syncing many edits: one round trip, one query or transaction per batch,
+    // and a status per item in the order given (duplicates dropped for reads and deletes)
+    @GetMapping("/api/batch")
+    @ResponseBody
+    public ResponseEntity<List<BatchItemResult>> getExpenses(@RequestParam List<Long> ids, WebRequest request) {
+        DataVersion.Stamp version = dataVersion.current();
+        if (request.checkNotModified(version.eTag(ids), version.lastModified())) {
+            return null;
+        }
+        return ResponseEntity.ok(expenseService.findViewsByIds(ids));
+    }
+    
+    @PatchMapping("/api/batch")
+    @ResponseBody
+    public ResponseEntity<List<BatchItemResult>> updateExpenses(@RequestBody List<ExpensePatch> patches) {
+        return ResponseEntity.ok(expenseService.updateExpenses(patches));
+    }
+    
+    @DeleteMapping("/api/batch")
+    @ResponseBody
+    public ResponseEntity<List<BatchItemResult>> deleteExpenses(@RequestParam List<Long> ids) {
+        return ResponseEntity.ok(expenseService.deleteExpenses(ids));
     }
     
     @GetMapping("/api/{id}")
     @ResponseBody
-    public ResponseEntity<Expense> getExpense(@PathVariable Long id) {
-        return expenseService.findById(id)
-                .map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<ExpenseView> getExpense(@PathVariable Long id, WebRequest request) {
+        // An ETag issued to this tenant at its current data version is still valid, once the
+        // expense is known to be the tenant's: another tenant's id must get 404, not 304
+        DataVersion.Stamp version = dataVersion.current();
+        String matched = version.matchingEntityETag(request.getHeader(HttpHeaders.IF_NONE_MATCH), id);
+        if (matched != null && expenseService.existsById(id)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(matched)
+                    .build();
+        }
+        Optional<Expense> expense = expenseService.findByIdWithCategory(id);
+        if (expense.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .eTag(version.entityETag(id, expense.get().getUpdatedAt()))
+                .body(ExpenseView.of(expense.get()));
     }
     
     @PostMapping("/api")
     @ResponseBody
     public ResponseEntity<Expense> createExpense(@Valid @RequestBody Expense expense) {
+        if (ingestPipeline.isEnabled()) {
+            return enqueueExpense(expense);
+        }
         try {
             Expense savedExpense = expenseService.saveExpense(expense);
             return ResponseEntity.status(HttpStatus.CREATED).body(savedExpense);
@@ -239,6 +397,35 @@ public String showEditForm(@PathVariable Long id, Model model) {
         }
     }
     
+    // Write-behind mode: 202 once queued (no id yet), 429 when the queue is full
+    private ResponseEntity<Expense> enqueueExpense(Expense expense) {
+        Long categoryId = expense.getCategory() != null ? expense.getCategory().getId() : null;
+        Optional<Category> category = categoryId != null ? categoryService.findById(categoryId) : Optional.empty();
+        if (category.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        expense.setId(null);
+        expense.setCategory(category.get());
+        if (!ingestPipeline.enqueue(expense)) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .build();
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(expense);
+    }
+    
+    // Streaming bulk import: CSV (date,amount,category,note with optional header) or NDJSON
+    @PostMapping(value = "/api/import", consumes = {"text/csv", "application/x-ndjson"})
+    @ResponseBody
+    public ResponseEntity<ImportResult> importExpenses(HttpServletRequest request,
+                                                      @RequestParam(required = false) Integer batchSize) throws IOException {
+        MediaType contentType = MediaType.parseMediaType(request.getContentType());
+        ImportResult result = contentType.isCompatibleWith(MediaType.parseMediaType("text/csv"))
+                ? expenseImportService.importCsv(request.getInputStream(), batchSize)
+                : expenseImportService.importNdjson(request.getInputStream(), batchSize);
+        return ResponseEntity.ok(result);
+    }
+    
     @PutMapping("/api/{id}")
     @ResponseBody
     public ResponseEntity<Expense> updateExpense(@PathVariable Long id, @Valid @RequestBody Expense expense) {
@@ -0,0 +1,15 @@
+package com.personalexpensetracker.expensetracker.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+// Answer of an ad-hoc aggregation over the column store: one group per non-empty bucket
+public record AnalyticsResult(String groupBy,
+                              List<Group> groups,
+                              long matchedRows,
+                              long scannedRows,
+                              long elapsedMicros) {
+    
+    public record Group(String key, long count, BigDecimal total, BigDecimal min, BigDecimal max) {
+    }
+}
@@ -0,0 +1,18 @@
+package com.personalexpensetracker.expensetracker.dto;
+
+// Outcome of one item of a batch request: an HTTP status code, the error for failed items,
+// and the expense as it is now for successful reads and updates
+public record BatchItemResult(Long id, int status, String error, ExpenseView expense) {
+    
+    public static BatchItemResult ok(Long id, ExpenseView expense) {
+        return new BatchItemResult(id, 200, null, expense);
+    }
+    
+    public static BatchItemResult notFound(Long id) {
+        return new BatchItemResult(id, 404, "Expense not found with id: " + id, null);
+    }
+    
+    public static BatchItemResult invalid(Long id, String error) {
+        return new BatchItemResult(id, 400, error, null);
+    }
+}
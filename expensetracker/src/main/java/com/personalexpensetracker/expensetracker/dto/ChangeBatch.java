@@ -0,0 +1,11 @@
+package com.personalexpensetracker.expensetracker.dto;
+
+import java.util.List;
+
+// The writes of one tenant coalesced over one flush interval. truncated means the batch was too large
+// to list (e.g. a bulk import), so expenses is empty and clients reload their lists.
+public record ChangeBatch(long offset,
+                          List<ExpenseChange> expenses,
+                          boolean categoriesChanged,
+                          boolean truncated) {
+}
@@ -0,0 +1,7 @@
+package com.personalexpensetracker.expensetracker.dto;
+
+import java.util.List;
+
+// One keyset page: the rows plus the token to fetch the next (older) page, if any
+public record CursorPage<T>(List<T> content, String nextCursor, boolean hasNext) {
+}
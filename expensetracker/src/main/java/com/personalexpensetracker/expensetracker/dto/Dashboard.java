@@ -0,0 +1,19 @@
+package com.personalexpensetracker.expensetracker.dto;
+
+import com.personalexpensetracker.expensetracker.model.Expense;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+
+// Dashboard widgets; staleWidgets names the ones served from an earlier load (or empty) because their query failed or timed out
+public record Dashboard(BigDecimal currentMonthTotal,
+                        BigDecimal totalExpenses,
+                        List<Object[]> categorySummary,
+                        List<Expense> recentExpenses,
+                        Set<String> staleWidgets) {
+    
+    public boolean isPartial() {
+        return !staleWidgets.isEmpty();
+    }
+}
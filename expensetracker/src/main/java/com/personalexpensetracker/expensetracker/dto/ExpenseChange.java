@@ -0,0 +1,7 @@
+package com.personalexpensetracker.expensetracker.dto;
+
+import com.personalexpensetracker.expensetracker.event.ChangeType;
+
+// One expense in a change batch; expense is the new state, null when it was deleted or archived
+public record ExpenseChange(ChangeType type, Long id, ExpenseView expense) {
+}
@@ -0,0 +1,32 @@
+package com.personalexpensetracker.expensetracker.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+// Position in the (date DESC, id DESC) ordering, handed to clients as an opaque token
+public record ExpenseCursor(LocalDate date, Long id) {
+    
+    // Sorts before every real expense; MySQL DATE cannot hold LocalDate.MAX
+    public static final ExpenseCursor START = new ExpenseCursor(LocalDate.of(9999, 12, 31), Long.MAX_VALUE);
+    
+    public String encode() {
+        String raw = date + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    // A missing or blank token means "start from the newest expense"
+    public static ExpenseCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return START;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            return new ExpenseCursor(LocalDate.parse(raw.substring(0, separator)), Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+    }
+}
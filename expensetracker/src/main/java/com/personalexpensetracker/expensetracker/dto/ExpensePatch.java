@@ -0,0 +1,12 @@
+package com.personalexpensetracker.expensetracker.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// One item of a batch update; null fields keep their value, so an empty note clears the note
+public record ExpensePatch(Long id,
+                           BigDecimal amount,
+                           LocalDate date,
+                           String note,
+                           Long categoryId) {
+}
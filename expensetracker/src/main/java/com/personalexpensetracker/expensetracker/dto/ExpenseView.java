@@ -0,0 +1,21 @@
+package com.personalexpensetracker.expensetracker.dto;
+
+import com.personalexpensetracker.expensetracker.model.Expense;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Flat, read-only view of an expense with its category, selected directly by JPQL constructor expressions
+public record ExpenseView(Long id,
+                          BigDecimal amount,
+                          LocalDate date,
+                          String note,
+                          Long categoryId,
+                          String categoryName) {
+    
+    // For an expense loaded with its category
+    public static ExpenseView of(Expense expense) {
+        return new ExpenseView(expense.getId(), expense.getAmount(), expense.getDate(), expense.getNote(),
+                expense.getCategory().getId(), expense.getCategory().getName());
+    }
+}
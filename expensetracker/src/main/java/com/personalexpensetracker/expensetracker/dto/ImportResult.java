@@ -0,0 +1,15 @@
+package com.personalexpensetracker.expensetracker.dto;
+
+import java.util.List;
+
+// Outcome of a bulk import: counts, the first rejected rows, and achieved throughput
+public record ImportResult(long rowsRead,
+                           long imported,
+                           long rejected,
+                           List<RowError> errors,
+                           long elapsedMillis,
+                           double rowsPerSecond) {
+    
+    public record RowError(long line, String message) {
+    }
+}
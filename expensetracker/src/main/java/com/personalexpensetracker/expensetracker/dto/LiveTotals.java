@@ -0,0 +1,14 @@
+package com.personalexpensetracker.expensetracker.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+// Absolute totals pushed to live pages; a newer one replaces an older one, so dropped or repeated ones are harmless.
+// Rows have the shape of the summary queries: [category name, total] and [month, total] for asOf's year.
+public record LiveTotals(LocalDate asOf,
+                         BigDecimal totalExpenses,
+                         BigDecimal currentMonthTotal,
+                         List<Object[]> currentMonthCategories,
+                         List<Object[]> monthlySummary) {
+}
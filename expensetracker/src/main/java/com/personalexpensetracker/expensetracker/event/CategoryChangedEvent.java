@@ -0,0 +1,5 @@
+package com.personalexpensetracker.expensetracker.event;
+
+// Published by CategoryService for every write; listeners react after commit
+public record CategoryChangedEvent(ChangeType type, Long categoryId) {
+}
@@ -0,0 +1,7 @@
+package com.personalexpensetracker.expensetracker.event;
+
+public enum ChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
@@ -0,0 +1,7 @@
+package com.personalexpensetracker.expensetracker.event;
+
+import com.personalexpensetracker.expensetracker.model.Expense;
+
+// Published by ExpenseService for every write; listeners react after commit
+public record ExpenseChangedEvent(ChangeType type, Expense expense) {
+}
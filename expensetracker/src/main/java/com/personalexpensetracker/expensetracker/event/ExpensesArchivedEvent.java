@@ -0,0 +1,7 @@
+package com.personalexpensetracker.expensetracker.event;
+
+import java.util.List;
+
+// Published by ExpenseArchiver once a closed year's expenses have moved from the table to the archive
+public record ExpensesArchivedEvent(String tenantId, int year, List<Long> expenseIds) {
+}
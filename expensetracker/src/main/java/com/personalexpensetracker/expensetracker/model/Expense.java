@@ -1,16 +1,25 @@
 package com.personalexpensetracker.expensetracker.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.TenantId;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "expenses")
+@Table(name = "expenses", indexes = {
+    // Date ranges and newest-first lists within a tenant; InnoDB would append id to a plain (date) index anyway
+    @Index(name = "idx_expenses_tenant_date_id", columnList = "tenant_id, date DESC, id DESC"),
+    // Category lookups and category + date ranges; covers SUM(amount) without touching the rows.
+    // A category belongs to one tenant, so this index is tenant-local without a tenant_id prefix
+    @Index(name = "idx_expenses_category_date_amount", columnList = "category_id, date, amount")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -33,17 +42,25 @@ public class Expense {
     @Size(max = 500, message = "Note must not exceed 500 characters")
     private String note;
     
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "category_id", nullable = false)
     @NotNull(message = "Category is required")
     private Category category;
-     
+    
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDate createdAt;
     
     @Column(name = "updated_at")
     private LocalDate updatedAt;
     
+    // Set by Hibernate from the current tenant on persist; queries only ever see the current tenant's rows.
+    // Rows inserted without it belong to the default tenant, as after the V4 migration
+    @TenantId
+    @ColumnDefault("'default'")
+    @JsonIgnore
+    @Column(name = "tenant_id", nullable = false, updatable = false, length = 64)
+    private String tenantId;
+    
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDate.now();
@@ -0,0 +1,61 @@
+package com.personalexpensetracker.expensetracker.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.TenantId;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Summary cube cell: (year, month, day, category) -> sum, count, min, max,
+// maintained alongside every expense write
+@Entity
+@Table(name = "expense_daily_rollups",
+       uniqueConstraints = @UniqueConstraint(name = "uk_rollup_category_date", columnNames = {"category_id", "rollup_date"}),
+       indexes = {
+           @Index(name = "idx_rollup_tenant_date", columnList = "tenant_id, rollup_date"),
+           @Index(name = "idx_rollup_tenant_year_month", columnList = "tenant_id, rollup_year, rollup_month")
+       })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExpenseDailyRollup {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "category_id", nullable = false)
+    private Long categoryId;
+    
+    @Column(name = "rollup_date", nullable = false)
+    private LocalDate rollupDate;
+    
+    // Denormalized from rollup_date so month/year queries can use a plain index
+    @Column(name = "rollup_year", nullable = false)
+    private int rollupYear;
+    
+    @Column(name = "rollup_month", nullable = false)
+    private int rollupMonth;
+    
+    @Column(name = "total_amount", nullable = false, precision = 19, scale = 2)
+    private BigDecimal totalAmount;
+    
+    @Column(name = "expense_count", nullable = false)
+    private long expenseCount;
+    
+    @Column(name = "min_amount", nullable = false, precision = 12, scale = 2)
+    private BigDecimal minAmount;
+    
+    @Column(name = "max_amount", nullable = false, precision = 12, scale = 2)
+    private BigDecimal maxAmount;
+    
+    // Written explicitly by the native upserts; the category already implies it
+    @TenantId
+    @ColumnDefault("'default'")
+    @Column(name = "tenant_id", nullable = false, updatable = false, length = 64)
+    private String tenantId;
+}
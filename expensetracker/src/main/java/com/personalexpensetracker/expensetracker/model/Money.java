@@ -0,0 +1,87 @@
+package com.personalexpensetracker.expensetracker.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * An amount of money as a whole number of cents.
+ * <p>
+ * Used for in-memory totals so that summing does not allocate a {@link BigDecimal} per step;
+ * amounts are converted at the database and API boundary. Hot loops should accumulate the
+ * raw {@code long} cents (see {@link #sum}), since each {@link #plus} still creates a record.
+ * Arithmetic is overflow-checked and throws {@link ArithmeticException} rather than wrapping.
+ * Amounts with more than two decimal places are rejected, matching the
+ * {@code @Digits(fraction = 2)} constraint on {@link Expense#getAmount()}.
+ */
+public record Money(long cents) implements Comparable<Money> {
+    
+    public static final int SCALE = 2;
+    public static final Money ZERO = new Money(0);
+    
+    public static Money of(BigDecimal amount) {
+        return new Money(toCents(amount));
+    }
+    
+    public static Money ofCents(long cents) {
+        return new Money(cents);
+    }
+    
+    public static long toCents(BigDecimal amount) {
+        return amount.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+    }
+    
+    public static BigDecimal toBigDecimal(long cents) {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+    
+    // Sum of a cents column without boxing or intermediate objects
+    public static long sum(long[] cents, int from, int to) {
+        long total = 0;
+        for (int i = from; i < to; i++) {
+            total = Math.addExact(total, cents[i]);
+        }
+        return total;
+    }
+    
+    public Money plus(Money other) {
+        return new Money(Math.addExact(cents, other.cents));
+    }
+    
+    public Money minus(Money other) {
+        return new Money(Math.subtractExact(cents, other.cents));
+    }
+    
+    public Money times(long factor) {
+        return new Money(Math.multiplyExact(cents, factor));
+    }
+    
+    public Money negate() {
+        return new Money(Math.negateExact(cents));
+    }
+    
+    public static Money min(Money a, Money b) {
+        return a.cents <= b.cents ? a : b;
+    }
+    
+    public static Money max(Money a, Money b) {
+        return a.cents >= b.cents ? a : b;
+    }
+    
+    public boolean isNegative() {
+        return cents < 0;
+    }
+    
+    public BigDecimal toBigDecimal() {
+        return toBigDecimal(cents);
+    }
+    
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(cents, other.cents);
+    }
+    
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
@@ -0,0 +1,30 @@
+package com.personalexpensetracker.expensetracker.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Version of one tenant's expense and category data, written by the native upserts of DataVersionRepository.
+// Keyed by the tenant itself, so it is not tenant-filtered.
+@Entity
+@Table(name = "data_versions")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TenantDataVersion {
+    
+    @Id
+    @Column(name = "tenant_id", length = 64)
+    private String tenantId;
+    
+    @Column(nullable = false)
+    private long version;
+    
+    // Millisecond time of the last write
+    @Column(name = "modified_at", nullable = false)
+    private long modifiedAt;
+}
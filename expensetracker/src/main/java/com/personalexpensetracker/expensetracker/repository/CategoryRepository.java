@@ -1,8 +1,12 @@
 package com.personalexpensetracker.expensetracker.repository;
 
 import com.personalexpensetracker.expensetracker.model.Category;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -17,9 +21,15 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
     // Check if category exists by name (case insensitive)
     boolean existsByNameIgnoreCase(String name);
     
-    // Find categories ordered by name
+    // Find categories ordered by name (query-cached; rows come from the categories entity region)
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+                 @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "category-list")})
     List<Category> findAllByOrderByNameAsc();
     
+    // Find category by id as a query, so the tenant restriction applies even inside the current transaction
+    @Query("SELECT c FROM Category c WHERE c.id = :id")
+    Optional<Category> findInTenantById(@Param("id") Long id);
+    
     // Find categories with expense count
     @Query("SELECT c, COUNT(e) as expenseCount FROM Category c LEFT JOIN c.expenses e GROUP BY c.id ORDER BY c.name")
     List<Object[]> findAllWithExpenseCount();
@@ -0,0 +1,34 @@
+package com.personalexpensetracker.expensetracker.repository;
+
+import com.personalexpensetracker.expensetracker.model.TenantDataVersion;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface DataVersionRepository extends JpaRepository<TenantDataVersion, String> {
+    
+    // Bump a tenant's version, creating its row on the first write.
+    // Joins the writing transaction, so the version moves exactly when the data does.
+    // The query space keeps this native write from invalidating the whole second-level cache.
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "data_versions"))
+    @Query(value = "INSERT INTO data_versions (tenant_id, version, modified_at) VALUES (:tenantId, 1, :modifiedAt) " +
+                   "ON DUPLICATE KEY UPDATE version = version + 1, modified_at = VALUES(modified_at)",
+           nativeQuery = true)
+    int bump(@Param("tenantId") String tenantId, @Param("modifiedAt") long modifiedAt);
+    
+    // Bump every tenant's version, for writes made as root
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "data_versions"))
+    @Query(value = "UPDATE data_versions SET version = version + 1, modified_at = :modifiedAt", nativeQuery = true)
+    int bumpAll(@Param("modifiedAt") long modifiedAt);
+}
@@ -1,37 +1,144 @@
 package com.personalexpensetracker.expensetracker.repository;
 
+import com.personalexpensetracker.expensetracker.dto.ExpenseView;
 import com.personalexpensetracker.expensetracker.model.Expense;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.Optional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface ExpenseRepository extends JpaRepository<Expense, Long> {
     
-    // Find expenses by category
-    List<Expense> findByCategoryId(Long categoryId);
+    // Read-only projection shared by the list, search and API queries; the category join is an inner join
+    String VIEW_SELECT = "SELECT new com.personalexpensetracker.expensetracker.dto.ExpenseView(" +
+            "e.id, e.amount, e.date, e.note, c.id, c.name) FROM Expense e JOIN e.category c ";
+    
+    // Find expenses by category; the derived query would join categories and filter on c.id, which scans expenses
+    @Query("SELECT e FROM Expense e WHERE e.category.id = :categoryId")
+    List<Expense> findByCategoryId(@Param("categoryId") Long categoryId);
     
     // Find expenses by date range
     List<Expense> findByDateBetween(LocalDate startDate, LocalDate endDate);
     
     // Find expenses by category and date range
-    List<Expense> findByCategoryIdAndDateBetween(Long categoryId, LocalDate startDate, LocalDate endDate);
+    @Query("SELECT e FROM Expense e WHERE e.category.id = :categoryId AND e.date BETWEEN :startDate AND :endDate")
+    List<Expense> findByCategoryIdAndDateBetween(@Param("categoryId") Long categoryId,
+                                                 @Param("startDate") LocalDate startDate,
+                                                 @Param("endDate") LocalDate endDate);
     
     // Find expenses by note containing text (case insensitive)
     List<Expense> findByNoteContainingIgnoreCase(String note);
     
-    // Paginated queries
-    Page<Expense> findByCategoryId(Long categoryId, Pageable pageable);
-    Page<Expense> findByDateBetween(LocalDate startDate, LocalDate endDate, Pageable pageable);
-    Page<Expense> findByCategoryIdAndDateBetween(Long categoryId, LocalDate startDate, LocalDate endDate, Pageable pageable);
+    // Database fallback for note search while the in-memory index is still building
+    @Query(value = VIEW_SELECT + "WHERE LOWER(e.note) LIKE LOWER(CONCAT('%', :note, '%')) " +
+           "AND (:categoryId IS NULL OR c.id = :categoryId) " +
+           "AND (:startDate IS NULL OR e.date >= :startDate) AND (:endDate IS NULL OR e.date <= :endDate)",
+           countQuery = "SELECT COUNT(e) FROM Expense e WHERE LOWER(e.note) LIKE LOWER(CONCAT('%', :note, '%')) " +
+           "AND (:categoryId IS NULL OR e.category.id = :categoryId) " +
+           "AND (:startDate IS NULL OR e.date >= :startDate) AND (:endDate IS NULL OR e.date <= :endDate)")
+    Page<ExpenseView> searchByNote(@Param("note") String note,
+                                   @Param("categoryId") Long categoryId,
+                                   @Param("startDate") LocalDate startDate,
+                                   @Param("endDate") LocalDate endDate,
+                                   Pageable pageable);
+    
+    // Views for search hits, which are reordered by rank in the service
+    @Query(VIEW_SELECT + "WHERE e.id IN :ids")
+    List<ExpenseView> findViewsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    @Query(VIEW_SELECT + "WHERE e.id = :id")
+    Optional<ExpenseView> findViewById(@Param("id") Long id);
+    
+    // Id, note, date, category id and tenant in id order, used to build the note search index
+    @Query("SELECT e.id, e.note, e.date, e.category.id, e.tenantId FROM Expense e WHERE e.id > :afterId ORDER BY e.id")
+    List<Object[]> findNoteIndexBatch(@Param("afterId") Long afterId, Pageable pageable);
+    
+    // Id, amount, date, category id, note and tenant in id order, used to load the analytics column store
+    @Query("SELECT e.id, e.amount, e.date, e.category.id, e.note, e.tenantId FROM Expense e WHERE e.id > :afterId ORDER BY e.id")
+    List<Object[]> findColumnStoreBatch(@Param("afterId") Long afterId, Pageable pageable);
+    
+    // Oldest expense date per tenant before a cutoff; the archiver's work list
+    @Query("SELECT e.tenantId, MIN(e.date) FROM Expense e WHERE e.date < :before GROUP BY e.tenantId")
+    List<Object[]> findOldestDateByTenantBefore(@Param("before") LocalDate before);
+    
+    // Every column of the expenses in a date range, for writing them to the archive
+    @Query("SELECT e.id, e.date, e.amount, e.category.id, e.note, e.createdAt, e.updatedAt FROM Expense e " +
+           "WHERE e.date >= :startDate AND e.date < :endDateExclusive")
+    List<Object[]> findArchiveRows(@Param("startDate") LocalDate startDate, @Param("endDateExclusive") LocalDate endDateExclusive);
+    
+    // Removes archived expenses from the table by id, so rows inserted meanwhile stay
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM Expense e WHERE e.id IN :ids")
+    int deleteArchived(@Param("ids") Collection<Long> ids);
+    
+    // Paginated list views: id, amount, date, note and category in one statement, plus the page count
+    @Query(value = VIEW_SELECT, countQuery = "SELECT COUNT(e) FROM Expense e")
+    Page<ExpenseView> findViews(Pageable pageable);
+    
+    @Query(value = VIEW_SELECT + "WHERE c.id = :categoryId",
+           countQuery = "SELECT COUNT(e) FROM Expense e WHERE e.category.id = :categoryId")
+    Page<ExpenseView> findViewsByCategoryId(@Param("categoryId") Long categoryId, Pageable pageable);
+    
+    @Query(value = VIEW_SELECT + "WHERE e.date BETWEEN :startDate AND :endDate",
+           countQuery = "SELECT COUNT(e) FROM Expense e WHERE e.date BETWEEN :startDate AND :endDate")
+    Page<ExpenseView> findViewsByDateBetween(@Param("startDate") LocalDate startDate,
+                                             @Param("endDate") LocalDate endDate,
+                                             Pageable pageable);
+    
+    @Query(value = VIEW_SELECT + "WHERE c.id = :categoryId AND e.date BETWEEN :startDate AND :endDate",
+           countQuery = "SELECT COUNT(e) FROM Expense e WHERE e.category.id = :categoryId AND e.date BETWEEN :startDate AND :endDate")
+    Page<ExpenseView> findViewsByCategoryIdAndDateBetween(@Param("categoryId") Long categoryId,
+                                                          @Param("startDate") LocalDate startDate,
+                                                          @Param("endDate") LocalDate endDate,
+                                                          Pageable pageable);
+    
+    // Keyset (seek) pagination on (date DESC, id DESC): rows strictly after the cursor, no count query
+    // The redundant e.date <= :cursorDate gives the planner a range on the date index; the OR alone does not
+    @Query(VIEW_SELECT + "WHERE e.date <= :cursorDate AND (e.date < :cursorDate OR (e.date = :cursorDate AND e.id < :cursorId)) " +
+           "ORDER BY e.date DESC, e.id DESC")
+    Slice<ExpenseView> findAfterCursor(@Param("cursorDate") LocalDate cursorDate,
+                                       @Param("cursorId") Long cursorId,
+                                       Pageable pageable);
+    
+    @Query(VIEW_SELECT + "WHERE c.id = :categoryId " +
+           "AND e.date <= :cursorDate AND (e.date < :cursorDate OR (e.date = :cursorDate AND e.id < :cursorId)) " +
+           "ORDER BY e.date DESC, e.id DESC")
+    Slice<ExpenseView> findByCategoryIdAfterCursor(@Param("categoryId") Long categoryId,
+                                                   @Param("cursorDate") LocalDate cursorDate,
+                                                   @Param("cursorId") Long cursorId,
+                                                   Pageable pageable);
+    
+    @Query(VIEW_SELECT + "WHERE e.date BETWEEN :startDate AND :endDate " +
+           "AND e.date <= :cursorDate AND (e.date < :cursorDate OR (e.date = :cursorDate AND e.id < :cursorId)) " +
+           "ORDER BY e.date DESC, e.id DESC")
+    Slice<ExpenseView> findByDateBetweenAfterCursor(@Param("startDate") LocalDate startDate,
+                                                    @Param("endDate") LocalDate endDate,
+                                                    @Param("cursorDate") LocalDate cursorDate,
+                                                    @Param("cursorId") Long cursorId,
+                                                    Pageable pageable);
+    
+    @Query(VIEW_SELECT + "WHERE c.id = :categoryId AND e.date BETWEEN :startDate AND :endDate " +
+           "AND e.date <= :cursorDate AND (e.date < :cursorDate OR (e.date = :cursorDate AND e.id < :cursorId)) " +
+           "ORDER BY e.date DESC, e.id DESC")
+    Slice<ExpenseView> findByCategoryIdAndDateBetweenAfterCursor(@Param("categoryId") Long categoryId,
+                                                                 @Param("startDate") LocalDate startDate,
+                                                                 @Param("endDate") LocalDate endDate,
+                                                                 @Param("cursorDate") LocalDate cursorDate,
+                                                                 @Param("cursorId") Long cursorId,
+                                                                 Pageable pageable);
     
     // Summary queries
     @Query("SELECT SUM(e.amount) FROM Expense e WHERE e.category.id = :categoryId")
@@ -45,9 +152,15 @@ public interface ExpenseRepository extends JpaRepository<Expense, Long> {
                                                    @Param("startDate") LocalDate startDate, 
                                                    @Param("endDate") LocalDate endDate);
     
-    // Monthly summary
-    @Query("SELECT MONTH(e.date) as month, SUM(e.amount) as total FROM Expense e WHERE YEAR(e.date) = :year GROUP BY MONTH(e.date) ORDER BY MONTH(e.date)")
-    List<Object[]> getMonthlySummary(@Param("year") int year);
+    // Monthly summary; the year is a date range rather than YEAR(e.date) = :year, so the date index applies
+    default List<Object[]> getMonthlySummary(int year) {
+        return getMonthlySummaryBetween(LocalDate.of(year, 1, 1), LocalDate.of(year + 1, 1, 1));
+    }
+    
+    @Query("SELECT MONTH(e.date) as month, SUM(e.amount) as total FROM Expense e " +
+           "WHERE e.date >= :startDate AND e.date < :endDateExclusive GROUP BY MONTH(e.date) ORDER BY MONTH(e.date)")
+    List<Object[]> getMonthlySummaryBetween(@Param("startDate") LocalDate startDate,
+                                            @Param("endDateExclusive") LocalDate endDateExclusive);
     
     // Category summary
     @Query("SELECT c.name, SUM(e.amount) FROM Expense e JOIN e.category c GROUP BY c.id, c.name ORDER BY SUM(e.amount) DESC")
@@ -57,6 +170,14 @@ public interface ExpenseRepository extends JpaRepository<Expense, Long> {
     @Query("SELECT c.name, SUM(e.amount) FROM Expense e JOIN e.category c WHERE e.date BETWEEN :startDate AND :endDate GROUP BY c.id, c.name ORDER BY SUM(e.amount) DESC")
     List<Object[]> getCategorySummaryByDateRange(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
     
+    // Newest expenses first, served by idx_expenses_tenant_date_id
+    @Query("SELECT e FROM Expense e JOIN FETCH e.category ORDER BY e.date DESC, e.id DESC")
+    List<Expense> findRecentWithCategory(Pageable pageable);
+    
+    // Batch updates: every expense of the batch with its category in one statement
+    @Query("SELECT e FROM Expense e JOIN FETCH e.category WHERE e.id IN :ids")
+    List<Expense> findAllWithCategoryByIdIn(@Param("ids") Collection<Long> ids);
+    
     // Find expense with category (to avoid lazy loading issues)
     @Query("SELECT e FROM Expense e JOIN FETCH e.category WHERE e.id = :id")
     Optional<Expense> findByIdWithCategory(@Param("id") Long id);
@@ -0,0 +1,148 @@
+package com.personalexpensetracker.expensetracker.repository;
+
+import com.personalexpensetracker.expensetracker.model.ExpenseDailyRollup;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ExpenseRollupRepository extends JpaRepository<ExpenseDailyRollup, Long> {
+    
+    // Add (or subtract) an amount/count delta to a single category/day cell.
+    // min/max only ever widen here; removals refresh them with refreshExtremes.
+    // Native writes name the rollup table as their query space, so they invalidate only
+    // the cached summaries below instead of the whole second-level cache.
+    // Native SQL is not tenant-filtered, so the tenant is passed explicitly.
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "expense_daily_rollups"))
+    @Query(value = "INSERT INTO expense_daily_rollups " +
+                   "(tenant_id, category_id, rollup_date, rollup_year, rollup_month, total_amount, expense_count, min_amount, max_amount) " +
+                   "VALUES (:tenantId, :categoryId, :rollupDate, :year, :month, :amount, :count, :minAmount, :maxAmount) " +
+                   "ON DUPLICATE KEY UPDATE total_amount = total_amount + VALUES(total_amount), " +
+                   "expense_count = expense_count + VALUES(expense_count), " +
+                   "min_amount = LEAST(min_amount, VALUES(min_amount)), " +
+                   "max_amount = GREATEST(max_amount, VALUES(max_amount))",
+           nativeQuery = true)
+    int applyDelta(@Param("tenantId") String tenantId,
+                   @Param("categoryId") Long categoryId,
+                   @Param("rollupDate") LocalDate rollupDate,
+                   @Param("year") int year,
+                   @Param("month") int month,
+                   @Param("amount") BigDecimal amount,
+                   @Param("count") long count,
+                   @Param("minAmount") BigDecimal minAmount,
+                   @Param("maxAmount") BigDecimal maxAmount);
+    
+    // Recompute min/max of a cell after the given amount was removed from it.
+    // A cell without table rows left keeps its extremes rather than becoming NULL.
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "expense_daily_rollups"))
+    @Query(value = "UPDATE expense_daily_rollups SET " +
+                   "min_amount = COALESCE((SELECT MIN(e.amount) FROM expenses e WHERE e.category_id = :categoryId AND e.date = :rollupDate), min_amount), " +
+                   "max_amount = COALESCE((SELECT MAX(e.amount) FROM expenses e WHERE e.category_id = :categoryId AND e.date = :rollupDate), max_amount) " +
+                   "WHERE category_id = :categoryId AND rollup_date = :rollupDate " +
+                   "AND (min_amount = :removedAmount OR max_amount = :removedAmount)",
+           nativeQuery = true)
+    int refreshExtremes(@Param("categoryId") Long categoryId,
+                        @Param("rollupDate") LocalDate rollupDate,
+                        @Param("removedAmount") BigDecimal removedAmount);
+    
+    // Same for a cell of an archived year, whose archived rows' extremes are passed in
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "expense_daily_rollups"))
+    @Query(value = "UPDATE expense_daily_rollups SET " +
+                   "min_amount = LEAST(COALESCE((SELECT MIN(e.amount) FROM expenses e WHERE e.category_id = :categoryId AND e.date = :rollupDate), :archivedMin), :archivedMin), " +
+                   "max_amount = GREATEST(COALESCE((SELECT MAX(e.amount) FROM expenses e WHERE e.category_id = :categoryId AND e.date = :rollupDate), :archivedMax), :archivedMax) " +
+                   "WHERE category_id = :categoryId AND rollup_date = :rollupDate " +
+                   "AND (min_amount = :removedAmount OR max_amount = :removedAmount)",
+           nativeQuery = true)
+    int refreshExtremesWithArchived(@Param("categoryId") Long categoryId,
+                                    @Param("rollupDate") LocalDate rollupDate,
+                                    @Param("removedAmount") BigDecimal removedAmount,
+                                    @Param("archivedMin") BigDecimal archivedMin,
+                                    @Param("archivedMax") BigDecimal archivedMax);
+    
+    // Drop a cell once its last expense is gone
+    @Modifying
+    @Query("DELETE FROM ExpenseDailyRollup r WHERE r.categoryId = :categoryId AND r.rollupDate = :rollupDate AND r.expenseCount <= 0")
+    int deleteEmptyCell(@Param("categoryId") Long categoryId, @Param("rollupDate") LocalDate rollupDate);
+    
+    @Modifying
+    @Query("DELETE FROM ExpenseDailyRollup r WHERE r.categoryId = :categoryId")
+    int deleteByCategoryId(@Param("categoryId") Long categoryId);
+    
+    // Every tenant's cells, like rebuildFromExpenses; native so the tenant filter does not apply
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "expense_daily_rollups"))
+    @Query(value = "DELETE FROM expense_daily_rollups", nativeQuery = true)
+    int deleteAllCells();
+    
+    // Recompute every cell of every tenant from the raw expenses table
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "expense_daily_rollups"))
+    @Query(value = "INSERT INTO expense_daily_rollups " +
+                   "(tenant_id, category_id, rollup_date, rollup_year, rollup_month, total_amount, expense_count, min_amount, max_amount) " +
+                   "SELECT tenant_id, category_id, date, YEAR(date), MONTH(date), SUM(amount), COUNT(*), MIN(amount), MAX(amount) " +
+                   "FROM expenses GROUP BY tenant_id, category_id, date",
+           nativeQuery = true)
+    int rebuildFromExpenses();
+    
+    // Grand total across all cells
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+                 @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "expense-summaries")})
+    @Query("SELECT COALESCE(SUM(r.totalAmount), 0) FROM ExpenseDailyRollup r")
+    BigDecimal getGrandTotal();
+    
+    // Summary queries answered from the cube, same shapes as ExpenseRepository.
+    // Results are query-cached per tenant; any write to the rollups or categories invalidates them.
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+                 @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "expense-summaries")})
+    @Query("SELECT SUM(r.totalAmount) FROM ExpenseDailyRollup r WHERE r.categoryId = :categoryId")
+    BigDecimal getTotalAmountByCategory(@Param("categoryId") Long categoryId);
+    
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+                 @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "expense-summaries")})
+    @Query("SELECT SUM(r.totalAmount) FROM ExpenseDailyRollup r WHERE r.rollupDate BETWEEN :startDate AND :endDate")
+    BigDecimal getTotalAmountByDateRange(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+    
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+                 @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "expense-summaries")})
+    @Query("SELECT SUM(r.totalAmount) FROM ExpenseDailyRollup r WHERE r.categoryId = :categoryId AND r.rollupDate BETWEEN :startDate AND :endDate")
+    BigDecimal getTotalAmountByCategoryAndDateRange(@Param("categoryId") Long categoryId,
+                                                   @Param("startDate") LocalDate startDate,
+                                                   @Param("endDate") LocalDate endDate);
+    
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+                 @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "expense-summaries")})
+    @Query("SELECT r.rollupMonth, SUM(r.totalAmount) FROM ExpenseDailyRollup r WHERE r.rollupYear = :year GROUP BY r.rollupMonth ORDER BY r.rollupMonth")
+    List<Object[]> getMonthlySummary(@Param("year") int year);
+    
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+                 @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "expense-summaries")})
+    @Query("SELECT c.name, SUM(r.totalAmount) FROM ExpenseDailyRollup r, Category c WHERE c.id = r.categoryId GROUP BY c.id, c.name ORDER BY SUM(r.totalAmount) DESC")
+    List<Object[]> getCategorySummary();
+    
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+                 @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "expense-summaries")})
+    @Query("SELECT c.name, SUM(r.totalAmount) FROM ExpenseDailyRollup r, Category c WHERE c.id = r.categoryId AND r.rollupDate BETWEEN :startDate AND :endDate GROUP BY c.id, c.name ORDER BY SUM(r.totalAmount) DESC")
+    List<Object[]> getCategorySummaryByDateRange(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+    
+    // Full measures per category: name, sum, count, min, max
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+                 @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "expense-summaries")})
+    @Query("SELECT c.name, SUM(r.totalAmount), SUM(r.expenseCount), MIN(r.minAmount), MAX(r.maxAmount) FROM ExpenseDailyRollup r, Category c WHERE c.id = r.categoryId AND r.rollupDate BETWEEN :startDate AND :endDate GROUP BY c.id, c.name ORDER BY SUM(r.totalAmount) DESC")
+    List<Object[]> getCategoryStatisticsByDateRange(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+    
+    // Raw per-category/day aggregates, used to verify the cube
+    @Query("SELECT e.category.id, e.date, SUM(e.amount), COUNT(e), MIN(e.amount), MAX(e.amount) FROM Expense e GROUP BY e.category.id, e.date")
+    List<Object[]> aggregateExpensesByCategoryAndDate();
+}
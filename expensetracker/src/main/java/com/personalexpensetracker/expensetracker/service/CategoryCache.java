@@ -0,0 +1,188 @@
+package com.personalexpensetracker.expensetracker.service;
+
+import com.personalexpensetracker.expensetracker.config.ReadYourWrites;
+import com.personalexpensetracker.expensetracker.config.TenantContext;
+import com.personalexpensetracker.expensetracker.event.CategoryChangedEvent;
+import com.personalexpensetracker.expensetracker.model.Category;
+import com.personalexpensetracker.expensetracker.repository.CategoryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-through cache of all categories: the name-sorted list plus id and
+ * lowercase-name lookups. Loaded with one query on first use and evicted
+ * after any category write commits. Each tenant sees only its own categories.
+ * <p>
+ * A miss inside a transaction loads on the caller's connection rather than a second pooled one.
+ * That result is only cached when it cannot hold replica or uncommitted data: the transaction is
+ * read-write (so on the primary) and has not written a category itself.
+ */
+@Component
+@RequiredArgsConstructor
+public class CategoryCache {
+    
+    private final CategoryRepository categoryRepository;
+    private final PlatformTransactionManager transactionManager;
+    
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    
+    // Snapshots per tenant; a category write evicts only its tenant's snapshot
+    private final Map<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+    // Evictions of all tenants plus those of each tenant, guarded by this; a load is cached only if neither moved
+    private long version;
+    private final Map<String, Long> tenantVersions = new HashMap<>();
+    // Bound to a transaction that has written a category, until it completes
+    private final Object uncommittedWrites = new Object();
+    
+    public List<Category> findAll() {
+        return snapshot().sorted();
+    }
+    
+    public Optional<Category> findById(Long id) {
+        return Optional.ofNullable(snapshot().byId().get(id));
+    }
+    
+    public Optional<Category> findByName(String name) {
+        return name == null ? Optional.empty() : Optional.ofNullable(snapshot().byLowerName().get(normalize(name)));
+    }
+    
+    public boolean existsByName(String name) {
+        return findByName(name).isPresent();
+    }
+    
+    // Runs on the writing thread after commit, so the current tenant is the one that wrote
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        String tenant = TenantContext.current();
+        if (TenantContext.ROOT.equals(tenant)) {
+            evict();
+        } else {
+            evict(tenant);
+        }
+    }
+    
+    // Runs inside the writing transaction, so a later load in it is not cached
+    @EventListener
+    public void onCategoryWritten(CategoryChangedEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(uncommittedWrites)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(uncommittedWrites, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(uncommittedWrites);
+            }
+        });
+    }
+    
+    // Evicts every tenant's snapshot
+    public void evict() {
+        synchronized (this) {
+            version++;
+            if (!snapshots.isEmpty()) {
+                snapshots.clear();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+    
+    public void evict(String tenant) {
+        synchronized (this) {
+            tenantVersions.merge(tenant, 1L, Long::sum);
+            if (snapshots.remove(tenant) != null) {
+                evictions.incrementAndGet();
+            }
+        }
+    }
+    
+    // Size is the current tenant's cached category count
+    public Statistics getStatistics() {
+        Snapshot current = snapshots.get(TenantContext.current());
+        return new Statistics(hits.get(), misses.get(), evictions.get(), current != null ? current.sorted().size() : 0);
+    }
+    
+    private Snapshot snapshot() {
+        String tenant = TenantContext.current();
+        Snapshot current = snapshots.get(tenant);
+        if (current != null) {
+            hits.incrementAndGet();
+            return current;
+        }
+        
+        misses.incrementAndGet();
+        long loadVersion;
+        synchronized (this) {
+            loadVersion = versionOf(tenant);
+        }
+        boolean inTransaction = TransactionSynchronizationManager.isActualTransactionActive();
+        boolean cacheable = !inTransaction || (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && !TransactionSynchronizationManager.hasResource(uncommittedWrites));
+        List<Category> sorted = inTransaction
+                ? categoryRepository.findAllByOrderByNameAsc().stream().map(CategoryCache::detachedCopy).toList()
+                : ReadYourWrites.onPrimary(() -> loadTransaction().execute(
+                        status -> List.copyOf(categoryRepository.findAllByOrderByNameAsc())));
+        Map<Long, Category> byId = new HashMap<>();
+        Map<String, Category> byLowerName = new HashMap<>();
+        for (Category category : sorted) {
+            byId.put(category.getId(), category);
+            byLowerName.put(normalize(category.getName()), category);
+        }
+        Snapshot loaded = new Snapshot(sorted, Map.copyOf(byId), Map.copyOf(byLowerName));
+        synchronized (this) {
+            // A write committed while we were loading: serve this result once but do not cache it
+            if (cacheable && versionOf(tenant) == loadVersion) {
+                snapshots.put(tenant, loaded);
+            }
+        }
+        return loaded;
+    }
+    
+    // Both counts only grow, so their sum changes whenever either does
+    private long versionOf(String tenant) {
+        return version + tenantVersions.getOrDefault(tenant, 0L);
+    }
+    
+    // Only used outside any transaction, so the load opens a single connection, pinned to the primary
+    private TransactionTemplate loadTransaction() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        return transaction;
+    }
+    
+    // Entities of the caller's persistence context must not be shared: the caller may still change them
+    private static Category detachedCopy(Category category) {
+        return new Category(category.getId(), category.getName(), category.getDescription(), null, category.getTenantId());
+    }
+    
+    private static String normalize(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+    
+    private record Snapshot(List<Category> sorted, Map<Long, Category> byId, Map<String, Category> byLowerName) {
+    }
+    
+    public record Statistics(long hits, long misses, long evictions, int size) {
+        public double hitRatio() {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+    }
+}
@@ -1,8 +1,13 @@
 package com.personalexpensetracker.expensetracker.service;
 
+import com.personalexpensetracker.expensetracker.event.CategoryChangedEvent;
+import com.personalexpensetracker.expensetracker.event.ChangeType;
 import com.personalexpensetracker.expensetracker.model.Category;
 import com.personalexpensetracker.expensetracker.repository.CategoryRepository;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -12,31 +17,51 @@ import java.util.Optional;
 @Service
 @RequiredArgsConstructor
 @Transactional
+@Timed(value = "expensetracker.service", description = "Service method calls", histogram = true)
 public class CategoryService {
     
     private final CategoryRepository categoryRepository;
+    private final ExpenseRollupService rollupService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CategoryCache categoryCache;
     
+    // Name uniqueness is checked against the tenant's cached categories; the unique (tenant_id, name) constraint is the final guard
     public Category saveCategory(Category category) {
-        if (categoryRepository.existsByNameIgnoreCase(category.getName())) {
+        if (categoryCache.existsByName(category.getName())) {
             throw new RuntimeException("Category with name '" + category.getName() + "' already exists");
         }
-        return categoryRepository.save(category);
+        Category savedCategory = saveOrRejectDuplicate(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(ChangeType.CREATED, savedCategory.getId()));
+        return savedCategory;
+    }
+    
+    // Several categories in one transaction, e.g. for seeding
+    public List<Category> saveAll(List<Category> categories) {
+        for (Category category : categories) {
+            if (categoryCache.existsByName(category.getName())) {
+                throw new RuntimeException("Category with name '" + category.getName() + "' already exists");
+            }
+        }
+        List<Category> savedCategories = categoryRepository.saveAll(categories);
+        savedCategories.forEach(category -> eventPublisher.publishEvent(new CategoryChangedEvent(ChangeType.CREATED, category.getId())));
+        return savedCategories;
     }
     
     public Optional<Category> findById(Long id) {
-        return categoryRepository.findById(id);
+        return categoryCache.findById(id);
     }
     
     public List<Category> findAll() {
-        return categoryRepository.findAllByOrderByNameAsc();
+        return categoryCache.findAll();
     }
     
+    @Transactional(readOnly = true)
     public List<Object[]> findAllWithExpenseCount() {
         return categoryRepository.findAllWithExpenseCount();
     }
     
     public Optional<Category> findByName(String name) {
-        return categoryRepository.findByNameIgnoreCase(name);
+        return categoryCache.findByName(name);
     }
     
     public Category updateCategory(Long id, Category updatedCategory) {
@@ -44,12 +69,14 @@ public class CategoryService {
                 .map(existingCategory -> {
                     // Check if the new name conflicts with existing categories (excluding current one)
                     if (!existingCategory.getName().equalsIgnoreCase(updatedCategory.getName()) &&
-                        categoryRepository.existsByNameIgnoreCase(updatedCategory.getName())) {
+                        categoryCache.existsByName(updatedCategory.getName())) {
                         throw new RuntimeException("Category with name '" + updatedCategory.getName() + "' already exists");
                     }
                     existingCategory.setName(updatedCategory.getName());
                     existingCategory.setDescription(updatedCategory.getDescription());
-                    return categoryRepository.save(existingCategory);
+                    Category savedCategory = saveOrRejectDuplicate(existingCategory);
+                    eventPublisher.publishEvent(new CategoryChangedEvent(ChangeType.UPDATED, id));
+                    return savedCategory;
                 })
                 .orElseThrow(() -> new RuntimeException("Category not found with id: " + id));
     }
@@ -58,10 +85,25 @@ public class CategoryService {
         if (!categoryRepository.existsById(id)) {
             throw new RuntimeException("Category not found with id: " + id);
         }
+        // Expenses are removed by cascade, so drop their rollups as well
+        rollupService.removeCategory(id);
         categoryRepository.deleteById(id);
+        eventPublisher.publishEvent(new CategoryChangedEvent(ChangeType.DELETED, id));
     }
     
     public boolean existsByName(String name) {
-        return categoryRepository.existsByNameIgnoreCase(name);
+        return categoryCache.existsByName(name);
+    }
+    
+    public CategoryCache.Statistics getCacheStatistics() {
+        return categoryCache.getStatistics();
+    }
+    
+    private Category saveOrRejectDuplicate(Category category) {
+        try {
+            return categoryRepository.saveAndFlush(category);
+        } catch (DataIntegrityViolationException e) {
+            throw new RuntimeException("Category with name '" + category.getName() + "' already exists");
+        }
     }
 }
@@ -0,0 +1,143 @@
+package com.personalexpensetracker.expensetracker.service;
+
+import com.personalexpensetracker.expensetracker.config.ReadYourWrites;
+import com.personalexpensetracker.expensetracker.config.TenantContext;
+import com.personalexpensetracker.expensetracker.config.TenantTaskDecorator;
+import com.personalexpensetracker.expensetracker.dto.Dashboard;
+import com.personalexpensetracker.expensetracker.model.Expense;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Loads the dashboard widgets concurrently, each in its own read-only transaction on a pool of
+ * its own, so exports and seeding on the application task executor never queue ahead of them.
+ * All widgets share one deadline, so the page waits for the slowest query at most. A widget that
+ * fails, misses the deadline or finds the pool's queue full falls back to its last good value;
+ * its queries time out shortly after the deadline, so an abandoned widget frees its thread.
+ * The summary widgets are query-cached, so like the other summary reads they run on the primary.
+ */
+@Slf4j
+@Service
+public class DashboardService {
+    
+    static final String CURRENT_MONTH_TOTAL = "currentMonthTotal";
+    static final String TOTAL_EXPENSES = "totalExpenses";
+    static final String CATEGORY_SUMMARY = "categorySummary";
+    static final String RECENT_EXPENSES = "recentExpenses";
+    
+    private final ExpenseService expenseService;
+    private final TransactionTemplate readOnly;
+    private final ThreadPoolTaskExecutor executor;
+    private final long widgetTimeoutMillis;
+    
+    // Last successfully loaded value per tenant and widget, used as the fallback
+    private final Map<String, Object> lastGood = new ConcurrentHashMap<>();
+    
+    public DashboardService(ExpenseService expenseService,
+                            PlatformTransactionManager transactionManager,
+                            TenantTaskDecorator taskDecorator,
+                            @Value("${expensetracker.dashboard.widget-timeout-ms:2000}") long widgetTimeoutMillis,
+                            @Value("${expensetracker.dashboard.threads:8}") int threads,
+                            @Value("${expensetracker.dashboard.queue-size:64}") int queueSize) {
+        this.expenseService = expenseService;
+        this.widgetTimeoutMillis = widgetTimeoutMillis;
+        // The transaction timeout becomes the JDBC query timeout of every query in it
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.readOnly.setTimeout((int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(widgetTimeoutMillis + 999)));
+        // Bounded on both ends; a full queue rejects the widget instead of growing the wait
+        this.executor = new ThreadPoolTaskExecutor();
+        this.executor.setCorePoolSize(threads);
+        this.executor.setMaxPoolSize(threads);
+        this.executor.setQueueCapacity(queueSize);
+        this.executor.setTaskDecorator(taskDecorator);
+        this.executor.setThreadNamePrefix("dashboard-");
+        this.executor.setDaemon(true);
+        this.executor.initialize();
+    }
+    
+    @EventListener(ContextClosedEvent.class)
+    public void stop() {
+        executor.shutdown();
+    }
+    
+    public Dashboard load(int recentLimit) {
+        LocalDate startOfMonth = LocalDate.now().withDayOfMonth(1);
+        LocalDate endOfMonth = LocalDate.now();
+        
+        CompletableFuture<BigDecimal> currentMonthTotal = submit(true,
+                () -> expenseService.getTotalAmountByDateRange(startOfMonth, endOfMonth));
+        CompletableFuture<BigDecimal> totalExpenses = submit(true, expenseService::getTotalExpenses);
+        CompletableFuture<List<Object[]>> categorySummary = submit(true,
+                () -> expenseService.getCategorySummaryByDateRange(startOfMonth, endOfMonth));
+        CompletableFuture<List<Expense>> recentExpenses = submit(false,
+                () -> expenseService.findRecentExpenses(recentLimit));
+        
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(widgetTimeoutMillis);
+        Set<String> stale = new TreeSet<>();
+        return new Dashboard(
+                await(CURRENT_MONTH_TOTAL, currentMonthTotal, deadline, null, stale),
+                await(TOTAL_EXPENSES, totalExpenses, deadline, null, stale),
+                await(CATEGORY_SUMMARY, categorySummary, deadline, List.of(), stale),
+                await(RECENT_EXPENSES, recentExpenses, deadline, List.of(), stale),
+                stale);
+    }
+    
+    // The pin has to be in place before the transaction opens its connection
+    private <T> CompletableFuture<T> submit(boolean onPrimary, Supplier<T> query) {
+        Supplier<T> widget = () -> readOnly.execute(status -> query.get());
+        try {
+            return CompletableFuture.supplyAsync(onPrimary ? () -> ReadYourWrites.onPrimary(widget) : widget, executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private <T> T await(String widget, CompletableFuture<T> future, long deadline, T empty, Set<String> stale) {
+        String key = TenantContext.current() + "/" + widget;
+        try {
+            T value = future.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+            if (value != null) {
+                lastGood.put(key, value);
+            } else {
+                lastGood.remove(key);
+            }
+            return value;
+        } catch (TimeoutException e) {
+            // A widget still queued then never runs; a running one ends at its query timeout
+            future.cancel(false);
+            log.warn("Dashboard widget {} did not finish within {} ms, serving its last value", widget, widgetTimeoutMillis);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RejectedExecutionException) {
+                log.warn("Dashboard widget {} was rejected by the saturated dashboard pool, serving its last value", widget);
+            } else {
+                log.warn("Dashboard widget {} failed, serving its last value", widget, e.getCause());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        stale.add(widget);
+        return (T) lastGood.getOrDefault(key, empty);
+    }
+}
@@ -0,0 +1,129 @@
+package com.personalexpensetracker.expensetracker.service;
+
+import com.personalexpensetracker.expensetracker.config.TenantContext;
+import com.personalexpensetracker.expensetracker.event.CategoryChangedEvent;
+import com.personalexpensetracker.expensetracker.event.ExpenseChangedEvent;
+import com.personalexpensetracker.expensetracker.event.ExpensesArchivedEvent;
+import com.personalexpensetracker.expensetracker.repository.DataVersionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Per-tenant version of the expense and category data, kept in the data_versions table and
+ * bumped inside every transaction that writes the tenant's data. Used for conditional GETs:
+ * an ETag built from the version stays valid until the tenant's next committed write, so a
+ * matching If-None-Match is answered with 304 after reading just the version row. Being
+ * persisted, versions survive restarts and are the same on every instance.
+ * ETags also name the tenant, so one tenant's ETag never matches another tenant's response.
+ */
+@Component
+@RequiredArgsConstructor
+public class DataVersion {
+    
+    private final DataVersionRepository dataVersionRepository;
+    
+    // The current tenant's version; tenants that never wrote are at version 0
+    public Stamp current() {
+        String tenant = TenantContext.current();
+        return dataVersionRepository.findById(tenant)
+                .map(row -> new Stamp(tenant, row.getVersion(), row.getModifiedAt()))
+                .orElse(new Stamp(tenant, 0, 0));
+    }
+    
+    // Listeners run inside the writing transaction, so the bump commits or rolls back with the write
+    @EventListener
+    public void onExpenseChanged(ExpenseChangedEvent event) {
+        bump(TenantContext.of(event.expense().getTenantId()));
+    }
+    
+    @EventListener
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        bump(TenantContext.current());
+    }
+    
+    @EventListener
+    public void onExpensesArchived(ExpensesArchivedEvent event) {
+        bump(event.tenantId());
+    }
+    
+    // Once per tenant and transaction: the row stays locked until commit, so further bumps add nothing
+    private void bump(String tenant) {
+        if (TransactionSynchronizationManager.isSynchronizationActive() && !bumpedTenants().add(tenant)) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (TenantContext.ROOT.equals(tenant)) {
+            dataVersionRepository.bumpAll(now);
+        } else {
+            dataVersionRepository.bump(tenant, now);
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private Set<String> bumpedTenants() {
+        Set<String> bumped = (Set<String>) TransactionSynchronizationManager.getResource(this);
+        if (bumped == null) {
+            bumped = new HashSet<>();
+            TransactionSynchronizationManager.bindResource(this, bumped);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(DataVersion.this);
+                }
+            });
+        }
+        return bumped;
+    }
+    
+    /**
+     * A tenant's version as read for one request; build every ETag of the response from the same stamp.
+     * lastModified is the millisecond time of the last write (0 when none); Last-Modified only has
+     * second precision, so ETags take precedence.
+     */
+    public record Stamp(String tenant, long version, long lastModified) {
+        
+        /**
+         * ETag for a collection or summary. Qualifiers are anything besides the URL that shapes
+         * the response, such as date ranges defaulted from today.
+         */
+        public String eTag(Object... qualifiers) {
+            String tag = "v" + version + "-" + tenant;
+            return "\"" + (qualifiers.length == 0 ? tag : tag + "-" + Integer.toHexString(Arrays.deepHashCode(qualifiers))) + "\"";
+        }
+        
+        // Per-entity ETag: tenant, id and updatedAt, plus the version since updatedAt only has day precision.
+        // Tenant ids cannot contain ':', so the tenant prefix is unambiguous.
+        public String entityETag(Long id, LocalDate updatedAt) {
+            return "\"" + tenant + ":" + id + "-" + updatedAt + "-v" + version + "\"";
+        }
+        
+        // The ETag in If-None-Match (a list, possibly weak) issued to this tenant for the entity at this
+        // version, as the strong tag to send back with 304, or null when none matches.
+        // The caller must still check the entity belongs to the tenant before answering 304.
+        public String matchingEntityETag(String ifNoneMatch, Long id) {
+            if (ifNoneMatch == null) {
+                return null;
+            }
+            String prefix = "\"" + tenant + ":" + id + "-";
+            String suffix = "-v" + version + "\"";
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.startsWith(prefix) && tag.endsWith(suffix)) {
+                    return tag;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.personalexpensetracker.expensetracker.service;
+
+import com.personalexpensetracker.expensetracker.config.TenantContext;
+import com.personalexpensetracker.expensetracker.model.Money;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Read-optimized store for expenses of closed years, moved out of the expenses table by
+ * {@link ExpenseArchiver}. Each tenant and year is one immutable file,
+ * {@code <dir>/<tenant>/expenses-<year>.col.gz}, rewritten as a whole when rows are added.
+ * <p>
+ * Rows are sorted by date and id and stored column by column: day deltas, ids, amounts in
+ * cents, then category and note codes into per-file dictionaries, then the audit dates as
+ * offsets from the expense date. Sorted, dictionary-encoded columns are mostly small repeated
+ * numbers, which gzip compresses far below the size of the table rows and their indexes.
+ * Disabled when {@code expensetracker.archive.dir} is empty.
+ */
+@Component
+public class ExpenseArchive {
+    
+    private static final int MAGIC = 0x45585041;
+    private static final int FORMAT_VERSION = 1;
+    private static final Pattern FILE_NAME = Pattern.compile("expenses-(\\d{4})\\.col\\.gz");
+    private static final int NO_DATE = Integer.MIN_VALUE;
+    
+    private final Path directory;
+    
+    public ExpenseArchive(@Value("${expensetracker.archive.dir:}") String directory) {
+        this.directory = directory.isBlank() ? null : Path.of(directory);
+    }
+    
+    public boolean isEnabled() {
+        return directory != null;
+    }
+    
+    // The archived years of a tenant, or of every tenant for the root tenant, oldest first
+    public List<Segment> segments(String tenant) {
+        if (directory == null || !Files.isDirectory(directory)) {
+            return List.of();
+        }
+        List<Segment> segments = new ArrayList<>();
+        try (Stream<Path> tenants = Files.list(directory)) {
+            for (Path tenantDirectory : tenants.filter(Files::isDirectory).toList()) {
+                String name = tenantDirectory.getFileName().toString();
+                if (!TenantContext.ROOT.equals(tenant) && !name.equals(tenant)) {
+                    continue;
+                }
+                try (Stream<Path> files = Files.list(tenantDirectory)) {
+                    files.forEach(file -> {
+                        Matcher matcher = FILE_NAME.matcher(file.getFileName().toString());
+                        if (matcher.matches()) {
+                            segments.add(new Segment(name, Integer.parseInt(matcher.group(1))));
+                        }
+                    });
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not list expense archive " + directory, e);
+        }
+        segments.sort(Comparator.comparing(Segment::tenant).thenComparingInt(Segment::year));
+        return segments;
+    }
+    
+    public List<ArchivedExpense> read(Segment segment) {
+        Path file = path(segment);
+        if (!Files.exists(file)) {
+            return List.of();
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(
+                Files.newInputStream(file), 1 << 16)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                throw new IllegalStateException("Not an expense archive file: " + file);
+            }
+            int rows = in.readInt();
+            int[] days = new int[rows];
+            int day = 0;
+            for (int row = 0; row < rows; row++) {
+                day += in.readInt();
+                days[row] = day;
+            }
+            long[] ids = new long[rows];
+            for (int row = 0; row < rows; row++) {
+                ids[row] = in.readLong();
+            }
+            long[] cents = new long[rows];
+            for (int row = 0; row < rows; row++) {
+                cents[row] = in.readLong();
+            }
+            long[] categoryDictionary = new long[in.readInt()];
+            for (int code = 0; code < categoryDictionary.length; code++) {
+                categoryDictionary[code] = in.readLong();
+            }
+            int[] categoryCodes = readInts(in, rows);
+            String[] noteDictionary = new String[in.readInt()];
+            for (int code = 0; code < noteDictionary.length; code++) {
+                noteDictionary[code] = in.readUTF();
+            }
+            int[] noteCodes = readInts(in, rows);
+            int[] createdOffsets = readInts(in, rows);
+            int[] updatedOffsets = readInts(in, rows);
+            
+            List<ArchivedExpense> expenses = new ArrayList<>(rows);
+            for (int row = 0; row < rows; row++) {
+                expenses.add(new ArchivedExpense(ids[row], LocalDate.ofEpochDay(days[row]), Money.toBigDecimal(cents[row]),
+                        categoryDictionary[categoryCodes[row]], noteCodes[row] < 0 ? null : noteDictionary[noteCodes[row]],
+                        offsetDate(days[row], createdOffsets[row]), offsetDate(days[row], updatedOffsets[row])));
+            }
+            return expenses;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read expense archive " + file, e);
+        }
+    }
+    
+    // Replaces the segment atomically; readers see either the old or the new file
+    public void write(Segment segment, List<ArchivedExpense> expenses) {
+        Path file = path(segment);
+        List<ArchivedExpense> sorted = new ArrayList<>(expenses);
+        sorted.sort(Comparator.comparing(ArchivedExpense::date).thenComparingLong(ArchivedExpense::id));
+        try {
+            if (sorted.isEmpty()) {
+                Files.deleteIfExists(file);
+                return;
+            }
+            Files.createDirectories(file.getParent());
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temp)), 1 << 16))) {
+                writeColumns(out, sorted);
+            }
+            // Durable before it replaces the old file, since the table rows are deleted next
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write expense archive " + file, e);
+        }
+    }
+    
+    public long sizeOnDisk(Segment segment) {
+        try {
+            return Files.exists(path(segment)) ? Files.size(path(segment)) : 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private void writeColumns(DataOutputStream out, List<ArchivedExpense> rows) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(rows.size());
+        int previousDay = 0;
+        for (ArchivedExpense row : rows) {
+            int day = (int) row.date().toEpochDay();
+            out.writeInt(day - previousDay);
+            previousDay = day;
+        }
+        for (ArchivedExpense row : rows) {
+            out.writeLong(row.id());
+        }
+        for (ArchivedExpense row : rows) {
+            out.writeLong(Money.toCents(row.amount()));
+        }
+        
+        Map<Long, Integer> categoryCodes = new HashMap<>();
+        List<Long> categoryDictionary = new ArrayList<>();
+        Map<String, Integer> noteCodes = new HashMap<>();
+        List<String> noteDictionary = new ArrayList<>();
+        for (ArchivedExpense row : rows) {
+            categoryCodes.computeIfAbsent(row.categoryId(), id -> {
+                categoryDictionary.add(id);
+                return categoryDictionary.size() - 1;
+            });
+            if (row.note() != null) {
+                noteCodes.computeIfAbsent(row.note(), note -> {
+                    noteDictionary.add(note);
+                    return noteDictionary.size() - 1;
+                });
+            }
+        }
+        out.writeInt(categoryDictionary.size());
+        for (long categoryId : categoryDictionary) {
+            out.writeLong(categoryId);
+        }
+        for (ArchivedExpense row : rows) {
+            out.writeInt(categoryCodes.get(row.categoryId()));
+        }
+        out.writeInt(noteDictionary.size());
+        for (String note : noteDictionary) {
+            out.writeUTF(note);
+        }
+        for (ArchivedExpense row : rows) {
+            out.writeInt(row.note() == null ? -1 : noteCodes.get(row.note()));
+        }
+        for (ArchivedExpense row : rows) {
+            out.writeInt(offset(row.date(), row.createdAt()));
+        }
+        for (ArchivedExpense row : rows) {
+            out.writeInt(offset(row.date(), row.updatedAt()));
+        }
+    }
+    
+    private static int[] readInts(DataInputStream in, int count) throws IOException {
+        int[] values = new int[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = in.readInt();
+        }
+        return values;
+    }
+    
+    private static int offset(LocalDate date, LocalDate other) {
+        return other == null ? NO_DATE : (int) (other.toEpochDay() - date.toEpochDay());
+    }
+    
+    private static LocalDate offsetDate(int day, int offset) {
+        return offset == NO_DATE ? null : LocalDate.ofEpochDay((long) day + offset);
+    }
+    
+    private Path path(Segment segment) {
+        if (directory == null) {
+            throw new IllegalStateException("The expense archive is disabled");
+        }
+        return directory.resolve(segment.tenant()).resolve("expenses-" + segment.year() + ".col.gz");
+    }
+    
+    public record Segment(String tenant, int year) {
+    }
+    
+    public record ArchivedExpense(long id, LocalDate date, BigDecimal amount, long categoryId, String note,
+                                  LocalDate createdAt, LocalDate updatedAt) {
+    }
+}
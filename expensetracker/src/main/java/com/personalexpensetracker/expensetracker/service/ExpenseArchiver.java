@@ -0,0 +1,173 @@
+package com.personalexpensetracker.expensetracker.service;
+
+import com.personalexpensetracker.expensetracker.config.ReadYourWrites;
+import com.personalexpensetracker.expensetracker.config.TenantContext;
+import com.personalexpensetracker.expensetracker.event.CategoryChangedEvent;
+import com.personalexpensetracker.expensetracker.event.ChangeType;
+import com.personalexpensetracker.expensetracker.event.ExpensesArchivedEvent;
+import com.personalexpensetracker.expensetracker.repository.ExpenseRepository;
+import com.personalexpensetracker.expensetracker.service.ExpenseArchive.ArchivedExpense;
+import com.personalexpensetracker.expensetracker.service.ExpenseArchive.Segment;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves the expenses of closed years from the expenses table into the {@link ExpenseArchive},
+ * so the table and its indexes only ever hold the hot years ({@code expensetracker.archive.hot-years},
+ * the current year included). Runs every {@code interval-hours} once the archive is enabled.
+ * <p>
+ * Rollup cells of archived years stay in place, so the summary APIs keep answering for them,
+ * and rollup rebuilds, checks and min/max refreshes read the archive as well. Archived expenses are read-only:
+ * they leave lists, search and single-expense lookups but still count in the analytics column
+ * store. Each tenant and year is archived on its own. The file is written and synced first,
+ * then exactly the archived ids are deleted, so a crash in between only leaves rows that the
+ * next run merges into the file again.
+ */
+@Slf4j
+@Component
+public class ExpenseArchiver {
+    
+    private static final int DELETE_BATCH_SIZE = 1000;
+    
+    private final ExpenseArchive archive;
+    private final ExpenseRepository expenseRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int hotYears;
+    private final long intervalHours;
+    
+    // Serializes rewrites of archive files between the job and category deletes
+    private final Object lock = new Object();
+    private ScheduledExecutorService scheduler;
+    
+    public ExpenseArchiver(ExpenseArchive archive,
+                           ExpenseRepository expenseRepository,
+                           ApplicationEventPublisher eventPublisher,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${expensetracker.archive.hot-years:2}") int hotYears,
+                           @Value("${expensetracker.archive.interval-hours:24}") long intervalHours) {
+        this.archive = archive;
+        this.expenseRepository = expenseRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.hotYears = Math.max(hotYears, 1);
+        this.intervalHours = intervalHours;
+    }
+    
+    // The first run is one interval after startup, away from the startup rebuilds
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!archive.isEnabled() || intervalHours <= 0) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "expense-archiver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                archiveClosedYears();
+            } catch (RuntimeException e) {
+                log.error("Expense archival failed", e);
+            }
+        }, intervalHours, intervalHours, TimeUnit.HOURS);
+    }
+    
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+    
+    // Archives every tenant's years before the hot ones; returns the number of expenses moved
+    public int archiveClosedYears() {
+        if (!archive.isEnabled()) {
+            return 0;
+        }
+        int firstHotYear = LocalDate.now().getYear() - hotYears + 1;
+        List<Object[]> oldest = TenantContext.asRoot(() -> ReadYourWrites.onPrimary(
+                () -> expenseRepository.findOldestDateByTenantBefore(LocalDate.of(firstHotYear, 1, 1))));
+        int archived = 0;
+        for (Object[] row : oldest) {
+            for (int year = ((LocalDate) row[1]).getYear(); year < firstHotYear; year++) {
+                archived += archiveYear((String) row[0], year);
+            }
+        }
+        return archived;
+    }
+    
+    // One tenant's year fits in memory: it is read, merged with the existing file and rewritten
+    public int archiveYear(String tenant, int year) {
+        return TenantContext.as(tenant, () -> {
+            synchronized (lock) {
+                long started = System.nanoTime();
+                // From the primary: rows missing from a lagging replica would be deleted unarchived
+                List<Object[]> rows = ReadYourWrites.onPrimary(() -> expenseRepository.findArchiveRows(
+                        LocalDate.of(year, 1, 1), LocalDate.of(year + 1, 1, 1)));
+                if (rows.isEmpty()) {
+                    return 0;
+                }
+                Segment segment = new Segment(tenant, year);
+                Map<Long, ArchivedExpense> merged = new LinkedHashMap<>();
+                archive.read(segment).forEach(expense -> merged.put(expense.id(), expense));
+                List<Long> ids = new ArrayList<>(rows.size());
+                for (Object[] row : rows) {
+                    ArchivedExpense expense = new ArchivedExpense((Long) row[0], (LocalDate) row[1], (BigDecimal) row[2],
+                            (Long) row[3], (String) row[4], (LocalDate) row[5], (LocalDate) row[6]);
+                    merged.put(expense.id(), expense);
+                    ids.add(expense.id());
+                }
+                archive.write(segment, new ArrayList<>(merged.values()));
+                
+                transactionTemplate.executeWithoutResult(status -> {
+                    for (int from = 0; from < ids.size(); from += DELETE_BATCH_SIZE) {
+                        expenseRepository.deleteArchived(ids.subList(from, Math.min(from + DELETE_BATCH_SIZE, ids.size())));
+                    }
+                    eventPublisher.publishEvent(new ExpensesArchivedEvent(tenant, year, ids));
+                });
+                log.info("Archived {} expenses of tenant {} for {} ({} in the archive, {} KB) in {} ms", ids.size(), tenant,
+                        year, merged.size(), archive.sizeOnDisk(segment) / 1024, (System.nanoTime() - started) / 1_000_000);
+                return ids.size();
+            }
+        });
+    }
+    
+    // Table rows of a deleted category are removed by cascade; its archived rows are dropped here
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        if (event.type() != ChangeType.DELETED || !archive.isEnabled()) {
+            return;
+        }
+        synchronized (lock) {
+            for (Segment segment : archive.segments(TenantContext.current())) {
+                List<ArchivedExpense> expenses = archive.read(segment);
+                List<ArchivedExpense> kept = expenses.stream()
+                        .filter(expense -> expense.categoryId() != event.categoryId())
+                        .toList();
+                if (kept.size() != expenses.size()) {
+                    archive.write(segment, kept);
+                }
+            }
+        }
+    }
+}
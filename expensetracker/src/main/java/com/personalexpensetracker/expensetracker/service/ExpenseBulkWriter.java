@@ -0,0 +1,95 @@
+package com.personalexpensetracker.expensetracker.service;
+
+import com.personalexpensetracker.expensetracker.config.TenantContext;
+import com.personalexpensetracker.expensetracker.event.ChangeType;
+import com.personalexpensetracker.expensetracker.event.ExpenseChangedEvent;
+import com.personalexpensetracker.expensetracker.model.Expense;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inserts many expenses with one JDBC batch, bypassing per-entity persist.
+ * With rewriteBatchedStatements=true the MySQL driver sends the batch as multi-row INSERTs.
+ * Rollups are updated per touched cell and the usual change events are published,
+ * so the in-memory views stay in sync with single-row writes.
+ */
+@Component
+@RequiredArgsConstructor
+public class ExpenseBulkWriter {
+    
+    private static final String INSERT_SQL =
+            "INSERT INTO expenses (amount, date, note, category_id, created_at, updated_at, tenant_id) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final ExpenseRollupService rollupService;
+    private final ApplicationEventPublisher eventPublisher;
+    
+    // Expenses must carry a category with its id; generated ids are set on the given objects.
+    // Plain JDBC bypasses the tenant discriminator, so each row gets its tenant here.
+    @Transactional
+    public void insert(List<Expense> expenses) {
+        if (expenses.isEmpty()) {
+            return;
+        }
+        for (Expense expense : expenses) {
+            String tenant = TenantContext.of(expense.getTenantId());
+            if (TenantContext.ROOT.equals(tenant)) {
+                throw new IllegalStateException("Expenses must be inserted for a concrete tenant");
+            }
+            expense.setTenantId(tenant);
+        }
+        LocalDate today = LocalDate.now();
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Expense expense = expenses.get(i);
+                        ps.setBigDecimal(1, expense.getAmount());
+                        ps.setDate(2, Date.valueOf(expense.getDate()));
+                        if (expense.getNote() != null) {
+                            ps.setString(3, expense.getNote());
+                        } else {
+                            ps.setNull(3, Types.VARCHAR);
+                        }
+                        ps.setLong(4, expense.getCategory().getId());
+                        ps.setDate(5, Date.valueOf(today));
+                        ps.setDate(6, Date.valueOf(today));
+                        ps.setString(7, expense.getTenantId());
+                    }
+                    
+                    @Override
+                    public int getBatchSize() {
+                        return expenses.size();
+                    }
+                },
+                keyHolder);
+        
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < expenses.size(); i++) {
+            Expense expense = expenses.get(i);
+            expense.setId(((Number) keys.get(i).values().iterator().next()).longValue());
+            expense.setCreatedAt(today);
+            expense.setUpdatedAt(today);
+        }
+        
+        rollupService.addAll(expenses);
+        expenses.forEach(expense -> eventPublisher.publishEvent(new ExpenseChangedEvent(ChangeType.CREATED, expense)));
+    }
+}
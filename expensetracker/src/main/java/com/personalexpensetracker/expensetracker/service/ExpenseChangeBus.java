@@ -0,0 +1,436 @@
+package com.personalexpensetracker.expensetracker.service;
+
+import com.personalexpensetracker.expensetracker.config.ReadYourWrites;
+import com.personalexpensetracker.expensetracker.config.TenantContext;
+import com.personalexpensetracker.expensetracker.dto.ChangeBatch;
+import com.personalexpensetracker.expensetracker.dto.ExpenseChange;
+import com.personalexpensetracker.expensetracker.dto.ExpenseView;
+import com.personalexpensetracker.expensetracker.dto.LiveTotals;
+import com.personalexpensetracker.expensetracker.event.CategoryChangedEvent;
+import com.personalexpensetracker.expensetracker.event.ChangeType;
+import com.personalexpensetracker.expensetracker.event.ExpenseChangedEvent;
+import com.personalexpensetracker.expensetracker.event.ExpensesArchivedEvent;
+import com.personalexpensetracker.expensetracker.model.Category;
+import com.personalexpensetracker.expensetracker.model.Expense;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Pushes committed expense and category writes to live pages and API clients over Server-Sent Events.
+ * <p>
+ * Writes are collected per tenant after commit and flushed every {@code coalesce-ms} as one numbered
+ * {@link ChangeBatch}; repeated writes to an expense within an interval collapse into one change.
+ * Each flush with subscribers also pushes {@link LiveTotals}, computed once per tenant from the rollups
+ * and shared by all of its subscribers, so database load follows the write rate, not the number of
+ * open pages.
+ * <p>
+ * The last {@code replay-size} batches are kept: a client resuming from an offset (the event id,
+ * which browsers resend as Last-Event-ID) gets the batches it missed. Every subscriber has a bounded
+ * queue drained by a shared sender pool. A newer totals event replaces a queued one, and a subscriber
+ * that falls {@code queue-size} events behind gets one reset event instead of its backlog, telling it
+ * to reload. Offsets are seeded from the clock, so an offset from before a restart ends in a reset too.
+ */
+@Slf4j
+@Component
+public class ExpenseChangeBus {
+    
+    static final String CHANGES = "changes";
+    static final String TOTALS = "totals";
+    static final String RESET = "reset";
+    
+    private final ExpenseService expenseService;
+    private final CategoryCache categoryCache;
+    private final TransactionTemplate readOnly;
+    private final long coalesceMillis;
+    private final int replaySize;
+    private final int queueSize;
+    private final int maxBatchSize;
+    private final long heartbeatSeconds;
+    private final long timeoutMillis;
+    private final ExecutorService senders;
+    
+    private final AtomicLong offset = new AtomicLong(System.currentTimeMillis());
+    // Unflushed writes per tenant; only changed inside compute, so the flush's remove takes them whole
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+    // Flushed batches, oldest first; also guards subscription, so a replay and live batches never overlap
+    private final Deque<Logged> history = new ArrayDeque<>();
+    private long trimmedThrough = offset.get();
+    private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final Map<String, CachedTotals> totals = new ConcurrentHashMap<>();
+    private volatile ScheduledExecutorService scheduler;
+    
+    public ExpenseChangeBus(ExpenseService expenseService,
+                            CategoryCache categoryCache,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${expensetracker.stream.coalesce-ms:250}") long coalesceMillis,
+                            @Value("${expensetracker.stream.replay-size:1000}") int replaySize,
+                            @Value("${expensetracker.stream.queue-size:32}") int queueSize,
+                            @Value("${expensetracker.stream.max-batch-size:200}") int maxBatchSize,
+                            @Value("${expensetracker.stream.heartbeat-seconds:25}") long heartbeatSeconds,
+                            @Value("${expensetracker.stream.timeout-ms:1800000}") long timeoutMillis,
+                            @Value("${expensetracker.stream.sender-threads:4}") int senderThreads) {
+        this.expenseService = expenseService;
+        this.categoryCache = categoryCache;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.coalesceMillis = coalesceMillis;
+        this.replaySize = replaySize;
+        this.queueSize = Math.max(queueSize, 2);
+        this.maxBatchSize = maxBatchSize;
+        this.heartbeatSeconds = heartbeatSeconds;
+        this.timeoutMillis = timeoutMillis;
+        this.senders = Executors.newFixedThreadPool(senderThreads, daemon("expense-change-sender"));
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(daemon("expense-change-bus"));
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                log.error("Flushing expense changes failed", e);
+            }
+        }, coalesceMillis, coalesceMillis, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::heartbeat, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+    }
+    
+    // Before the lifecycle beans stop: an open stream would otherwise hold the web server's graceful
+    // shutdown until its phase timeout
+    @EventListener(ContextClosedEvent.class)
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        senders.shutdownNow();
+        subscribers.values().forEach(tenantSubscribers -> List.copyOf(tenantSubscribers).forEach(subscriber -> subscriber.close(true)));
+    }
+    
+    /**
+     * Subscribes the current tenant. Without an offset the stream starts with the current totals;
+     * with one it first replays the later batches, or sends a reset when they are no longer kept.
+     */
+    public SseEmitter subscribe(Long fromOffset) {
+        String tenant = TenantContext.current();
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(tenant, emitter);
+        emitter.onCompletion(() -> subscriber.close(false));
+        emitter.onTimeout(() -> subscriber.close(true));
+        emitter.onError(error -> subscriber.close(false));
+        
+        long seen = offset.get();
+        LiveTotals current = totals(tenant);
+        boolean stale;
+        synchronized (history) {
+            subscribers.computeIfAbsent(tenant, key -> ConcurrentHashMap.newKeySet()).add(subscriber);
+            if (fromOffset != null && (fromOffset < trimmedThrough || fromOffset > offset.get())) {
+                subscriber.offer(reset());
+            } else if (fromOffset != null) {
+                for (Logged logged : history) {
+                    if (logged.batch().offset() > fromOffset && logged.tenant().equals(tenant)) {
+                        subscriber.offer(changes(logged.batch()));
+                    }
+                }
+            }
+            subscriber.offer(new Message(TOTALS, null, current));
+            stale = offset.get() != seen;
+        }
+        // A batch was flushed while the totals loaded; the fresh ones replace them if still queued
+        if (stale) {
+            subscriber.offer(new Message(TOTALS, null, totals(tenant)));
+        }
+        return emitter;
+    }
+    
+    public int subscriberCount() {
+        return subscribers.values().stream().mapToInt(Set::size).sum();
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onExpenseChanged(ExpenseChangedEvent event) {
+        Expense expense = event.expense();
+        ExpenseView view = event.type() == ChangeType.DELETED ? null : new ExpenseView(expense.getId(), expense.getAmount(),
+                expense.getDate(), expense.getNote(), expense.getCategory().getId(),
+                Hibernate.isInitialized(expense.getCategory()) ? expense.getCategory().getName() : null);
+        collect(TenantContext.of(expense.getTenantId()),
+                writes -> writes.add(new ExpenseChange(event.type(), expense.getId(), view)));
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        collect(TenantContext.current(), writes -> writes.categoriesChanged = true);
+    }
+    
+    // Archived expenses leave every list, so clients see them as deleted; the totals keep them
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onExpensesArchived(ExpensesArchivedEvent event) {
+        collect(event.tenantId(), writes -> event.expenseIds()
+                .forEach(id -> writes.add(new ExpenseChange(ChangeType.DELETED, id, null))));
+    }
+    
+    void flush() {
+        for (String tenant : List.copyOf(pending.keySet())) {
+            Pending writes = pending.remove(tenant);
+            if (writes == null) {
+                continue;
+            }
+            List<ExpenseChange> changes = writes.truncated ? List.of()
+                    : TenantContext.as(tenant, () -> withCategoryNames(writes.changes.values()));
+            ChangeBatch batch;
+            List<Subscriber> targets;
+            synchronized (history) {
+                batch = new ChangeBatch(offset.incrementAndGet(), changes, writes.categoriesChanged, writes.truncated);
+                history.addLast(new Logged(tenant, batch));
+                while (history.size() > replaySize) {
+                    trimmedThrough = history.removeFirst().batch().offset();
+                }
+                targets = List.copyOf(subscribers.getOrDefault(tenant, Set.of()));
+            }
+            if (targets.isEmpty()) {
+                continue;
+            }
+            
+            Message changesMessage = changes(batch);
+            Message totalsMessage = null;
+            try {
+                totalsMessage = new Message(TOTALS, null, totals(tenant));
+            } catch (RuntimeException e) {
+                log.warn("Could not load live totals for tenant {}, sending changes only", tenant, e);
+            }
+            for (Subscriber subscriber : targets) {
+                subscriber.offer(changesMessage);
+                if (totalsMessage != null) {
+                    subscriber.offer(totalsMessage);
+                }
+            }
+        }
+    }
+    
+    private void heartbeat() {
+        Message comment = new Message(null, null, null);
+        subscribers.values().forEach(tenantSubscribers -> tenantSubscribers.forEach(subscriber -> subscriber.offer(comment)));
+    }
+    
+    private void collect(String tenant, Consumer<Pending> change) {
+        pending.compute(tenant, (key, writes) -> {
+            Pending updated = writes != null ? writes : new Pending(maxBatchSize);
+            change.accept(updated);
+            return updated;
+        });
+    }
+    
+    // Expenses saved with a category reference carry no name; it comes from the category cache
+    private List<ExpenseChange> withCategoryNames(Collection<ExpenseChange> changes) {
+        List<ExpenseChange> named = new ArrayList<>(changes.size());
+        for (ExpenseChange change : changes) {
+            ExpenseView view = change.expense();
+            if (view != null && view.categoryName() == null) {
+                String name = categoryCache.findById(view.categoryId()).map(Category::getName).orElse(null);
+                change = new ExpenseChange(change.type(), change.id(), new ExpenseView(view.id(), view.amount(),
+                        view.date(), view.note(), view.categoryId(), name));
+            }
+            named.add(change);
+        }
+        return named;
+    }
+    
+    // Cached until the next flush of any tenant; not cached when a flush raced with the load
+    private LiveTotals totals(String tenant) {
+        long current = offset.get();
+        CachedTotals cached = totals.get(tenant);
+        if (cached != null && cached.offset() == current) {
+            return cached.totals();
+        }
+        // From the primary: the rollup rows of the batch just flushed must be visible
+        LiveTotals loaded = TenantContext.as(tenant, () -> ReadYourWrites.onPrimary(() -> readOnly.execute(status -> {
+            LocalDate today = LocalDate.now();
+            LocalDate startOfMonth = today.withDayOfMonth(1);
+            return new LiveTotals(today,
+                    expenseService.getTotalExpenses(),
+                    expenseService.getTotalAmountByDateRange(startOfMonth, today),
+                    expenseService.getCategorySummaryByDateRange(startOfMonth, today),
+                    expenseService.getMonthlySummary(today.getYear()));
+        })));
+        if (offset.get() == current) {
+            totals.put(tenant, new CachedTotals(current, loaded));
+        }
+        return loaded;
+    }
+    
+    private Message changes(ChangeBatch batch) {
+        return new Message(CHANGES, batch.offset(), batch);
+    }
+    
+    private Message reset() {
+        long current = offset.get();
+        return new Message(RESET, current, Map.of("offset", current));
+    }
+    
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+    
+    private static final class Pending {
+        private final int limit;
+        private final Map<Long, ExpenseChange> changes = new LinkedHashMap<>();
+        private boolean categoriesChanged;
+        // Too many changes to list (bulk writes); they are no longer tracked one by one
+        private boolean truncated;
+        
+        private Pending(int limit) {
+            this.limit = limit;
+        }
+        
+        private void add(ExpenseChange change) {
+            if (truncated) {
+                return;
+            }
+            ExpenseChange previous = changes.remove(change.id());
+            if (previous != null && previous.type() == ChangeType.CREATED) {
+                // Created and deleted within one interval: clients never saw it
+                if (change.type() == ChangeType.DELETED) {
+                    return;
+                }
+                change = new ExpenseChange(ChangeType.CREATED, change.id(), change.expense());
+            }
+            changes.put(change.id(), change);
+            if (changes.size() > limit) {
+                changes.clear();
+                truncated = true;
+            }
+        }
+    }
+    
+    private final class Subscriber {
+        private final String tenant;
+        private final SseEmitter emitter;
+        private final Deque<Message> queue = new ArrayDeque<>();
+        private boolean draining;
+        private boolean closed;
+        
+        private Subscriber(String tenant, SseEmitter emitter) {
+            this.tenant = tenant;
+            this.emitter = emitter;
+        }
+        
+        private void offer(Message message) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                if (TOTALS.equals(message.name())) {
+                    queue.removeIf(queued -> TOTALS.equals(queued.name()));
+                }
+                if (queue.size() >= queueSize) {
+                    // Too far behind: the backlog is replaced by one reset and the client reloads
+                    log.debug("Live subscriber of tenant {} fell {} events behind, sending a reset", tenant, queue.size());
+                    queue.clear();
+                    queue.add(reset());
+                }
+                queue.add(message);
+                if (draining) {
+                    return;
+                }
+                draining = true;
+            }
+            try {
+                senders.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                close(true);
+            }
+        }
+        
+        // Runs on one sender thread at a time, so events go out in queue order
+        private void drain() {
+            while (true) {
+                Message message;
+                synchronized (this) {
+                    message = queue.poll();
+                    if (message == null) {
+                        draining = false;
+                        return;
+                    }
+                }
+                try {
+                    emitter.send(message.event());
+                } catch (IOException | IllegalStateException e) {
+                    // The client went away; the container completes the request itself
+                    close(false);
+                    return;
+                }
+            }
+        }
+        
+        private void close(boolean complete) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                queue.clear();
+            }
+            Set<Subscriber> tenantSubscribers = subscribers.get(tenant);
+            if (tenantSubscribers != null) {
+                tenantSubscribers.remove(this);
+            }
+            if (complete) {
+                emitter.complete();
+            }
+        }
+    }
+    
+    // A named event with an id and JSON data, or a keep-alive comment when name is null
+    private record Message(String name, Long id, Object data) {
+        private SseEventBuilder event() {
+            if (name == null) {
+                return SseEmitter.event().comment("keep-alive");
+            }
+            SseEventBuilder event = SseEmitter.event().name(name);
+            if (id != null) {
+                event.id(Long.toString(id));
+            }
+            return event.data(data, MediaType.APPLICATION_JSON);
+        }
+    }
+    
+    private record Logged(String tenant, ChangeBatch batch) {
+    }
+    
+    private record CachedTotals(long offset, LiveTotals totals) {
+    }
+}
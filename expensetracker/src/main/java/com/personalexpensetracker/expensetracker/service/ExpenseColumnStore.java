@@ -0,0 +1,550 @@
+package com.personalexpensetracker.expensetracker.service;
+
+import com.personalexpensetracker.expensetracker.config.ReadYourWrites;
+import com.personalexpensetracker.expensetracker.config.TenantContext;
+import com.personalexpensetracker.expensetracker.dto.AnalyticsResult;
+import com.personalexpensetracker.expensetracker.dto.AnalyticsResult.Group;
+import com.personalexpensetracker.expensetracker.event.CategoryChangedEvent;
+import com.personalexpensetracker.expensetracker.event.ChangeType;
+import com.personalexpensetracker.expensetracker.event.ExpenseChangedEvent;
+import com.personalexpensetracker.expensetracker.model.Category;
+import com.personalexpensetracker.expensetracker.model.Expense;
+import com.personalexpensetracker.expensetracker.model.Money;
+import com.personalexpensetracker.expensetracker.repository.ExpenseRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.IsoFields;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory columnar copy of the expenses table for ad-hoc aggregations.
+ * <p>
+ * Each expense is a row across primitive columns: amount in cents, epoch day, a dense
+ * category code and a dictionary-encoded (lowercased) note. Queries filter by category,
+ * date range and note substring and group by category, day, ISO week, month or year.
+ * Filters are turned into lookup tables up front (category and note masks, a day-to-bucket
+ * map), so the scan itself is a branch-light loop over the arrays; large stores are split
+ * across the common fork-join pool. Updates tombstone the old row and append a new one;
+ * the columns are compacted once half the rows are tombstones. Each tenant has its own
+ * columns, so queries scan only the current tenant's rows. Archived years are loaded from the
+ * {@link ExpenseArchive} and kept when the archiver removes them from the table.
+ */
+@Slf4j
+@Component
+public class ExpenseColumnStore {
+    
+    private static final int REBUILD_BATCH_SIZE = 10_000;
+    private static final int COMPACTION_MIN_DELETED = 1024;
+    
+    private final ExpenseRepository expenseRepository;
+    private final CategoryCache categoryCache;
+    private final ExpenseArchive archive;
+    private final int parallelThreshold;
+    
+    // One partition per tenant, each with its own lock and columns, so a heavy tenant's rows
+    // are never scanned for another tenant's queries
+    private final Map<String, Partition> partitions = new ConcurrentHashMap<>();
+    
+    // Ids deleted while the startup load is running, so the load does not resurrect them
+    private volatile Set<Long> deletedDuringRebuild = ConcurrentHashMap.newKeySet();
+    private volatile boolean ready;
+    
+    public ExpenseColumnStore(ExpenseRepository expenseRepository,
+                              CategoryCache categoryCache,
+                              ExpenseArchive archive,
+                              @Value("${expensetracker.analytics.parallel-threshold:100000}") int parallelThreshold) {
+        this.expenseRepository = expenseRepository;
+        this.categoryCache = categoryCache;
+        this.archive = archive;
+        this.parallelThreshold = parallelThreshold;
+    }
+    
+    public enum GroupBy {
+        NONE, CATEGORY, DAY, WEEK, MONTH, YEAR
+    }
+    
+    public boolean isReady() {
+        return ready;
+    }
+    
+    // Live rows across all tenants
+    public int size() {
+        return partitions.values().stream().mapToInt(Partition::size).sum();
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long started = System.nanoTime();
+        long afterId = 0;
+        int loaded = 0;
+        List<Object[]> batch;
+        do {
+            long after = afterId;
+            // From the primary and as the root tenant, like the note index rebuild
+            batch = TenantContext.asRoot(() -> ReadYourWrites.onPrimary(
+                    () -> expenseRepository.findColumnStoreBatch(after, PageRequest.of(0, REBUILD_BATCH_SIZE))));
+            for (Object[] row : batch) {
+                Long id = (Long) row[0];
+                if (partition((String) row[5]).addIfAbsent(id, (BigDecimal) row[1], (LocalDate) row[2], (Long) row[3],
+                        (String) row[4], deletedDuringRebuild)) {
+                    loaded++;
+                }
+                afterId = id;
+            }
+        } while (batch.size() == REBUILD_BATCH_SIZE);
+        
+        // Archived years stay in the analytics even though they left the table
+        for (ExpenseArchive.Segment segment : archive.segments(TenantContext.ROOT)) {
+            Partition partition = partition(segment.tenant());
+            for (ExpenseArchive.ArchivedExpense expense : archive.read(segment)) {
+                if (partition.addIfAbsent(expense.id(), expense.amount(), expense.date(), expense.categoryId(),
+                        expense.note(), deletedDuringRebuild)) {
+                    loaded++;
+                }
+            }
+        }
+        
+        // Under every partition lock, so no concurrent delete is recorded in the discarded set
+        List<Partition> locked = new ArrayList<>(partitions.values());
+        locked.forEach(partition -> partition.lock.writeLock().lock());
+        try {
+            deletedDuringRebuild = null;
+            ready = true;
+        } finally {
+            locked.forEach(partition -> partition.lock.writeLock().unlock());
+        }
+        log.info("Expense column store loaded: {} rows across {} tenants in {} ms",
+                loaded, partitions.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onExpenseChanged(ExpenseChangedEvent event) {
+        Expense expense = event.expense();
+        Partition partition = partition(TenantContext.of(expense.getTenantId()));
+        partition.lock.writeLock().lock();
+        try {
+            partition.removeRow(expense.getId());
+            if (event.type() == ChangeType.DELETED) {
+                Set<Long> deletedIds = deletedDuringRebuild;
+                if (deletedIds != null) {
+                    deletedIds.add(expense.getId());
+                }
+            } else {
+                partition.addRow(expense.getId(), expense.getAmount(), expense.getDate(), expense.getCategory().getId(),
+                        expense.getNote());
+            }
+            partition.compactIfSparse();
+        } finally {
+            partition.lock.writeLock().unlock();
+        }
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        if (event.type() != ChangeType.DELETED) {
+            return;
+        }
+        // Expenses of a deleted category are removed by cascade without their own events
+        for (Partition partition : partitions.values()) {
+            partition.removeCategory(event.categoryId(), deletedDuringRebuild);
+        }
+    }
+    
+    /**
+     * Count, total, min and max per group over the current tenant's expenses matching every
+     * given filter. Null or empty filters are ignored; the note filter is a case-insensitive
+     * substring match. Time groups are in date order, category groups by descending total.
+     */
+    public AnalyticsResult aggregate(GroupBy groupBy, Collection<Long> categoryIds, LocalDate startDate, LocalDate endDate,
+                                     String noteContains) {
+        long started = System.nanoTime();
+        Partition partition = partitions.get(TenantContext.current());
+        AnalyticsResult totals = partition != null
+                ? partition.aggregate(groupBy, categoryIds, startDate, endDate, noteContains, parallelThreshold)
+                : new AnalyticsResult(groupBy.name(), List.of(), 0, 0, 0);
+        
+        List<Group> groups = totals.groups();
+        if (groupBy == GroupBy.CATEGORY) {
+            groups = groups.stream()
+                    .map(group -> new Group(categoryCache.findById(Long.valueOf(group.key())).map(Category::getName).orElse(group.key()),
+                            group.count(), group.total(), group.min(), group.max()))
+                    .sorted(Comparator.comparing(Group::total).reversed())
+                    .toList();
+        }
+        return new AnalyticsResult(groupBy.name(), groups, totals.matchedRows(), totals.scannedRows(),
+                (System.nanoTime() - started) / 1_000);
+    }
+    
+    private Partition partition(String tenant) {
+        return partitions.computeIfAbsent(tenant, key -> new Partition());
+    }
+    
+    // The columns of one tenant; all fields are guarded by the partition's lock
+    private static final class Partition {
+        
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final Map<Long, Integer> rowsById = new HashMap<>();
+        private BitSet deleted = new BitSet();
+        private long[] ids = new long[1024];
+        private long[] cents = new long[1024];
+        private int[] epochDays = new int[1024];
+        private int[] categoryCodes = new int[1024];
+        private int[] noteCodes = new int[1024];
+        private int rowCount;
+        private int deletedCount;
+        private int minDay = Integer.MAX_VALUE;
+        private int maxDay = Integer.MIN_VALUE;
+        
+        private final Map<Long, Integer> categoryCodesById = new HashMap<>();
+        private long[] categoryIdsByCode = new long[64];
+        private int categoryCount;
+        
+        private final Map<String, Integer> noteCodesByText = new HashMap<>();
+        private final List<String> noteDictionary = new ArrayList<>();
+        
+        private int size() {
+            lock.readLock().lock();
+            try {
+                return rowCount - deletedCount;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+        
+        // Rebuild path: skips rows already loaded by an event or deleted meanwhile
+        private boolean addIfAbsent(Long id, BigDecimal amount, LocalDate date, Long categoryId, String note,
+                                    Set<Long> deletedIds) {
+            lock.writeLock().lock();
+            try {
+                if (rowsById.containsKey(id) || deletedIds.contains(id)) {
+                    return false;
+                }
+                addRow(id, amount, date, categoryId, note);
+                return true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        
+        private void removeCategory(long categoryId, Set<Long> deletedIds) {
+            lock.writeLock().lock();
+            try {
+                Integer code = categoryCodesById.get(categoryId);
+                if (code == null) {
+                    return;
+                }
+                for (int row = deleted.nextClearBit(0); row < rowCount; row = deleted.nextClearBit(row + 1)) {
+                    if (categoryCodes[row] == code) {
+                        if (deletedIds != null) {
+                            deletedIds.add(ids[row]);
+                        }
+                        removeRow(ids[row]);
+                    }
+                }
+                compactIfSparse();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        
+        // Category groups are keyed by category id; the caller resolves names and times the query
+        private AnalyticsResult aggregate(GroupBy groupBy, Collection<Long> categoryIds, LocalDate startDate, LocalDate endDate,
+                                          String noteContains, int parallelThreshold) {
+            List<Group> groups = new ArrayList<>();
+            long matched = 0;
+            long scanned;
+            lock.readLock().lock();
+            try {
+                scanned = rowCount - deletedCount;
+                long from = Math.max(startDate != null ? startDate.toEpochDay() : Long.MIN_VALUE, minDay);
+                long to = Math.min(endDate != null ? endDate.toEpochDay() : Long.MAX_VALUE, maxDay);
+                if (scanned > 0 && from <= to) {
+                    Scan scan = new Scan(cents, epochDays, categoryCodes, noteCodes, deleted, (int) from, (int) to,
+                            categoryMask(categoryIds), noteMask(noteContains), groupBy, categoryCount);
+                    Partial totals = rowCount >= parallelThreshold
+                            ? ForkJoinPool.commonPool().invoke(new ScanTask(scan, 0, rowCount, Math.max(parallelThreshold / 8, 1)))
+                            : scan.run(0, rowCount);
+                    
+                    for (int bucket = 0; bucket < scan.bucketCount; bucket++) {
+                        if (totals.counts[bucket] == 0) {
+                            continue;
+                        }
+                        String key = groupBy == GroupBy.CATEGORY ? Long.toString(categoryIdsByCode[bucket]) : scan.labels.get(bucket);
+                        groups.add(new Group(key, totals.counts[bucket], Money.toBigDecimal(totals.sums[bucket]),
+                                Money.toBigDecimal(totals.mins[bucket]), Money.toBigDecimal(totals.maxs[bucket])));
+                        matched += totals.counts[bucket];
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            return new AnalyticsResult(groupBy.name(), groups, matched, scanned, 0);
+        }
+        
+        // Lookup table by category code; null when not filtering
+        private boolean[] categoryMask(Collection<Long> categoryIds) {
+            if (categoryIds == null || categoryIds.isEmpty()) {
+                return null;
+            }
+            boolean[] mask = new boolean[categoryCount];
+            for (Long categoryId : categoryIds) {
+                Integer code = categoryCodesById.get(categoryId);
+                if (code != null) {
+                    mask[code] = true;
+                }
+            }
+            return mask;
+        }
+        
+        // The substring test runs once per distinct note rather than once per row
+        private boolean[] noteMask(String noteContains) {
+            if (noteContains == null || noteContains.isBlank()) {
+                return null;
+            }
+            String needle = noteContains.trim().toLowerCase(Locale.ROOT);
+            boolean[] mask = new boolean[noteDictionary.size()];
+            for (int code = 0; code < mask.length; code++) {
+                mask[code] = noteDictionary.get(code).contains(needle);
+            }
+            return mask;
+        }
+        
+        private void addRow(Long id, BigDecimal amount, LocalDate date, Long categoryId, String note) {
+            int row = rowCount++;
+            if (row == ids.length) {
+                resize(ids.length * 2);
+            }
+            int day = (int) date.toEpochDay();
+            ids[row] = id;
+            cents[row] = Money.toCents(amount);
+            epochDays[row] = day;
+            categoryCodes[row] = categoryCode(categoryId);
+            noteCodes[row] = noteCode(note);
+            rowsById.put(id, row);
+            minDay = Math.min(minDay, day);
+            maxDay = Math.max(maxDay, day);
+        }
+        
+        private void removeRow(Long id) {
+            Integer row = rowsById.remove(id);
+            if (row != null) {
+                deleted.set(row);
+                deletedCount++;
+            }
+        }
+        
+        private void compactIfSparse() {
+            if (deletedCount < COMPACTION_MIN_DELETED || deletedCount * 2 < rowCount) {
+                return;
+            }
+            int live = 0;
+            minDay = Integer.MAX_VALUE;
+            maxDay = Integer.MIN_VALUE;
+            for (int row = deleted.nextClearBit(0); row < rowCount; row = deleted.nextClearBit(row + 1)) {
+                ids[live] = ids[row];
+                cents[live] = cents[row];
+                epochDays[live] = epochDays[row];
+                categoryCodes[live] = categoryCodes[row];
+                noteCodes[live] = noteCodes[row];
+                rowsById.put(ids[live], live);
+                minDay = Math.min(minDay, epochDays[live]);
+                maxDay = Math.max(maxDay, epochDays[live]);
+                live++;
+            }
+            rowCount = live;
+            deletedCount = 0;
+            deleted = new BitSet();
+            resize(Math.max(1024, Integer.highestOneBit(Math.max(live, 1)) * 2));
+        }
+        
+        private void resize(int capacity) {
+            ids = Arrays.copyOf(ids, capacity);
+            cents = Arrays.copyOf(cents, capacity);
+            epochDays = Arrays.copyOf(epochDays, capacity);
+            categoryCodes = Arrays.copyOf(categoryCodes, capacity);
+            noteCodes = Arrays.copyOf(noteCodes, capacity);
+        }
+        
+        private int categoryCode(Long categoryId) {
+            return categoryCodesById.computeIfAbsent(categoryId, id -> {
+                if (categoryCount == categoryIdsByCode.length) {
+                    categoryIdsByCode = Arrays.copyOf(categoryIdsByCode, categoryCount * 2);
+                }
+                categoryIdsByCode[categoryCount] = id;
+                return categoryCount++;
+            });
+        }
+        
+        // -1 for expenses without a note
+        private int noteCode(String note) {
+            if (note == null || note.isBlank()) {
+                return -1;
+            }
+            return noteCodesByText.computeIfAbsent(note.toLowerCase(Locale.ROOT), text -> {
+                noteDictionary.add(text);
+                return noteDictionary.size() - 1;
+            });
+        }
+    }
+    
+    // One query's filters and buckets over a consistent view of the columns
+    private static final class Scan {
+        
+        private final long[] cents;
+        private final int[] epochDays;
+        private final int[] categoryCodes;
+        private final int[] noteCodes;
+        private final BitSet deleted;
+        private final int fromDay;
+        private final int toDay;
+        private final boolean[] categoryMask;
+        private final boolean[] noteMask;
+        private final boolean byCategory;
+        private final int[] bucketOfDay;
+        private final List<String> labels = new ArrayList<>();
+        private final int bucketCount;
+        
+        private Scan(long[] cents, int[] epochDays, int[] categoryCodes, int[] noteCodes, BitSet deleted, int fromDay, int toDay,
+                     boolean[] categoryMask, boolean[] noteMask, GroupBy groupBy, int categoryCount) {
+            this.cents = cents;
+            this.epochDays = epochDays;
+            this.categoryCodes = categoryCodes;
+            this.noteCodes = noteCodes;
+            this.deleted = deleted;
+            this.fromDay = fromDay;
+            this.toDay = toDay;
+            this.categoryMask = categoryMask;
+            this.noteMask = noteMask;
+            this.byCategory = groupBy == GroupBy.CATEGORY;
+            if (groupBy == GroupBy.NONE || byCategory) {
+                bucketOfDay = null;
+                labels.add("all");
+                bucketCount = byCategory ? categoryCount : 1;
+            } else {
+                bucketOfDay = new int[toDay - fromDay + 1];
+                long previousKey = Long.MIN_VALUE;
+                for (int day = fromDay; day <= toDay; day++) {
+                    LocalDate date = LocalDate.ofEpochDay(day);
+                    long key = switch (groupBy) {
+                        case DAY -> day;
+                        case WEEK -> Math.floorDiv(day + 3, 7);
+                        case MONTH -> date.getYear() * 12L + date.getMonthValue();
+                        default -> date.getYear();
+                    };
+                    if (key != previousKey) {
+                        labels.add(label(groupBy, date));
+                        previousKey = key;
+                    }
+                    bucketOfDay[day - fromDay] = labels.size() - 1;
+                }
+                bucketCount = labels.size();
+            }
+        }
+        
+        private static String label(GroupBy groupBy, LocalDate date) {
+            return switch (groupBy) {
+                case DAY -> date.toString();
+                case WEEK -> String.format("%d-W%02d", date.get(IsoFields.WEEK_BASED_YEAR), date.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR));
+                case MONTH -> String.format("%d-%02d", date.getYear(), date.getMonthValue());
+                default -> Integer.toString(date.getYear());
+            };
+        }
+        
+        private Partial run(int from, int to) {
+            Partial partial = new Partial(bucketCount);
+            for (int row = from; row < to; row++) {
+                int day = epochDays[row];
+                if (day < fromDay || day > toDay) {
+                    continue;
+                }
+                int category = categoryCodes[row];
+                if (categoryMask != null && !categoryMask[category]) {
+                    continue;
+                }
+                if (noteMask != null && (noteCodes[row] < 0 || !noteMask[noteCodes[row]])) {
+                    continue;
+                }
+                if (deleted.get(row)) {
+                    continue;
+                }
+                partial.add(byCategory ? category : bucketOfDay != null ? bucketOfDay[day - fromDay] : 0, cents[row]);
+            }
+            return partial;
+        }
+    }
+    
+    // Per-bucket running totals in cents
+    private static final class Partial {
+        
+        private final long[] counts;
+        private final long[] sums;
+        private final long[] mins;
+        private final long[] maxs;
+        
+        private Partial(int buckets) {
+            counts = new long[buckets];
+            sums = new long[buckets];
+            mins = new long[buckets];
+            maxs = new long[buckets];
+            Arrays.fill(mins, Long.MAX_VALUE);
+            Arrays.fill(maxs, Long.MIN_VALUE);
+        }
+        
+        private void add(int bucket, long amount) {
+            counts[bucket]++;
+            sums[bucket] = Math.addExact(sums[bucket], amount);
+            mins[bucket] = Math.min(mins[bucket], amount);
+            maxs[bucket] = Math.max(maxs[bucket], amount);
+        }
+        
+        private Partial merge(Partial other) {
+            for (int bucket = 0; bucket < counts.length; bucket++) {
+                counts[bucket] += other.counts[bucket];
+                sums[bucket] = Math.addExact(sums[bucket], other.sums[bucket]);
+                mins[bucket] = Math.min(mins[bucket], other.mins[bucket]);
+                maxs[bucket] = Math.max(maxs[bucket], other.maxs[bucket]);
+            }
+            return this;
+        }
+    }
+    
+    // Splits the row range in halves until a chunk is small enough to scan in one go
+    private static final class ScanTask extends RecursiveTask<Partial> {
+        
+        private final Scan scan;
+        private final int from;
+        private final int to;
+        private final int leafSize;
+        
+        private ScanTask(Scan scan, int from, int to, int leafSize) {
+            this.scan = scan;
+            this.from = from;
+            this.to = to;
+            this.leafSize = leafSize;
+        }
+        
+        @Override
+        protected Partial compute() {
+            if (to - from <= leafSize) {
+                return scan.run(from, to);
+            }
+            int middle = (from + to) >>> 1;
+            ScanTask left = new ScanTask(scan, from, middle, leafSize);
+            left.fork();
+            Partial right = new ScanTask(scan, middle, to, leafSize).compute();
+            return right.merge(left.join());
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.personalexpensetracker.expensetracker.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.personalexpensetracker.expensetracker.dto.ExpenseView;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.stream.Stream;
+
+/**
+ * Streams expenses straight from a forward-only result set to an output stream.
+ * Rows are selected as {@link ExpenseView} DTOs, so nothing accumulates in the persistence
+ * context and heap use does not depend on the number of rows exported.
+ */
+@Service
+@RequiredArgsConstructor
+public class ExpenseExportService {
+    
+    private static final String EXPORT_QUERY =
+            "SELECT new com.personalexpensetracker.expensetracker.dto.ExpenseView(e.id, e.amount, e.date, e.note, c.id, c.name) " +
+            "FROM Expense e JOIN e.category c " +
+            "WHERE (:categoryId IS NULL OR c.id = :categoryId) " +
+            "AND (:startDate IS NULL OR e.date >= :startDate) AND (:endDate IS NULL OR e.date <= :endDate) " +
+            "ORDER BY e.date DESC, e.id DESC";
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+    
+    // Integer.MIN_VALUE makes MySQL Connector/J stream rows one at a time instead of buffering the result
+    @Value("${expensetracker.export.fetch-size:1000}")
+    private int fetchSize;
+    
+    public long exportCsv(Long categoryId, LocalDate startDate, LocalDate endDate, OutputStream output) {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        return export(categoryId, startDate, endDate, writer, rows -> {
+            writer.write("id,date,amount,category,note\n");
+            long count = 0;
+            for (ExpenseView row : (Iterable<ExpenseView>) rows::iterator) {
+                writer.write(row.id() + "," + row.date() + "," + row.amount().toPlainString() + ","
+                        + csv(row.categoryName()) + "," + csv(row.note()) + "\n");
+                count++;
+            }
+            return count;
+        });
+    }
+    
+    public long exportNdjson(Long categoryId, LocalDate startDate, LocalDate endDate, OutputStream output) {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        return export(categoryId, startDate, endDate, writer, rows -> {
+            ObjectWriter json = objectMapper.writerFor(ExpenseView.class);
+            long count = 0;
+            for (ExpenseView row : (Iterable<ExpenseView>) rows::iterator) {
+                writer.write(json.writeValueAsString(row));
+                writer.write('\n');
+                count++;
+            }
+            return count;
+        });
+    }
+    
+    // Opens a read-only transaction for the life of the stream; callers may run on an async thread
+    private long export(Long categoryId, LocalDate startDate, LocalDate endDate, Writer writer, RowWriter rowWriter) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        Long count = transaction.execute(status -> {
+            try (Stream<ExpenseView> rows = entityManager.createQuery(EXPORT_QUERY, ExpenseView.class)
+                    .setParameter("categoryId", categoryId)
+                    .setParameter("startDate", startDate)
+                    .setParameter("endDate", endDate)
+                    .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                    .setHint(HibernateHints.HINT_READ_ONLY, true)
+                    .getResultStream()) {
+                long written = rowWriter.write(rows);
+                writer.flush();
+                return written;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return count != null ? count : 0;
+    }
+    
+    private String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+    
+    @FunctionalInterface
+    private interface RowWriter {
+        long write(Stream<ExpenseView> rows) throws IOException;
+    }
+}
@@ -0,0 +1,253 @@
+package com.personalexpensetracker.expensetracker.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.personalexpensetracker.expensetracker.dto.ImportResult;
+import com.personalexpensetracker.expensetracker.dto.ImportResult.RowError;
+import com.personalexpensetracker.expensetracker.model.Category;
+import com.personalexpensetracker.expensetracker.model.Expense;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Streams CSV or NDJSON expense rows from an input stream and inserts them in JDBC batches.
+ * Only one batch is held in memory at a time. Category names are resolved through the
+ * category cache. Invalid rows are skipped and reported by line number.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ExpenseImportService {
+    
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final List<String> DEFAULT_CSV_COLUMNS = List.of("date", "amount", "category", "note");
+    
+    private final ExpenseBulkWriter bulkWriter;
+    private final CategoryCache categoryCache;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    
+    @Value("${expensetracker.import.batch-size:1000}")
+    private int defaultBatchSize;
+    
+    public ImportResult importCsv(InputStream input, Integer batchSize) throws IOException {
+        Import run = new Import(batchSize);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        Map<String, Integer> columns = null;
+        long[] lineNumber = {0};
+        List<String> fields;
+        while ((fields = readCsvRecord(reader, lineNumber)) != null) {
+            long line = lineNumber[0];
+            if (fields.size() == 1 && fields.get(0).isBlank()) {
+                continue;
+            }
+            // The first record is a header when it names a date column anywhere, as the export's
+            // id,date,amount,category,note does; columns not imported, such as id, are ignored
+            if (columns == null) {
+                columns = new HashMap<>();
+                boolean header = fields.stream().anyMatch(name -> "date".equalsIgnoreCase(name.trim()));
+                List<String> names = header ? fields : DEFAULT_CSV_COLUMNS;
+                for (int i = 0; i < names.size(); i++) {
+                    columns.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+                }
+                if (header) {
+                    continue;
+                }
+            }
+            run.accept(line, csvField(fields, columns, "date"), csvField(fields, columns, "amount"),
+                    csvField(fields, columns, "category"), csvField(fields, columns, "note"));
+        }
+        return run.finish();
+    }
+    
+    public ImportResult importNdjson(InputStream input, Integer batchSize) throws IOException {
+        Import run = new Import(batchSize);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        long line = 0;
+        String text;
+        while ((text = reader.readLine()) != null) {
+            line++;
+            if (text.isBlank()) {
+                continue;
+            }
+            JsonNode node;
+            try {
+                node = objectMapper.readTree(text);
+            } catch (IOException e) {
+                run.reject(line, "Malformed JSON");
+                continue;
+            }
+            String category = node.hasNonNull("category") ? node.get("category").asText()
+                    : node.hasNonNull("categoryName") ? node.get("categoryName").asText() : null;
+            run.accept(line, text(node, "date"), text(node, "amount"), category, text(node, "note"));
+        }
+        return run.finish();
+    }
+    
+    private String text(JsonNode node, String field) {
+        return node.hasNonNull(field) ? node.get(field).asText() : null;
+    }
+    
+    private String csvField(List<String> fields, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        return index != null && index < fields.size() ? fields.get(index) : null;
+    }
+    
+    // Reads one CSV record; quoted fields may contain commas, doubled quotes and line breaks
+    private List<String> readCsvRecord(BufferedReader reader, long[] lineNumber) throws IOException {
+        String line = reader.readLine();
+        if (line == null) {
+            return null;
+        }
+        lineNumber[0]++;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (quoted) {
+                    if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        quoted = false;
+                    } else {
+                        field.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            if (!quoted) {
+                break;
+            }
+            String next = reader.readLine();
+            if (next == null) {
+                break;
+            }
+            lineNumber[0]++;
+            field.append('\n');
+            line = next;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+    
+    // State of one import run: the current batch and counters
+    private final class Import {
+        
+        private final int batchSize;
+        private final long started = System.nanoTime();
+        private final List<Expense> batch = new ArrayList<>();
+        private final List<Long> batchLines = new ArrayList<>();
+        private final List<RowError> errors = new ArrayList<>();
+        private long rowsRead;
+        private long imported;
+        private long rejected;
+        
+        private Import(Integer batchSize) {
+            this.batchSize = batchSize != null && batchSize > 0 ? batchSize : defaultBatchSize;
+        }
+        
+        private void accept(long line, String date, String amount, String categoryName, String note) {
+            rowsRead++;
+            Expense expense = new Expense();
+            try {
+                expense.setDate(date != null && !date.isBlank() ? LocalDate.parse(date.trim()) : null);
+                expense.setAmount(amount != null && !amount.isBlank() ? new BigDecimal(amount.trim()) : null);
+            } catch (RuntimeException e) {
+                rejectRow(line, "Unparseable date or amount");
+                return;
+            }
+            expense.setNote(note != null && !note.isBlank() ? note : null);
+            if (categoryName != null && !categoryName.isBlank()) {
+                Optional<Category> category = categoryCache.findByName(categoryName);
+                if (category.isEmpty()) {
+                    rejectRow(line, "Unknown category '" + categoryName.trim() + "'");
+                    return;
+                }
+                expense.setCategory(category.get());
+            }
+            
+            Set<ConstraintViolation<Expense>> violations = validator.validate(expense);
+            if (!violations.isEmpty()) {
+                rejectRow(line, violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining("; ")));
+                return;
+            }
+            
+            batch.add(expense);
+            batchLines.add(line);
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        }
+        
+        private void reject(long line, String message) {
+            rowsRead++;
+            rejectRow(line, message);
+        }
+        
+        private void rejectRow(long line, String message) {
+            rejected++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new RowError(line, message));
+            }
+        }
+        
+        private void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                bulkWriter.insert(batch);
+                imported += batch.size();
+            } catch (DataAccessException e) {
+                log.warn("Import batch for lines {}-{} failed", batchLines.get(0), batchLines.get(batchLines.size() - 1), e);
+                for (Long line : batchLines) {
+                    rejectRow(line, "Batch insert failed: " + e.getMostSpecificCause().getMessage());
+                }
+            }
+            batch.clear();
+            batchLines.clear();
+        }
+        
+        private ImportResult finish() {
+            flush();
+            long elapsedNanos = Math.max(System.nanoTime() - started, 1);
+            double rowsPerSecond = imported * 1_000_000_000d / elapsedNanos;
+            log.info("Imported {} of {} expense rows in {} ms ({} rows/s)",
+                    imported, rowsRead, elapsedNanos / 1_000_000, Math.round(rowsPerSecond));
+            return new ImportResult(rowsRead, imported, rejected, errors, elapsedNanos / 1_000_000, rowsPerSecond);
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package com.personalexpensetracker.expensetracker.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.personalexpensetracker.expensetracker.config.TenantContext;
+import com.personalexpensetracker.expensetracker.model.Category;
+import com.personalexpensetracker.expensetracker.model.Expense;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Optional write-behind path for expense creation ({@code expensetracker.ingest.async.enabled}).
+ * <p>
+ * Requests are accepted into a bounded queue and a single writer thread inserts them in
+ * batches through {@link ExpenseBulkWriter}; a full queue is reported to the caller instead of
+ * blocking. With {@code expensetracker.ingest.journal} set, every accepted expense is first
+ * appended to a local journal. The writer records how many journal lines are committed in a
+ * checkpoint file, and uncommitted lines are replayed at the next startup (at-least-once:
+ * a crash between a commit and its checkpoint replays that one batch). The journal is
+ * truncated whenever the queue drains.
+ */
+@Slf4j
+@Component
+public class ExpenseIngestPipeline {
+    
+    private final ExpenseBulkWriter bulkWriter;
+    private final CategoryCache categoryCache;
+    private final ObjectMapper objectMapper;
+    
+    private final boolean enabled;
+    private final int batchSize;
+    private final long lingerMillis;
+    private final Path journal;
+    private final Path checkpoint;
+    private final boolean fsync;
+    
+    private final BlockingQueue<Expense> queue;
+    private final DistributionSummary batchSizes;
+    private final Counter rejected;
+    private final Counter failed;
+    
+    // Guards the journal and the queue tail, so enqueue order matches journal order
+    private final Object lock = new Object();
+    private FileChannel journalChannel;
+    private long committedLines;
+    
+    private volatile boolean running;
+    private Thread writer;
+    
+    public ExpenseIngestPipeline(ExpenseBulkWriter bulkWriter,
+                                 CategoryCache categoryCache,
+                                 ObjectMapper objectMapper,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${expensetracker.ingest.async.enabled:false}") boolean enabled,
+                                 @Value("${expensetracker.ingest.queue-capacity:10000}") int queueCapacity,
+                                 @Value("${expensetracker.ingest.batch-size:500}") int batchSize,
+                                 @Value("${expensetracker.ingest.linger-ms:20}") long lingerMillis,
+                                 @Value("${expensetracker.ingest.journal:}") String journal,
+                                 @Value("${expensetracker.ingest.journal-fsync:false}") boolean fsync) {
+        this.bulkWriter = bulkWriter;
+        this.categoryCache = categoryCache;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.lingerMillis = lingerMillis;
+        this.journal = journal.isBlank() ? null : Path.of(journal);
+        this.checkpoint = this.journal == null ? null : Path.of(journal + ".checkpoint");
+        this.fsync = fsync;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        
+        Gauge.builder("expensetracker.ingest.queue.depth", queue, BlockingQueue::size)
+                .description("Expenses accepted but not yet written")
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("expensetracker.ingest.batch.size")
+                .description("Expenses written per batch")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("expensetracker.ingest.rejected")
+                .description("Expenses refused because the queue was full")
+                .register(meterRegistry);
+        this.failed = Counter.builder("expensetracker.ingest.failed")
+                .description("Accepted expenses that could not be written")
+                .register(meterRegistry);
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public int getQueueDepth() {
+        return queue.size();
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) {
+            replayJournal();
+            startWriter();
+        }
+    }
+    
+    /**
+     * Accepts an expense for asynchronous insertion. The category must exist.
+     * Returns false when the queue is full; the caller should retry later.
+     */
+    public boolean enqueue(Expense expense) {
+        // The writer thread has no tenant of its own, so the expense carries the caller's
+        expense.setTenantId(TenantContext.of(expense.getTenantId()));
+        synchronized (lock) {
+            if (queue.remainingCapacity() == 0) {
+                rejected.increment();
+                return false;
+            }
+            appendToJournal(expense);
+            queue.add(expense);
+            return true;
+        }
+    }
+    
+    // Inserts journal lines past the checkpoint, then starts the journal afresh
+    void replayJournal() {
+        if (journal == null || !Files.exists(journal)) {
+            return;
+        }
+        try {
+            long skip = readCheckpoint();
+            List<Expense> batch = new ArrayList<>();
+            long replayed = 0;
+            try (BufferedReader reader = Files.newBufferedReader(journal, StandardCharsets.UTF_8)) {
+                String line;
+                long lineNumber = 0;
+                while ((line = reader.readLine()) != null) {
+                    if (++lineNumber <= skip || line.isBlank()) {
+                        continue;
+                    }
+                    Optional<Expense> expense = fromJournal(line, lineNumber);
+                    if (expense.isPresent()) {
+                        batch.add(expense.get());
+                        if (batch.size() >= batchSize) {
+                            replayed += write(batch);
+                            batch = new ArrayList<>();
+                        }
+                    }
+                }
+            }
+            replayed += write(batch);
+            synchronized (lock) {
+                truncateJournal();
+            }
+            if (replayed > 0) {
+                log.info("Replayed {} expenses from ingest journal {}", replayed, journal);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not replay ingest journal " + journal, e);
+        }
+    }
+    
+    void startWriter() {
+        running = true;
+        writer = new Thread(this::drain, "expense-ingest-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+    
+    // Stops taking new batches, writes whatever is still queued and waits for the writer
+    @PreDestroy
+    void stopWriter() throws InterruptedException {
+        running = false;
+        if (writer != null) {
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+            writer = null;
+        }
+        synchronized (lock) {
+            if (journalChannel != null) {
+                try {
+                    journalChannel.close();
+                } catch (IOException e) {
+                    log.warn("Could not close ingest journal {}", journal, e);
+                }
+                journalChannel = null;
+            }
+        }
+    }
+    
+    private void drain() {
+        List<Expense> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Expense first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // Linger briefly so that bursts are written as one batch
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    Expense next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                try {
+                    write(batch);
+                } finally {
+                    // Rows that could not be written are counted as failed, not retried at startup
+                    checkpoint(batch.size());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Expense ingest writer failed on a batch of {}", batch.size(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+    
+    // Writes one batch; if the batch fails, retries row by row so one bad row does not drop the rest
+    private int write(List<Expense> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        try {
+            bulkWriter.insert(batch);
+            batchSizes.record(batch.size());
+            return batch.size();
+        } catch (DataAccessException e) {
+            log.warn("Ingest batch of {} failed, retrying row by row", batch.size(), e);
+        }
+        int written = 0;
+        for (Expense expense : batch) {
+            try {
+                bulkWriter.insert(List.of(expense));
+                batchSizes.record(1);
+                written++;
+            } catch (DataAccessException e) {
+                failed.increment();
+                log.error("Dropping queued expense {} {} in category {}: {}", expense.getDate(), expense.getAmount(),
+                        expense.getCategory().getId(), e.getMostSpecificCause().getMessage());
+            }
+        }
+        return written;
+    }
+    
+    private void appendToJournal(Expense expense) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            if (journalChannel == null) {
+                Files.createDirectories(journal.toAbsolutePath().getParent());
+                journalChannel = FileChannel.open(journal, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.APPEND);
+            }
+            JournalEntry entry = new JournalEntry(expense.getAmount(), expense.getDate(), expense.getNote(),
+                    expense.getCategory().getId(), expense.getTenantId());
+            journalChannel.write(ByteBuffer.wrap((objectMapper.writeValueAsString(entry) + "\n").getBytes(StandardCharsets.UTF_8)));
+            if (fsync) {
+                journalChannel.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not append to ingest journal " + journal, e);
+        }
+    }
+    
+    private void checkpoint(int lines) {
+        if (journal == null) {
+            return;
+        }
+        synchronized (lock) {
+            committedLines += lines;
+            try {
+                if (queue.isEmpty()) {
+                    truncateJournal();
+                } else {
+                    writeCheckpoint(committedLines);
+                }
+            } catch (IOException e) {
+                log.error("Could not update ingest journal checkpoint {}", checkpoint, e);
+            }
+        }
+    }
+    
+    // Journal first, then checkpoint: a crash in between leaves an empty journal, never a replay of committed rows
+    private void truncateJournal() throws IOException {
+        if (journalChannel != null) {
+            journalChannel.truncate(0);
+        } else if (Files.exists(journal)) {
+            Files.write(journal, new byte[0]);
+        }
+        committedLines = 0;
+        writeCheckpoint(0);
+    }
+    
+    private long readCheckpoint() throws IOException {
+        return Files.exists(checkpoint) ? Long.parseLong(Files.readString(checkpoint).trim()) : 0;
+    }
+    
+    private void writeCheckpoint(long lines) throws IOException {
+        Path temp = Path.of(checkpoint + ".tmp");
+        Files.writeString(temp, Long.toString(lines));
+        Files.move(temp, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    private Optional<Expense> fromJournal(String line, long lineNumber) {
+        try {
+            JournalEntry entry = objectMapper.readValue(line, JournalEntry.class);
+            // Journals written before tenants existed have no tenant and belong to the default one
+            String tenant = entry.tenantId() != null ? entry.tenantId() : TenantContext.DEFAULT;
+            Optional<Category> category = TenantContext.as(tenant, () -> categoryCache.findById(entry.categoryId()));
+            if (category.isEmpty()) {
+                log.warn("Skipping ingest journal line {}: category {} no longer exists", lineNumber, entry.categoryId());
+                failed.increment();
+                return Optional.empty();
+            }
+            Expense expense = new Expense();
+            expense.setAmount(entry.amount());
+            expense.setDate(entry.date());
+            expense.setNote(entry.note());
+            expense.setCategory(category.get());
+            expense.setTenantId(tenant);
+            return Optional.of(expense);
+        } catch (IOException e) {
+            log.warn("Skipping unreadable ingest journal line {}", lineNumber, e);
+            failed.increment();
+            return Optional.empty();
+        }
+    }
+    
+    record JournalEntry(BigDecimal amount, LocalDate date, String note, Long categoryId, String tenantId) {
+    }
+}
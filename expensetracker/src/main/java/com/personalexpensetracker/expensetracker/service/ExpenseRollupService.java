@@ -0,0 +1,249 @@
+package com.personalexpensetracker.expensetracker.service;
+
+import com.personalexpensetracker.expensetracker.config.TenantContext;
+import com.personalexpensetracker.expensetracker.model.Expense;
+import com.personalexpensetracker.expensetracker.model.ExpenseDailyRollup;
+import com.personalexpensetracker.expensetracker.model.Money;
+import com.personalexpensetracker.expensetracker.repository.ExpenseRollupRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class ExpenseRollupService {
+    
+    private static final int MAX_REPORTED_MISMATCHES = 100;
+    
+    private final ExpenseRollupRepository rollupRepository;
+    private final ExpenseArchive archive;
+    
+    // Called from ExpenseService inside the same transaction as the expense write
+    public void add(Contribution contribution) {
+        LocalDate date = contribution.date();
+        rollupRepository.applyDelta(contribution.tenantId(), contribution.categoryId(), date, date.getYear(),
+                date.getMonthValue(), contribution.amount(), 1, contribution.amount(), contribution.amount());
+    }
+    
+    // Bulk inserts: one upsert per touched cell instead of one per expense
+    public void addAll(Collection<Expense> expenses) {
+        Map<String, CellDelta> cells = new HashMap<>();
+        for (Expense expense : expenses) {
+            cells.computeIfAbsent(expense.getCategory().getId() + "@" + expense.getDate(),
+                    key -> new CellDelta(TenantContext.of(expense.getTenantId()), expense.getCategory().getId(), expense.getDate()))
+                    .add(expense.getAmount());
+        }
+        // Cells in a fixed order, so concurrent bulk writers lock rollup rows in the same order
+        List<CellDelta> ordered = new ArrayList<>(cells.values());
+        ordered.sort(Comparator.comparing((CellDelta cell) -> cell.date).thenComparing(cell -> cell.categoryId));
+        ordered.forEach(this::apply);
+    }
+    
+    // The expense must already be flushed out of the expenses table. Min and max are recomputed
+    // from the table, plus the archive for a cell of an archived year (late expenses can be added there).
+    public void remove(Contribution contribution) {
+        LocalDate date = contribution.date();
+        rollupRepository.applyDelta(contribution.tenantId(), contribution.categoryId(), date, date.getYear(),
+                date.getMonthValue(), contribution.amount().negate(), -1, contribution.amount(), contribution.amount());
+        if (rollupRepository.deleteEmptyCell(contribution.categoryId(), date) == 0) {
+            refreshExtremes(contribution.tenantId(), contribution.categoryId(), date, contribution.amount(), null);
+        }
+    }
+    
+    // Batch removals: one delta per touched cell. Only the removed minimum and maximum can be a
+    // cell's extreme, so at most two refreshes per surviving cell.
+    public void removeAll(Collection<Contribution> contributions) {
+        Map<String, CellDelta> cells = new HashMap<>();
+        for (Contribution contribution : contributions) {
+            cells.computeIfAbsent(contribution.categoryId() + "@" + contribution.date(),
+                    key -> new CellDelta(contribution.tenantId(), contribution.categoryId(), contribution.date()))
+                    .add(contribution.amount());
+        }
+        List<CellDelta> ordered = new ArrayList<>(cells.values());
+        ordered.sort(Comparator.comparing((CellDelta cell) -> cell.date).thenComparing(cell -> cell.categoryId));
+        for (CellDelta cell : ordered) {
+            BigDecimal min = Money.toBigDecimal(cell.min);
+            BigDecimal max = Money.toBigDecimal(cell.max);
+            rollupRepository.applyDelta(cell.tenantId, cell.categoryId, cell.date, cell.date.getYear(),
+                    cell.date.getMonthValue(), Money.toBigDecimal(cell.total).negate(), -cell.count, min, max);
+            if (rollupRepository.deleteEmptyCell(cell.categoryId, cell.date) == 0) {
+                CellDelta archived = archivedCell(cell.tenantId, cell.categoryId, cell.date);
+                if (refreshExtremes(cell.tenantId, cell.categoryId, cell.date, min, archived) == 0 && cell.max != cell.min) {
+                    refreshExtremes(cell.tenantId, cell.categoryId, cell.date, max, archived);
+                }
+            }
+        }
+    }
+    
+    // Returns the number of refreshed cells (0 when the removed amount was not an extreme).
+    // The archived part of the cell is looked up when not passed in.
+    private int refreshExtremes(String tenantId, Long categoryId, LocalDate date, BigDecimal removedAmount, CellDelta archived) {
+        if (archived == null) {
+            archived = archivedCell(tenantId, categoryId, date);
+        }
+        if (archived.count == 0) {
+            return rollupRepository.refreshExtremes(categoryId, date, removedAmount);
+        }
+        return rollupRepository.refreshExtremesWithArchived(categoryId, date, removedAmount,
+                Money.toBigDecimal(archived.min), Money.toBigDecimal(archived.max));
+    }
+    
+    // The archived rows of one cell; empty unless its year has been archived
+    private CellDelta archivedCell(String tenantId, Long categoryId, LocalDate date) {
+        CellDelta cell = new CellDelta(tenantId, categoryId, date);
+        if (!archive.isEnabled()) {
+            return cell;
+        }
+        for (ExpenseArchive.ArchivedExpense expense : archive.read(new ExpenseArchive.Segment(tenantId, date.getYear()))) {
+            if (expense.categoryId() == categoryId && expense.date().equals(date)) {
+                cell.add(expense.amount());
+            }
+        }
+        return cell;
+    }
+    
+    public void removeCategory(Long categoryId) {
+        rollupRepository.deleteByCategoryId(categoryId);
+    }
+    
+    // Read-write like the summaries in ExpenseService, so the query-cached total is read from the primary
+    public BigDecimal getGrandTotal() {
+        return rollupRepository.getGrandTotal();
+    }
+    
+    @Transactional(readOnly = true)
+    public boolean isEmpty() {
+        return rollupRepository.count() == 0;
+    }
+    
+    // Rebuilds every tenant's cells whatever the current tenant, from the table and the archive
+    public int rebuild() {
+        rollupRepository.deleteAllCells();
+        int cells = rollupRepository.rebuildFromExpenses();
+        int archivedCells = 0;
+        for (ExpenseArchive.Segment segment : archive.segments(TenantContext.ROOT)) {
+            Collection<CellDelta> segmentCells = archivedCells(segment);
+            segmentCells.forEach(this::apply);
+            archivedCells += segmentCells.size();
+        }
+        log.info("Rebuilt {} expense rollup cells from the table and {} from the archive", cells, archivedCells);
+        return cells + archivedCells;
+    }
+    
+    // Checks the current tenant's cells, or all of them when run as the root tenant
+    @Transactional(readOnly = true)
+    public RollupVerification verify() {
+        Map<String, Object[]> expected = new HashMap<>();
+        for (Object[] row : rollupRepository.aggregateExpensesByCategoryAndDate()) {
+            expected.put(row[0] + "@" + row[1], row);
+        }
+        // Archived years count too; a cell may hold rows from both the table and the archive
+        for (ExpenseArchive.Segment segment : archive.segments(TenantContext.current())) {
+            for (CellDelta cell : archivedCells(segment)) {
+                Object[] archived = {cell.categoryId, cell.date, Money.toBigDecimal(cell.total), cell.count,
+                        Money.toBigDecimal(cell.min), Money.toBigDecimal(cell.max)};
+                expected.merge(cell.categoryId + "@" + cell.date, archived, (table, extra) -> new Object[] {
+                        table[0], table[1], ((BigDecimal) table[2]).add((BigDecimal) extra[2]),
+                        ((Number) table[3]).longValue() + ((Number) extra[3]).longValue(),
+                        ((BigDecimal) table[4]).min((BigDecimal) extra[4]), ((BigDecimal) table[5]).max((BigDecimal) extra[5])});
+            }
+        }
+        
+        List<String> mismatches = new ArrayList<>();
+        int rollupCells = 0;
+        for (ExpenseDailyRollup rollup : rollupRepository.findAll()) {
+            rollupCells++;
+            Object[] raw = expected.remove(rollup.getCategoryId() + "@" + rollup.getRollupDate());
+            if (raw == null) {
+                mismatches.add("category " + rollup.getCategoryId() + " on " + rollup.getRollupDate()
+                        + ": rollup has " + rollup.getTotalAmount() + " but no expenses exist");
+            } else if (!matches(rollup, raw)) {
+                mismatches.add("category " + rollup.getCategoryId() + " on " + rollup.getRollupDate()
+                        + ": expected sum/count/min/max " + raw[2] + "/" + raw[3] + "/" + raw[4] + "/" + raw[5]
+                        + " but rollup has " + rollup.getTotalAmount() + "/" + rollup.getExpenseCount()
+                        + "/" + rollup.getMinAmount() + "/" + rollup.getMaxAmount());
+            }
+        }
+        expected.values().forEach(raw -> mismatches.add("category " + raw[0] + " on " + raw[1]
+                + ": expected " + raw[2] + " (" + raw[3] + " expenses) but rollup is missing"));
+        
+        return new RollupVerification(rollupCells, mismatches.size(),
+                mismatches.subList(0, Math.min(mismatches.size(), MAX_REPORTED_MISMATCHES)));
+    }
+    
+    private Collection<CellDelta> archivedCells(ExpenseArchive.Segment segment) {
+        Map<String, CellDelta> cells = new HashMap<>();
+        for (ExpenseArchive.ArchivedExpense expense : archive.read(segment)) {
+            cells.computeIfAbsent(expense.categoryId() + "@" + expense.date(),
+                    key -> new CellDelta(segment.tenant(), expense.categoryId(), expense.date()))
+                    .add(expense.amount());
+        }
+        return cells.values();
+    }
+    
+    private void apply(CellDelta cell) {
+        rollupRepository.applyDelta(cell.tenantId, cell.categoryId, cell.date, cell.date.getYear(), cell.date.getMonthValue(),
+                Money.toBigDecimal(cell.total), cell.count, Money.toBigDecimal(cell.min), Money.toBigDecimal(cell.max));
+    }
+    
+    private boolean matches(ExpenseDailyRollup rollup, Object[] raw) {
+        LocalDate date = rollup.getRollupDate();
+        return ((BigDecimal) raw[2]).compareTo(rollup.getTotalAmount()) == 0
+                && ((Number) raw[3]).longValue() == rollup.getExpenseCount()
+                && ((BigDecimal) raw[4]).compareTo(rollup.getMinAmount()) == 0
+                && ((BigDecimal) raw[5]).compareTo(rollup.getMaxAmount()) == 0
+                && date.getYear() == rollup.getRollupYear()
+                && date.getMonthValue() == rollup.getRollupMonth();
+    }
+    
+    // Accumulates in cents; converted to BigDecimal once per cell for the upsert
+    private static final class CellDelta {
+        private final String tenantId;
+        private final Long categoryId;
+        private final LocalDate date;
+        private long total;
+        private long count;
+        private long min = Long.MAX_VALUE;
+        private long max = Long.MIN_VALUE;
+        
+        private CellDelta(String tenantId, Long categoryId, LocalDate date) {
+            this.tenantId = tenantId;
+            this.categoryId = categoryId;
+            this.date = date;
+        }
+        
+        private void add(BigDecimal amount) {
+            long cents = Money.toCents(amount);
+            total = Math.addExact(total, cents);
+            count++;
+            min = Math.min(min, cents);
+            max = Math.max(max, cents);
+        }
+    }
+    
+    // The part of an expense that the cube aggregates, captured before the entity changes
+    public record Contribution(String tenantId, Long categoryId, LocalDate date, BigDecimal amount) {
+        public static Contribution of(Expense expense) {
+            return new Contribution(TenantContext.of(expense.getTenantId()), expense.getCategory().getId(),
+                    expense.getDate(), expense.getAmount());
+        }
+    }
+    
+    public record RollupVerification(int rollupCells, int mismatchCount, List<String> mismatches) {
+        public boolean isConsistent() {
+            return mismatchCount == 0;
+        }
+    }
+}
@@ -1,119 +1,382 @@
 package com.personalexpensetracker.expensetracker.service;
 
+import com.personalexpensetracker.expensetracker.config.ReadYourWrites;
+import com.personalexpensetracker.expensetracker.dto.BatchItemResult;
+import com.personalexpensetracker.expensetracker.dto.CursorPage;
+import com.personalexpensetracker.expensetracker.dto.ExpenseCursor;
+import com.personalexpensetracker.expensetracker.dto.ExpensePatch;
+import com.personalexpensetracker.expensetracker.dto.ExpenseView;
+import com.personalexpensetracker.expensetracker.event.ChangeType;
+import com.personalexpensetracker.expensetracker.event.ExpenseChangedEvent;
+import com.personalexpensetracker.expensetracker.model.Category;
 import com.personalexpensetracker.expensetracker.model.Expense;
+import com.personalexpensetracker.expensetracker.repository.CategoryRepository;
 import com.personalexpensetracker.expensetracker.repository.ExpenseRepository;
+import com.personalexpensetracker.expensetracker.repository.ExpenseRollupRepository;
+import com.personalexpensetracker.expensetracker.service.ExpenseRollupService.Contribution;
+import io.micrometer.core.annotation.Timed;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 @Transactional
+@Timed(value = "expensetracker.service", description = "Service method calls", histogram = true)
 public class ExpenseService {
     
     private final ExpenseRepository expenseRepository;
+    private final ExpenseRollupService rollupService;
+    private final ExpenseRollupRepository rollupRepository;
+    private final RecentExpensesBuffer recentExpensesBuffer;
+    private final NoteSearchIndex noteSearchIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CategoryCache categoryCache;
+    private final CategoryRepository categoryRepository;
+    private final Validator validator;
+    
+    @Value("${expensetracker.batch.max-size:500}")
+    private int maxBatchSize;
     
     public Expense saveExpense(Expense expense) {
-        return expenseRepository.save(expense);
+        expense.setCategory(resolveCategory(expense.getCategory()));
+        Optional<Expense> existingExpense = expense.getId() != null
+                ? expenseRepository.findById(expense.getId())
+                : Optional.empty();
+        Optional<Contribution> previous = existingExpense.map(Contribution::of);
+        Expense savedExpense = expenseRepository.saveAndFlush(expense);
+        previous.ifPresent(rollupService::remove);
+        rollupService.add(Contribution.of(savedExpense));
+        eventPublisher.publishEvent(new ExpenseChangedEvent(
+                existingExpense.isPresent() ? ChangeType.UPDATED : ChangeType.CREATED, savedExpense));
+        return savedExpense;
     }
     
+    @Transactional(readOnly = true)
     public Optional<Expense> findById(Long id) {
         return expenseRepository.findById(id);
     }
     
+    @Transactional(readOnly = true)
     public Optional<Expense> findByIdWithCategory(Long id) {
         return expenseRepository.findByIdWithCategory(id);
     }
     
+    // Id-only check, restricted to the current tenant like every entity query
+    @Transactional(readOnly = true)
+    public boolean existsById(Long id) {
+        return expenseRepository.existsById(id);
+    }
+    
+    @Transactional(readOnly = true)
     public List<Expense> findAll() {
         return expenseRepository.findAll();
     }
     
-    public Page<Expense> findAll(Pageable pageable) {
-        return expenseRepository.findAll(pageable);
+    // Newest expenses for the dashboard, answered from the in-memory buffer when warm.
+    // The buffer is then kept current by change events, so it is loaded from the primary.
+    @Transactional(readOnly = true)
+    public List<Expense> findRecentExpenses(int limit) {
+        return recentExpensesBuffer.getRecent(limit, size -> ReadYourWrites.onPrimary(
+                () -> expenseRepository.findRecentWithCategory(PageRequest.of(0, size))));
     }
     
+    @Transactional(readOnly = true)
     public List<Expense> findByCategoryId(Long categoryId) {
         return expenseRepository.findByCategoryId(categoryId);
     }
     
+    @Transactional(readOnly = true)
     public List<Expense> findByDateRange(LocalDate startDate, LocalDate endDate) {
         return expenseRepository.findByDateBetween(startDate, endDate);
     }
     
+    @Transactional(readOnly = true)
     public List<Expense> findByCategoryAndDateRange(Long categoryId, LocalDate startDate, LocalDate endDate) {
         return expenseRepository.findByCategoryIdAndDateBetween(categoryId, startDate, endDate);
     }
     
+    @Transactional(readOnly = true)
     public List<Expense> searchByNote(String note) {
         return expenseRepository.findByNoteContainingIgnoreCase(note);
     }
     
-    public Page<Expense> findByCategoryId(Long categoryId, Pageable pageable) {
-        return expenseRepository.findByCategoryId(categoryId, pageable);
+    // Ranked note search from the in-memory index, combinable with category and date filters
+    @Transactional(readOnly = true)
+    public Page<ExpenseView> searchByNote(String query, Long categoryId, LocalDate startDate, LocalDate endDate, Pageable pageable) {
+        if (!noteSearchIndex.isReady()) {
+            return expenseRepository.searchByNote(query.trim(), categoryId, startDate, endDate, pageable);
+        }
+        
+        NoteSearchIndex.SearchResult result = noteSearchIndex.search(
+                query, categoryId, startDate, endDate, (int) pageable.getOffset(), pageable.getPageSize());
+        if (result.ids().isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, result.totalMatches());
+        }
+        Map<Long, ExpenseView> viewsById = new HashMap<>();
+        expenseRepository.findViewsByIdIn(result.ids()).forEach(view -> viewsById.put(view.id(), view));
+        List<ExpenseView> content = result.ids().stream()
+                .map(viewsById::get)
+                .filter(Objects::nonNull)
+                .toList();
+        return new PageImpl<>(content, pageable, result.totalMatches());
+    }
+    
+    // Paginated list views; category and date filters combine as in the keyset scroll
+    @Transactional(readOnly = true)
+    public Page<ExpenseView> findViews(Long categoryId, LocalDate startDate, LocalDate endDate, Pageable pageable) {
+        if (categoryId != null && startDate != null && endDate != null) {
+            return expenseRepository.findViewsByCategoryIdAndDateBetween(categoryId, startDate, endDate, pageable);
+        } else if (categoryId != null) {
+            return expenseRepository.findViewsByCategoryId(categoryId, pageable);
+        } else if (startDate != null && endDate != null) {
+            return expenseRepository.findViewsByDateBetween(startDate, endDate, pageable);
+        }
+        return expenseRepository.findViews(pageable);
     }
     
-    public Page<Expense> findByDateRange(LocalDate startDate, LocalDate endDate, Pageable pageable) {
-        return expenseRepository.findByDateBetween(startDate, endDate, pageable);
+    @Transactional(readOnly = true)
+    public Optional<ExpenseView> findViewById(Long id) {
+        return expenseRepository.findViewById(id);
     }
     
-    public Page<Expense> findByCategoryAndDateRange(Long categoryId, LocalDate startDate, LocalDate endDate, Pageable pageable) {
-        return expenseRepository.findByCategoryIdAndDateBetween(categoryId, startDate, endDate, pageable);
+    // Keyset pagination: cost is independent of how deep the cursor is.
+    // Category and date filters combine the same way as in the offset-paged list.
+    @Transactional(readOnly = true)
+    public CursorPage<ExpenseView> scroll(Long categoryId, LocalDate startDate, LocalDate endDate, String cursorToken, int size) {
+        ExpenseCursor cursor = ExpenseCursor.decode(cursorToken);
+        Pageable pageable = PageRequest.of(0, size);
+        Slice<ExpenseView> slice;
+        
+        if (categoryId != null && startDate != null && endDate != null) {
+            slice = expenseRepository.findByCategoryIdAndDateBetweenAfterCursor(
+                    categoryId, startDate, endDate, cursor.date(), cursor.id(), pageable);
+        } else if (categoryId != null) {
+            slice = expenseRepository.findByCategoryIdAfterCursor(categoryId, cursor.date(), cursor.id(), pageable);
+        } else if (startDate != null && endDate != null) {
+            slice = expenseRepository.findByDateBetweenAfterCursor(startDate, endDate, cursor.date(), cursor.id(), pageable);
+        } else {
+            slice = expenseRepository.findAfterCursor(cursor.date(), cursor.id(), pageable);
+        }
+        
+        List<ExpenseView> content = slice.getContent();
+        String nextCursor = null;
+        if (slice.hasNext()) {
+            ExpenseView last = content.get(content.size() - 1);
+            nextCursor = new ExpenseCursor(last.date(), last.id()).encode();
+        }
+        return new CursorPage<>(content, nextCursor, slice.hasNext());
     }
     
     public Expense updateExpense(Long id, Expense updatedExpense) {
+        Category category = resolveCategory(updatedExpense.getCategory());
         return expenseRepository.findById(id)
                 .map(existingExpense -> {
+                    Contribution previous = Contribution.of(existingExpense);
                     existingExpense.setAmount(updatedExpense.getAmount());
                     existingExpense.setDate(updatedExpense.getDate());
                     existingExpense.setNote(updatedExpense.getNote());
-                    existingExpense.setCategory(updatedExpense.getCategory());
-                    return expenseRepository.save(existingExpense);
+                    existingExpense.setCategory(category);
+                    Expense savedExpense = expenseRepository.saveAndFlush(existingExpense);
+                    rollupService.remove(previous);
+                    rollupService.add(Contribution.of(savedExpense));
+                    eventPublisher.publishEvent(new ExpenseChangedEvent(ChangeType.UPDATED, savedExpense));
+                    return savedExpense;
                 })
                 .orElseThrow(() -> new RuntimeException("Expense not found with id: " + id));
     }
     
     public void deleteExpense(Long id) {
-        if (!expenseRepository.existsById(id)) {
-            throw new RuntimeException("Expense not found with id: " + id);
+        Expense expense = expenseRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Expense not found with id: " + id));
+        expenseRepository.delete(expense);
+        expenseRepository.flush();
+        rollupService.remove(Contribution.of(expense));
+        eventPublisher.publishEvent(new ExpenseChangedEvent(ChangeType.DELETED, expense));
+    }
+    
+    // Batch lookup: one IN query; results follow the order of the ids
+    @Transactional(readOnly = true)
+    public List<BatchItemResult> findViewsByIds(List<Long> ids) {
+        List<Long> distinct = distinctIds(ids);
+        Map<Long, ExpenseView> viewsById = new HashMap<>();
+        expenseRepository.findViewsByIdIn(distinct).forEach(view -> viewsById.put(view.id(), view));
+        return distinct.stream()
+                .map(id -> viewsById.containsKey(id) ? BatchItemResult.ok(id, viewsById.get(id)) : BatchItemResult.notFound(id))
+                .toList();
+    }
+    
+    /**
+     * Applies the patches in one transaction: one IN fetch, JDBC-batched updates and one rollup delta
+     * per touched cell. Unknown or invalid items are reported and skipped without failing the others.
+     */
+    public List<BatchItemResult> updateExpenses(List<ExpensePatch> patches) {
+        checkBatchSize(patches.size());
+        Map<Long, Expense> expensesById = new HashMap<>();
+        Set<Long> ids = new HashSet<>();
+        patches.forEach(patch -> ids.add(patch.id()));
+        ids.remove(null);
+        if (!ids.isEmpty()) {
+            expenseRepository.findAllWithCategoryByIdIn(ids).forEach(expense -> expensesById.put(expense.getId(), expense));
+        }
+        
+        List<BatchItemResult> results = new ArrayList<>(patches.size());
+        List<Contribution> previous = new ArrayList<>();
+        List<Expense> updated = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        for (ExpensePatch patch : patches) {
+            if (patch.id() == null || !seen.add(patch.id())) {
+                results.add(BatchItemResult.invalid(patch.id(), patch.id() == null ? "Id is required" : "Duplicate id in batch"));
+                continue;
+            }
+            Expense expense = expensesById.get(patch.id());
+            if (expense == null) {
+                results.add(BatchItemResult.notFound(patch.id()));
+                continue;
+            }
+            Category category = expense.getCategory();
+            if (patch.categoryId() != null) {
+                Optional<Category> patched = findCategory(patch.categoryId());
+                if (patched.isEmpty()) {
+                    results.add(BatchItemResult.invalid(patch.id(), "Category not found with id: " + patch.categoryId()));
+                    continue;
+                }
+                category = patched.get();
+            }
+            // Validated as a copy, so a rejected patch leaves the managed entity untouched
+            Expense candidate = new Expense();
+            candidate.setAmount(patch.amount() != null ? patch.amount() : expense.getAmount());
+            candidate.setDate(patch.date() != null ? patch.date() : expense.getDate());
+            candidate.setNote(patch.note() != null ? patch.note() : expense.getNote());
+            candidate.setCategory(category);
+            Optional<String> violation = validator.validate(candidate).stream()
+                    .sorted(Comparator.comparing(error -> error.getPropertyPath().toString()))
+                    .map(ConstraintViolation::getMessage)
+                    .findFirst();
+            if (violation.isPresent()) {
+                results.add(BatchItemResult.invalid(patch.id(), violation.get()));
+                continue;
+            }
+            
+            previous.add(Contribution.of(expense));
+            expense.setAmount(candidate.getAmount());
+            expense.setDate(candidate.getDate());
+            expense.setNote(candidate.getNote());
+            expense.setCategory(category);
+            updated.add(expense);
+            results.add(BatchItemResult.ok(expense.getId(), ExpenseView.of(expense)));
+        }
+        if (updated.isEmpty()) {
+            return results;
+        }
+        
+        expenseRepository.flush();
+        rollupService.removeAll(previous);
+        rollupService.addAll(updated);
+        updated.forEach(expense -> eventPublisher.publishEvent(new ExpenseChangedEvent(ChangeType.UPDATED, expense)));
+        return results;
+    }
+    
+    // One IN fetch and one DELETE ... IN statement for the whole batch
+    public List<BatchItemResult> deleteExpenses(List<Long> ids) {
+        List<Long> distinct = distinctIds(ids);
+        List<Expense> expenses = distinct.isEmpty() ? List.of() : expenseRepository.findAllById(distinct);
+        if (!expenses.isEmpty()) {
+            expenseRepository.deleteAllByIdInBatch(expenses.stream().map(Expense::getId).toList());
+            rollupService.removeAll(expenses.stream().map(Contribution::of).toList());
+            expenses.forEach(expense -> eventPublisher.publishEvent(new ExpenseChangedEvent(ChangeType.DELETED, expense)));
+        }
+        Set<Long> deleted = new HashSet<>(expenses.stream().map(Expense::getId).toList());
+        return distinct.stream()
+                .map(id -> deleted.contains(id) ? BatchItemResult.ok(id, null) : BatchItemResult.notFound(id))
+                .toList();
+    }
+    
+    // Category ids come from the client; the foreign key is not tenant-scoped, so only the
+    // current tenant's categories are accepted. The cache misses a category created earlier
+    // in the caller's transaction, so a miss is checked with a tenant-restricted query.
+    private Category resolveCategory(Category category) {
+        Long categoryId = category != null ? category.getId() : null;
+        if (categoryId == null) {
+            throw new RuntimeException("Category is required");
+        }
+        return findCategory(categoryId)
+                .orElseThrow(() -> new RuntimeException("Category not found with id: " + categoryId));
+    }
+    
+    private Optional<Category> findCategory(Long categoryId) {
+        return categoryCache.findById(categoryId).or(() -> categoryRepository.findInTenantById(categoryId));
+    }
+    
+    private List<Long> distinctIds(List<Long> ids) {
+        checkBatchSize(ids.size());
+        Set<Long> distinct = new LinkedHashSet<>(ids);
+        distinct.remove(null);
+        return List.copyOf(distinct);
+    }
+    
+    private void checkBatchSize(int size) {
+        if (size > maxBatchSize) {
+            throw new RuntimeException("Batch of " + size + " expenses exceeds the limit of " + maxBatchSize);
         }
-        expenseRepository.deleteById(id);
     }
     
+    // Summaries are answered from the rollup cube; date ranges are always whole days,
+    // which is the cube's finest grain. They are query-cached, so they stay on the primary:
+    // a lagging replica's answer cached just after a write would outlive the invalidation.
     public BigDecimal getTotalAmountByCategory(Long categoryId) {
-        return expenseRepository.getTotalAmountByCategory(categoryId);
+        return rollupRepository.getTotalAmountByCategory(categoryId);
     }
     
     public BigDecimal getTotalAmountByDateRange(LocalDate startDate, LocalDate endDate) {
-        return expenseRepository.getTotalAmountByDateRange(startDate, endDate);
+        return rollupRepository.getTotalAmountByDateRange(startDate, endDate);
     }
     
     public BigDecimal getTotalAmountByCategoryAndDateRange(Long categoryId, LocalDate startDate, LocalDate endDate) {
-        return expenseRepository.getTotalAmountByCategoryAndDateRange(categoryId, startDate, endDate);
+        return rollupRepository.getTotalAmountByCategoryAndDateRange(categoryId, startDate, endDate);
     }
     
     public List<Object[]> getMonthlySummary(int year) {
-        return expenseRepository.getMonthlySummary(year);
+        return rollupRepository.getMonthlySummary(year);
     }
     
     public List<Object[]> getCategorySummary() {
-        return expenseRepository.getCategorySummary();
+        return rollupRepository.getCategorySummary();
     }
     
     public List<Object[]> getCategorySummaryByDateRange(LocalDate startDate, LocalDate endDate) {
-        return expenseRepository.getCategorySummaryByDateRange(startDate, endDate);
+        return rollupRepository.getCategorySummaryByDateRange(startDate, endDate);
+    }
+    
+    // Category name, total, count, min and max for a date range
+    public List<Object[]> getCategoryStatisticsByDateRange(LocalDate startDate, LocalDate endDate) {
+        return rollupRepository.getCategoryStatisticsByDateRange(startDate, endDate);
     }
     
+    // Served from the daily rollups instead of loading every expense
     public BigDecimal getTotalExpenses() {
-        return expenseRepository.findAll().stream()
-                .map(Expense::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return rollupService.getGrandTotal();
     }
 }
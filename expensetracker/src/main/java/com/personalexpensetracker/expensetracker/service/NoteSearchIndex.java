@@ -0,0 +1,575 @@
+package com.personalexpensetracker.expensetracker.service;
+
+import com.personalexpensetracker.expensetracker.config.ReadYourWrites;
+import com.personalexpensetracker.expensetracker.config.TenantContext;
+import com.personalexpensetracker.expensetracker.event.CategoryChangedEvent;
+import com.personalexpensetracker.expensetracker.event.ChangeType;
+import com.personalexpensetracker.expensetracker.event.ExpenseChangedEvent;
+import com.personalexpensetracker.expensetracker.event.ExpensesArchivedEvent;
+import com.personalexpensetracker.expensetracker.model.Expense;
+import com.personalexpensetracker.expensetracker.repository.ExpenseRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over {@link Expense#getNote()}.
+ * <p>
+ * Notes are split into lowercase alphanumeric terms. Every query term must match
+ * a note term, either exactly or as a prefix; exact matches rank higher, then newer
+ * expenses. Each expense occupies a document slot holding its id, date and category,
+ * so category/date filters are applied without touching the database.
+ * A query walks the postings of its rarest term and probes the others, keeping only
+ * the best {@code offset + limit} hits, so it allocates no per-posting objects.
+ * Updates tombstone the old slot and append a new one, which keeps postings sorted;
+ * slots and postings are compacted once half the slots are tombstones.
+ * The index is partitioned by tenant; searches only ever touch the current tenant's partition.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class NoteSearchIndex {
+    
+    private static final int REBUILD_BATCH_SIZE = 10_000;
+    private static final int EXACT_MATCH_SCORE = 2;
+    private static final int PREFIX_MATCH_SCORE = 1;
+    private static final int COMPACTION_MIN_DELETED = 1024;
+    
+    private final ExpenseRepository expenseRepository;
+    
+    // One partition per tenant, each with its own lock, so a busy tenant never blocks or bloats another's searches
+    private final Map<String, Partition> partitions = new ConcurrentHashMap<>();
+    
+    // Ids deleted while the startup rebuild is running, so the rebuild does not resurrect them
+    private volatile Set<Long> deletedDuringRebuild = ConcurrentHashMap.newKeySet();
+    private volatile boolean ready;
+    
+    public boolean isReady() {
+        return ready;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long started = System.nanoTime();
+        long afterId = 0;
+        int indexed = 0;
+        List<Object[]> batch;
+        do {
+            long after = afterId;
+            // From the primary: writes made while the index builds arrive as events and must not be missed.
+            // As the root tenant, so one pass loads every tenant's partition.
+            batch = TenantContext.asRoot(() -> ReadYourWrites.onPrimary(
+                    () -> expenseRepository.findNoteIndexBatch(after, PageRequest.of(0, REBUILD_BATCH_SIZE))));
+            for (Object[] row : batch) {
+                Long id = (Long) row[0];
+                if (partition((String) row[4]).addIfAbsent(id, (String) row[1], (LocalDate) row[2], (Long) row[3],
+                        deletedDuringRebuild)) {
+                    indexed++;
+                }
+                afterId = id;
+            }
+        } while (batch.size() == REBUILD_BATCH_SIZE);
+        
+        // Under every partition lock, so no concurrent delete is recorded in the discarded set
+        List<Partition> locked = new ArrayList<>(partitions.values());
+        locked.forEach(partition -> partition.lock.writeLock().lock());
+        try {
+            deletedDuringRebuild = null;
+            ready = true;
+        } finally {
+            locked.forEach(partition -> partition.lock.writeLock().unlock());
+        }
+        log.info("Note search index built: {} expenses across {} tenants in {} ms",
+                indexed, partitions.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onExpenseChanged(ExpenseChangedEvent event) {
+        Expense expense = event.expense();
+        Partition partition = partition(TenantContext.of(expense.getTenantId()));
+        partition.lock.writeLock().lock();
+        try {
+            partition.removeDocument(expense.getId());
+            if (event.type() == ChangeType.DELETED) {
+                Set<Long> deletedIds = deletedDuringRebuild;
+                if (deletedIds != null) {
+                    deletedIds.add(expense.getId());
+                }
+            } else {
+                partition.addDocument(expense.getId(), expense.getNote(), expense.getDate(), expense.getCategory().getId());
+            }
+            partition.compactIfSparse();
+        } finally {
+            partition.lock.writeLock().unlock();
+        }
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        if (event.type() != ChangeType.DELETED) {
+            return;
+        }
+        // Expenses of a deleted category are removed by cascade without their own events.
+        // Category ids are global, so only the owning tenant's partition has matching slots.
+        for (Partition partition : partitions.values()) {
+            partition.removeCategory(event.categoryId(), deletedDuringRebuild);
+        }
+    }
+    
+    // Archived expenses leave search along with the table, since results are loaded from it
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onExpensesArchived(ExpensesArchivedEvent event) {
+        Partition partition = partition(event.tenantId());
+        partition.lock.writeLock().lock();
+        try {
+            Set<Long> deletedIds = deletedDuringRebuild;
+            for (Long id : event.expenseIds()) {
+                partition.removeDocument(id);
+                if (deletedIds != null) {
+                    deletedIds.add(id);
+                }
+            }
+            partition.compactIfSparse();
+        } finally {
+            partition.lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Ranked search within the current tenant. Returns the requested page of expense ids and
+     * the total number of matches. Null filters are ignored.
+     */
+    public SearchResult search(String query, Long categoryId, LocalDate startDate, LocalDate endDate, int offset, int limit) {
+        List<String> terms = tokenize(query);
+        Partition partition = partitions.get(TenantContext.current());
+        if (terms.isEmpty() || partition == null) {
+            return new SearchResult(List.of(), 0);
+        }
+        long fromDay = startDate != null ? startDate.toEpochDay() : Long.MIN_VALUE;
+        long toDay = endDate != null ? endDate.toEpochDay() : Long.MAX_VALUE;
+        return partition.search(terms, categoryId, fromDay, toDay, offset, limit);
+    }
+    
+    // Slots of the current tenant, live or tombstoned
+    int slotCount() {
+        Partition partition = partitions.get(TenantContext.current());
+        if (partition == null) {
+            return 0;
+        }
+        partition.lock.readLock().lock();
+        try {
+            return partition.slotCount;
+        } finally {
+            partition.lock.readLock().unlock();
+        }
+    }
+    
+    private Partition partition(String tenant) {
+        return partitions.computeIfAbsent(tenant, key -> new Partition());
+    }
+    
+    static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                terms.add(lower.substring(start, i));
+                start = -1;
+            }
+        }
+        return terms;
+    }
+    
+    public record SearchResult(List<Long> ids, long totalMatches) {
+    }
+    
+    // The index of one tenant; all fields are guarded by the partition's lock
+    private static final class Partition {
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final NavigableMap<String, IntList> postings = new TreeMap<>();
+        private final Map<Long, Integer> slotsById = new HashMap<>();
+        private BitSet deleted = new BitSet();
+        private long[] slotIds = new long[1024];
+        private int[] slotEpochDays = new int[1024];
+        private long[] slotCategoryIds = new long[1024];
+        private int slotCount;
+        private int deletedCount;
+        
+        // Rebuild path: skips documents already indexed by an event or deleted meanwhile
+        boolean addIfAbsent(Long id, String note, LocalDate date, Long categoryId, Set<Long> deletedIds) {
+            lock.writeLock().lock();
+            try {
+                if (slotsById.containsKey(id) || deletedIds.contains(id)) {
+                    return false;
+                }
+                addDocument(id, note, date, categoryId);
+                return true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        
+        void removeCategory(long categoryId, Set<Long> deletedIds) {
+            lock.writeLock().lock();
+            try {
+                for (int slot = deleted.nextClearBit(0); slot < slotCount; slot = deleted.nextClearBit(slot + 1)) {
+                    if (slotCategoryIds[slot] == categoryId) {
+                        if (deletedIds != null) {
+                            deletedIds.add(slotIds[slot]);
+                        }
+                        removeDocument(slotIds[slot]);
+                    }
+                }
+                compactIfSparse();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        
+        SearchResult search(List<String> terms, Long categoryId, long fromDay, long toDay, int offset, int limit) {
+            lock.readLock().lock();
+            try {
+                List<TermMatch> matches = new ArrayList<>();
+                for (String term : new LinkedHashSet<>(terms)) {
+                    TermMatch match = new TermMatch(term);
+                    if (match.cost == 0) {
+                        return new SearchResult(List.of(), 0);
+                    }
+                    matches.add(match);
+                }
+                // The rarest term drives; the others are only probed for the slots it yields
+                matches.sort(Comparator.comparingLong(match -> match.cost));
+                TermMatch driver = matches.get(0);
+                TopHits top = new TopHits((int) Math.min((long) offset + limit, Integer.MAX_VALUE - 8));
+                long total = 0;
+                candidates:
+                for (int slot = driver.nextSlot(); slot >= 0; slot = driver.nextSlot()) {
+                    if (deleted.get(slot)
+                            || (categoryId != null && slotCategoryIds[slot] != categoryId)
+                            || slotEpochDays[slot] < fromDay || slotEpochDays[slot] > toDay) {
+                        continue;
+                    }
+                    int score = driver.matchedScore(slot);
+                    for (int i = 1; i < matches.size(); i++) {
+                        int termScore = matches.get(i).score(slot);
+                        if (termScore == 0) {
+                            continue candidates;
+                        }
+                        score += termScore;
+                    }
+                    total++;
+                    top.offer(slot, score);
+                }
+                
+                int[] ranked = top.ranked();
+                List<Long> ids = new ArrayList<>();
+                for (int i = offset; i < Math.min(ranked.length, (long) offset + limit); i++) {
+                    ids.add(slotIds[ranked[i]]);
+                }
+                return new SearchResult(ids, total);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+        
+        // Positive when slot a ranks before slot b: higher score, then newer, then higher id
+        private int compareHits(int slotA, int scoreA, int slotB, int scoreB) {
+            if (scoreA != scoreB) {
+                return Integer.compare(scoreA, scoreB);
+            }
+            if (slotEpochDays[slotA] != slotEpochDays[slotB]) {
+                return Integer.compare(slotEpochDays[slotA], slotEpochDays[slotB]);
+            }
+            return Long.compare(slotIds[slotA], slotIds[slotB]);
+        }
+        
+        private void addDocument(Long id, String note, LocalDate date, Long categoryId) {
+            int slot = slotCount++;
+            if (slot == slotIds.length) {
+                int capacity = slotIds.length * 2;
+                slotIds = Arrays.copyOf(slotIds, capacity);
+                slotEpochDays = Arrays.copyOf(slotEpochDays, capacity);
+                slotCategoryIds = Arrays.copyOf(slotCategoryIds, capacity);
+            }
+            slotIds[slot] = id;
+            slotEpochDays[slot] = (int) date.toEpochDay();
+            slotCategoryIds[slot] = categoryId;
+            slotsById.put(id, slot);
+            for (String term : new LinkedHashSet<>(tokenize(note))) {
+                postings.computeIfAbsent(term, key -> new IntList()).add(slot);
+            }
+        }
+        
+        private void removeDocument(Long id) {
+            Integer slot = slotsById.remove(id);
+            if (slot != null) {
+                // Postings are left in place and skipped at query time until the next compaction
+                deleted.set(slot);
+                deletedCount++;
+            }
+        }
+        
+        // Moves live slots down in order, so postings stay sorted, and drops the tombstones from them
+        private void compactIfSparse() {
+            if (deletedCount < COMPACTION_MIN_DELETED || deletedCount * 2 < slotCount) {
+                return;
+            }
+            int[] moved = new int[slotCount];
+            int live = 0;
+            for (int slot = 0; slot < slotCount; slot++) {
+                if (deleted.get(slot)) {
+                    moved[slot] = -1;
+                    continue;
+                }
+                moved[slot] = live;
+                slotIds[live] = slotIds[slot];
+                slotEpochDays[live] = slotEpochDays[slot];
+                slotCategoryIds[live] = slotCategoryIds[slot];
+                slotsById.put(slotIds[live], live);
+                live++;
+            }
+            Iterator<IntList> lists = postings.values().iterator();
+            while (lists.hasNext()) {
+                IntList list = lists.next();
+                int kept = 0;
+                for (int i = 0; i < list.size; i++) {
+                    int slot = moved[list.values[i]];
+                    if (slot >= 0) {
+                        list.values[kept++] = slot;
+                    }
+                }
+                if (kept == 0) {
+                    lists.remove();
+                } else {
+                    list.size = kept;
+                    list.values = Arrays.copyOf(list.values, Math.max(kept, 4));
+                }
+            }
+            int capacity = Math.max(1024, Integer.highestOneBit(Math.max(live, 1)) * 2);
+            slotIds = Arrays.copyOf(slotIds, capacity);
+            slotEpochDays = Arrays.copyOf(slotEpochDays, capacity);
+            slotCategoryIds = Arrays.copyOf(slotCategoryIds, capacity);
+            slotCount = live;
+            deletedCount = 0;
+            deleted = new BitSet();
+        }
+        
+        /**
+         * Slots matching one query term, in ascending order. A term matching a single posting list
+         * uses it in place; a prefix matching several is merged once, into a sorted array when its
+         * postings are sparse and a bitmap when they are dense. Scores are asked for in ascending
+         * slot order, so lookups resume from the previous position.
+         */
+        private final class TermMatch {
+            private final IntList exact;
+            private final long cost;
+            private int[] sorted;
+            private int size;
+            private BitSet bits;
+            private int position;
+            private int exactPosition;
+            
+            private TermMatch(String term) {
+                exact = postings.get(term);
+                List<IntList> lists = new ArrayList<>(postings.subMap(term, true, term + Character.MAX_VALUE, false).values());
+                long postingCount = 0;
+                for (IntList list : lists) {
+                    postingCount += list.size;
+                }
+                cost = postingCount;
+                if (lists.size() == 1) {
+                    sorted = lists.get(0).values;
+                    size = lists.get(0).size;
+                } else if (postingCount > slotCount >>> 5) {
+                    bits = new BitSet(slotCount);
+                    for (IntList list : lists) {
+                        for (int i = 0; i < list.size; i++) {
+                            bits.set(list.values[i]);
+                        }
+                    }
+                } else {
+                    sorted = new int[(int) postingCount];
+                    for (IntList list : lists) {
+                        System.arraycopy(list.values, 0, sorted, size, list.size);
+                        size += list.size;
+                    }
+                    Arrays.sort(sorted, 0, size);
+                    int unique = 0;
+                    for (int i = 0; i < size; i++) {
+                        if (unique == 0 || sorted[unique - 1] != sorted[i]) {
+                            sorted[unique++] = sorted[i];
+                        }
+                    }
+                    size = unique;
+                }
+            }
+            
+            // The next matching slot, or -1; only used on the driving term
+            private int nextSlot() {
+                if (bits != null) {
+                    int slot = bits.nextSetBit(position);
+                    position = slot + 1;
+                    return slot;
+                }
+                return position < size ? sorted[position++] : -1;
+            }
+            
+            // 0 when the slot does not match; slots are asked for in ascending order
+            private int score(int slot) {
+                if (bits != null) {
+                    if (!bits.get(slot)) {
+                        return 0;
+                    }
+                } else {
+                    position = seek(sorted, size, position, slot);
+                    if (position == size || sorted[position] != slot) {
+                        return 0;
+                    }
+                }
+                return matchedScore(slot);
+            }
+            
+            // Score of a slot known to match
+            private int matchedScore(int slot) {
+                if (exact == null) {
+                    return PREFIX_MATCH_SCORE;
+                }
+                exactPosition = seek(exact.values, exact.size, exactPosition, slot);
+                return exactPosition < exact.size && exact.values[exactPosition] == slot ? EXACT_MATCH_SCORE : PREFIX_MATCH_SCORE;
+            }
+        }
+        
+        // The best hits seen so far, at most capacity of them, in a heap with the worst on top
+        private final class TopHits {
+            private final int capacity;
+            private int[] slots;
+            private int[] scores;
+            private int size;
+            
+            private TopHits(int capacity) {
+                this.capacity = capacity;
+                this.slots = new int[Math.min(capacity, 64)];
+                this.scores = new int[slots.length];
+            }
+            
+            private void offer(int slot, int score) {
+                if (capacity == 0) {
+                    return;
+                }
+                if (size < capacity) {
+                    if (size == slots.length) {
+                        int grown = (int) Math.min((long) size * 2, capacity);
+                        slots = Arrays.copyOf(slots, grown);
+                        scores = Arrays.copyOf(scores, grown);
+                    }
+                    slots[size] = slot;
+                    scores[size] = score;
+                    siftUp(size++);
+                } else if (compareHits(slot, score, slots[0], scores[0]) > 0) {
+                    slots[0] = slot;
+                    scores[0] = score;
+                    siftDown(0);
+                }
+            }
+            
+            // Slots best first; empties the heap
+            private int[] ranked() {
+                int[] ranked = new int[size];
+                for (int i = size - 1; i >= 0; i--) {
+                    ranked[i] = slots[0];
+                    size--;
+                    slots[0] = slots[size];
+                    scores[0] = scores[size];
+                    siftDown(0);
+                }
+                return ranked;
+            }
+            
+            private void siftUp(int index) {
+                while (index > 0) {
+                    int parent = (index - 1) >>> 1;
+                    if (compareHits(slots[index], scores[index], slots[parent], scores[parent]) >= 0) {
+                        return;
+                    }
+                    swap(index, parent);
+                    index = parent;
+                }
+            }
+            
+            private void siftDown(int index) {
+                while (true) {
+                    int worst = index;
+                    for (int child = 2 * index + 1; child <= 2 * index + 2 && child < size; child++) {
+                        if (compareHits(slots[child], scores[child], slots[worst], scores[worst]) < 0) {
+                            worst = child;
+                        }
+                    }
+                    if (worst == index) {
+                        return;
+                    }
+                    swap(index, worst);
+                    index = worst;
+                }
+            }
+            
+            private void swap(int a, int b) {
+                int slot = slots[a];
+                slots[a] = slots[b];
+                slots[b] = slot;
+                int score = scores[a];
+                scores[a] = scores[b];
+                scores[b] = score;
+            }
+        }
+    }
+    
+    // First index at or after from whose value is at least target, galloping then binary search
+    private static int seek(int[] values, int size, int from, int target) {
+        int low = from;
+        int high = from;
+        int step = 1;
+        while (high < size && values[high] < target) {
+            low = high + 1;
+            high += step;
+            step <<= 1;
+        }
+        high = Math.min(high, size);
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] < target) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+    
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+        
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
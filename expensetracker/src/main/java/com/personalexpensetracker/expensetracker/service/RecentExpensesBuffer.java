@@ -0,0 +1,147 @@
+package com.personalexpensetracker.expensetracker.service;
+
+import com.personalexpensetracker.expensetracker.config.TenantContext;
+import com.personalexpensetracker.expensetracker.event.CategoryChangedEvent;
+import com.personalexpensetracker.expensetracker.event.ChangeType;
+import com.personalexpensetracker.expensetracker.event.ExpenseChangedEvent;
+import com.personalexpensetracker.expensetracker.event.ExpensesArchivedEvent;
+import com.personalexpensetracker.expensetracker.model.Expense;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+
+/**
+ * Keeps the newest expenses (by date, then id) in memory for the dashboard.
+ * Writes are applied after commit; anything the buffer cannot apply safely
+ * just marks it stale so the next read reloads it with one top-N query.
+ * Each tenant has its own buffer.
+ */
+@Component
+public class RecentExpensesBuffer {
+    
+    private static final Comparator<Expense> NEWEST_FIRST =
+            Comparator.comparing(Expense::getDate).thenComparing(Expense::getId).reversed();
+    
+    private final int capacity;
+    
+    // One buffer per tenant; each is guarded by its own monitor
+    private final Map<String, Buffer> buffers = new ConcurrentHashMap<>();
+    
+    public RecentExpensesBuffer(@Value("${expensetracker.recent-expenses.buffer-size:20}") int capacity) {
+        this.capacity = capacity;
+    }
+    
+    public int getCapacity() {
+        return capacity;
+    }
+    
+    // The current tenant's newest expenses
+    public List<Expense> getRecent(int limit, IntFunction<List<Expense>> loader) {
+        if (limit > capacity) {
+            return loader.apply(limit);
+        }
+        
+        Buffer buffer = buffer(TenantContext.current());
+        long loadVersion;
+        synchronized (buffer) {
+            if (buffer.entries != null && (buffer.entries.size() >= limit || buffer.exhaustive)) {
+                return List.copyOf(buffer.entries.subList(0, Math.min(limit, buffer.entries.size())));
+            }
+            loadVersion = buffer.version;
+        }
+        
+        List<Expense> loaded = loader.apply(capacity);
+        synchronized (buffer) {
+            // Only keep the result if no write happened while we were loading
+            if (buffer.version == loadVersion) {
+                buffer.entries = new ArrayList<>(loaded);
+                buffer.exhaustive = loaded.size() < capacity;
+            }
+        }
+        return List.copyOf(loaded.subList(0, Math.min(limit, loaded.size())));
+    }
+    
+    // Every tenant's buffer
+    public void invalidate() {
+        for (Buffer buffer : buffers.values()) {
+            synchronized (buffer) {
+                buffer.version++;
+                buffer.entries = null;
+            }
+        }
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onExpenseChanged(ExpenseChangedEvent event) {
+        Expense expense = event.expense();
+        Buffer buffer = buffer(TenantContext.of(expense.getTenantId()));
+        synchronized (buffer) {
+            buffer.version++;
+            if (buffer.entries == null) {
+                return;
+            }
+            
+            // Invariant: entries holds every expense newer than its last element
+            buffer.entries.removeIf(entry -> entry.getId().equals(expense.getId()));
+            if (event.type() == ChangeType.DELETED || !buffer.ranks(expense)) {
+                return;
+            }
+            if (!isRenderable(expense)) {
+                buffer.entries = null;
+                return;
+            }
+            
+            int index = 0;
+            while (index < buffer.entries.size() && NEWEST_FIRST.compare(buffer.entries.get(index), expense) < 0) {
+                index++;
+            }
+            buffer.entries.add(index, expense);
+            if (buffer.entries.size() > capacity) {
+                buffer.entries.remove(buffer.entries.size() - 1);
+                buffer.exhaustive = false;
+            }
+        }
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        // Renamed categories change what we display, deleted ones cascade to their expenses
+        if (event.type() != ChangeType.CREATED) {
+            invalidate();
+        }
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onExpensesArchived(ExpensesArchivedEvent event) {
+        invalidate();
+    }
+    
+    private Buffer buffer(String tenant) {
+        return buffers.computeIfAbsent(tenant, key -> new Buffer());
+    }
+    
+    // The dashboard shows the category name, so only keep expenses that carry it without a lazy load
+    private boolean isRenderable(Expense expense) {
+        return expense.getCategory() != null && Hibernate.isInitialized(expense.getCategory())
+                && expense.getCategory().getName() != null;
+    }
+    
+    private static final class Buffer {
+        private List<Expense> entries;
+        // True when the last load returned fewer rows than requested, i.e. the buffer holds every expense
+        private boolean exhaustive;
+        private long version;
+        
+        private boolean ranks(Expense expense) {
+            return exhaustive || (!entries.isEmpty() && NEWEST_FIRST.compare(expense, entries.get(entries.size() - 1)) < 0);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+-- Schema as previously created by ddl-auto=update. Databases that already have (part of) it are
+-- baselined at version 0 (spring.flyway.baseline-version) and run this script too, so it only
+-- creates what is missing: the rollup table did not exist in every ddl-auto=update version.
+-- Secondary indexes are left to V2 and V4, which replace the single-tenant ones; V5 drops
+-- those where ddl-auto=update created them.
+
+CREATE TABLE IF NOT EXISTS categories (
+    id          BIGINT       NOT NULL AUTO_INCREMENT,
+    name        VARCHAR(50)  NOT NULL,
+    description VARCHAR(200),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_categories_name UNIQUE (name)
+) ENGINE = InnoDB;
+
+CREATE TABLE IF NOT EXISTS expenses (
+    id          BIGINT        NOT NULL AUTO_INCREMENT,
+    amount      DECIMAL(12,2) NOT NULL,
+    date        DATE          NOT NULL,
+    note        VARCHAR(500),
+    category_id BIGINT        NOT NULL,
+    created_at  DATE          NOT NULL,
+    updated_at  DATE,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_expenses_category FOREIGN KEY (category_id) REFERENCES categories (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE IF NOT EXISTS expense_daily_rollups (
+    id            BIGINT        NOT NULL AUTO_INCREMENT,
+    category_id   BIGINT        NOT NULL,
+    rollup_date   DATE          NOT NULL,
+    rollup_year   INTEGER       NOT NULL,
+    rollup_month  INTEGER       NOT NULL,
+    total_amount  DECIMAL(19,2) NOT NULL,
+    expense_count BIGINT        NOT NULL,
+    min_amount    DECIMAL(12,2) NOT NULL,
+    max_amount    DECIMAL(12,2) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_rollup_category_date UNIQUE (category_id, rollup_date)
+) ENGINE = InnoDB;
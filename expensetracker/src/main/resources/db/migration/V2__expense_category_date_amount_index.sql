@@ -0,0 +1,2 @@
+-- Category and category + date range queries, covering SUM(amount)
+CREATE INDEX idx_expenses_category_date_amount ON expenses (category_id, date, amount);
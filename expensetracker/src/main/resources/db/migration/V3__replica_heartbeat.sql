@@ -0,0 +1,5 @@
+-- Written on the primary by the replica health checker and read back on each replica to measure lag
+CREATE TABLE replica_heartbeat (
+    id INT NOT NULL PRIMARY KEY,
+    beat_at BIGINT NOT NULL
+);
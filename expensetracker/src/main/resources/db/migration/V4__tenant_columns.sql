@@ -0,0 +1,17 @@
+-- Per-tenant data: every table gets the owning tenant, existing rows go to the default tenant.
+-- Hibernate adds tenant_id = ? to every entity query, so the indexes lead with it.
+ALTER TABLE categories ADD COLUMN tenant_id VARCHAR(64) NOT NULL DEFAULT 'default';
+ALTER TABLE expenses ADD COLUMN tenant_id VARCHAR(64) NOT NULL DEFAULT 'default';
+ALTER TABLE expense_daily_rollups ADD COLUMN tenant_id VARCHAR(64) NOT NULL DEFAULT 'default';
+
+-- Category names are unique per tenant; V5 (LegacySchemaMigration) drops the global key,
+-- whose name depends on how the database was created
+ALTER TABLE categories ADD CONSTRAINT uk_categories_tenant_name UNIQUE (tenant_id, name);
+
+-- Newest-first lists and date ranges within a tenant; category lookups keep
+-- idx_expenses_category_date_amount, since a category belongs to exactly one tenant.
+-- They supersede the single-tenant indexes, which V5 drops where they exist.
+CREATE INDEX idx_expenses_tenant_date_id ON expenses (tenant_id, date DESC, id DESC);
+
+CREATE INDEX idx_rollup_tenant_date ON expense_daily_rollups (tenant_id, rollup_date);
+CREATE INDEX idx_rollup_tenant_year_month ON expense_daily_rollups (tenant_id, rollup_year, rollup_month);
@@ -0,0 +1,7 @@
+-- Per-tenant data version, bumped in every transaction that writes a tenant's expenses or categories.
+-- ETags are built from it, so they stay valid across restarts and agree between instances.
+CREATE TABLE data_versions (
+    tenant_id VARCHAR(64) NOT NULL PRIMARY KEY,
+    version BIGINT NOT NULL,
+    modified_at BIGINT NOT NULL
+);
@@ -0,0 +1,30 @@
+-- Optional, MySQL only, not run by Flyway (see also partition_expenses_by_year.sql, which combines
+-- this with range partitioning by date): hash-partitions the expenses table by tenant so that
+-- each tenant's rows, and its slice of every index, live in one of 16 physical partitions.
+-- Every query carries tenant_id = ?, so MySQL prunes to a single partition and a heavy tenant's
+-- index pages never mix with a light tenant's.
+--
+-- Caveats, which is why this is not a regular migration:
+--  * MySQL does not allow foreign keys on partitioned tables, so the foreign key to categories is dropped
+--    and category integrity is left to the application (category deletes already cascade in JPA).
+--  * Every unique key must contain the partitioning column, so the primary key becomes (id, tenant_id).
+--    id stays AUTO_INCREMENT and globally unique; lookups by id alone check every partition,
+--    but Hibernate always adds the tenant, which prunes them.
+--  * The ALTER rebuilds the whole table; run it in a maintenance window or with an online
+--    schema change tool.
+--  * ddl-auto=validate still passes afterwards; future Flyway migrations on expenses must
+--    respect the rules above.
+
+-- The foreign key to categories is fk_expenses_category when V1 created the table, but has a
+-- Hibernate-generated name on databases baselined from ddl-auto=update, so look it up
+SET @drop_fk = IFNULL((SELECT CONCAT('ALTER TABLE expenses DROP FOREIGN KEY ', constraint_name)
+                       FROM information_schema.referential_constraints
+                       WHERE constraint_schema = DATABASE() AND table_name = 'expenses'
+                         AND referenced_table_name = 'categories'), 'DO 0');
+PREPARE drop_fk FROM @drop_fk;
+EXECUTE drop_fk;
+DEALLOCATE PREPARE drop_fk;
+
+ALTER TABLE expenses DROP PRIMARY KEY, ADD PRIMARY KEY (id, tenant_id);
+
+ALTER TABLE expenses PARTITION BY KEY (tenant_id) PARTITIONS 16;
@@ -0,0 +1,38 @@
+-- Optional, MySQL only, not run by Flyway: range-partitions the expenses table by year of date,
+-- with each year hash-subpartitioned by tenant. It replaces partition_expenses_by_tenant.sql;
+-- apply one or the other. Queries filter on date ranges (never YEAR(date)), so MySQL prunes
+-- to the years a query covers: the dashboard and the default summaries read one partition.
+--
+-- The expense archiver deletes closed years row by row. Once a year is archived for every
+-- tenant its partition is empty and can be dropped to return the space at once:
+--     ALTER TABLE expenses DROP PARTITION p2022;
+-- Before a new year starts, split the catch-all partition (cheap while it is still empty):
+--     ALTER TABLE expenses REORGANIZE PARTITION p_future INTO
+--         (PARTITION p2027 VALUES LESS THAN ('2028-01-01'), PARTITION p_future VALUES LESS THAN (MAXVALUE));
+--
+-- Same caveats as the tenant layout: no foreign key to categories, and the primary key must
+-- contain every partitioning column, so it becomes (id, tenant_id, date). The ALTER rebuilds
+-- the whole table.
+
+-- The foreign key to categories is fk_expenses_category when V1 created the table, but has a
+-- Hibernate-generated name on databases baselined from ddl-auto=update, so look it up
+SET @drop_fk = IFNULL((SELECT CONCAT('ALTER TABLE expenses DROP FOREIGN KEY ', constraint_name)
+                       FROM information_schema.referential_constraints
+                       WHERE constraint_schema = DATABASE() AND table_name = 'expenses'
+                         AND referenced_table_name = 'categories'), 'DO 0');
+PREPARE drop_fk FROM @drop_fk;
+EXECUTE drop_fk;
+DEALLOCATE PREPARE drop_fk;
+
+ALTER TABLE expenses DROP PRIMARY KEY, ADD PRIMARY KEY (id, tenant_id, date);
+
+ALTER TABLE expenses
+    PARTITION BY RANGE COLUMNS (date)
+    SUBPARTITION BY KEY (tenant_id) SUBPARTITIONS 4 (
+        PARTITION p_old  VALUES LESS THAN ('2023-01-01'),
+        PARTITION p2023  VALUES LESS THAN ('2024-01-01'),
+        PARTITION p2024  VALUES LESS THAN ('2025-01-01'),
+        PARTITION p2025  VALUES LESS THAN ('2026-01-01'),
+        PARTITION p2026  VALUES LESS THAN ('2027-01-01'),
+        PARTITION p_future VALUES LESS THAN (MAXVALUE)
+    );
@@ -0,0 +1,34 @@
+// Live page updates from /expenses/api/stream. The browser reconnects by itself and resends the last
+// event id, so the server replays missed change batches; "reset" means too much was missed to replay.
+window.liveUpdates = function (url, handlers) {
+    if (!window.EventSource) {
+        return null;
+    }
+    const source = new EventSource(url);
+    ['changes', 'totals', 'reset'].forEach(function (name) {
+        if (handlers[name]) {
+            source.addEventListener(name, function (event) {
+                handlers[name](JSON.parse(event.data));
+            });
+        }
+    });
+    return source;
+};
+
+window.liveUpdates.formatAmount = function (amount) {
+    return Number(amount || 0).toFixed(2);
+};
+
+// True when a change batch could alter what a list of expenses shows
+window.liveUpdates.touchesList = function (batch) {
+    return batch.truncated || batch.categoriesChanged || batch.expenses.length > 0;
+};
+
+// Reveals a hidden notice element asking to reload the page
+window.liveUpdates.showNotice = function (id, text) {
+    const notice = document.getElementById(id);
+    if (notice) {
+        notice.querySelector('[data-live-text]').textContent = text;
+        notice.classList.remove('d-none');
+    }
+};
@@ -0,0 +1,129 @@
+package com.personalexpensetracker.expensetracker;
+
+import com.personalexpensetracker.expensetracker.config.LegacySchemaMigration;
+import com.personalexpensetracker.expensetracker.repository.ExpenseRepository;
+import com.personalexpensetracker.expensetracker.service.CategoryService;
+import com.personalexpensetracker.expensetracker.service.ExpenseRollupService;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Runs the real migrations with ddl-auto=validate, then checks the background seeding
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:migrations;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "expensetracker.seed.enabled=true"
+})
+class FlywayMigrationTests {
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private CategoryService categoryService;
+    
+    @Autowired
+    private ExpenseRepository expenseRepository;
+    
+    @Autowired
+    private ExpenseRollupService rollupService;
+    
+    @Test
+    void migrationsMatchTheEntitiesAndSeedingRunsAfterReadiness() throws InterruptedException {
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT MAX(version) FROM \"flyway_schema_history\" WHERE success", String.class)).isEqualTo("6");
+        // Only the per-tenant key is left on category names
+        assertThat(jdbcTemplate.queryForList("SELECT constraint_name FROM information_schema.table_constraints"
+                + " WHERE table_name = 'categories' AND constraint_type = 'UNIQUE'", String.class))
+                .containsExactly("uk_categories_tenant_name");
+        
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (expenseRepository.count() < 10 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(categoryService.findAll()).hasSize(9);
+        assertThat(expenseRepository.count()).isEqualTo(10);
+        assertThat(rollupService.verify().isConsistent()).isTrue();
+    }
+    
+    @Test
+    void upgradesTheSchemaOfTheOriginalDdlAutoUpdate() {
+        String url = "jdbc:h2:mem:legacy_original;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+        JdbcTemplate legacy = legacyDatabase(url);
+        
+        migrate(url);
+        
+        assertThat(legacy.queryForObject("SELECT tenant_id FROM expenses", String.class)).isEqualTo("default");
+        assertThat(legacy.queryForObject("SELECT COUNT(*) FROM expense_daily_rollups", Integer.class)).isZero();
+        assertThat(indexes(legacy, "expenses")).contains("idx_expenses_tenant_date_id", "idx_expenses_category_date_amount");
+        assertThat(uniqueKeys(legacy)).containsExactly("uk_categories_tenant_name");
+    }
+    
+    @Test
+    void upgradesTheSchemaOfALaterDdlAutoUpdate() {
+        String url = "jdbc:h2:mem:legacy_rollups;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+        JdbcTemplate legacy = legacyDatabase(url);
+        // Rollups and single-tenant indexes, as ddl-auto=update created them before the migrations
+        legacy.execute("CREATE INDEX idx_expenses_date_id ON expenses (date DESC, id DESC)");
+        legacy.execute("CREATE TABLE expense_daily_rollups (id BIGINT AUTO_INCREMENT PRIMARY KEY,"
+                + " category_id BIGINT NOT NULL, expense_count BIGINT NOT NULL, max_amount DECIMAL(12,2) NOT NULL,"
+                + " min_amount DECIMAL(12,2) NOT NULL, rollup_date DATE NOT NULL, rollup_month INTEGER NOT NULL,"
+                + " rollup_year INTEGER NOT NULL, total_amount DECIMAL(19,2) NOT NULL,"
+                + " CONSTRAINT uk_rollup_category_date UNIQUE (category_id, rollup_date))");
+        legacy.execute("CREATE INDEX idx_rollup_date ON expense_daily_rollups (rollup_date)");
+        legacy.execute("CREATE INDEX idx_rollup_year_month ON expense_daily_rollups (rollup_year, rollup_month)");
+        legacy.update("INSERT INTO expense_daily_rollups (category_id, expense_count, max_amount, min_amount, rollup_date,"
+                + " rollup_month, rollup_year, total_amount) VALUES (1, 1, 5.00, 5.00, DATE '2024-03-01', 3, 2024, 5.00)");
+        
+        migrate(url);
+        
+        assertThat(legacy.queryForObject("SELECT tenant_id FROM expense_daily_rollups", String.class)).isEqualTo("default");
+        assertThat(indexes(legacy, "expenses")).contains("idx_expenses_tenant_date_id").doesNotContain("idx_expenses_date_id");
+        assertThat(indexes(legacy, "expense_daily_rollups")).contains("idx_rollup_tenant_date", "idx_rollup_tenant_year_month")
+                .doesNotContain("idx_rollup_date", "idx_rollup_year_month");
+        assertThat(uniqueKeys(legacy)).containsExactly("uk_categories_tenant_name");
+    }
+    
+    // Categories and expenses as the original ddl-auto=update created them, with Hibernate's key names
+    private JdbcTemplate legacyDatabase(String url) {
+        JdbcTemplate legacy = new JdbcTemplate(new DriverManagerDataSource(url, "sa", ""));
+        legacy.execute("CREATE TABLE categories (id BIGINT AUTO_INCREMENT PRIMARY KEY, description VARCHAR(200),"
+                + " name VARCHAR(50) NOT NULL, CONSTRAINT uk_t8o6pivur7nn124jehx7cygw5 UNIQUE (name))");
+        legacy.execute("CREATE TABLE expenses (id BIGINT AUTO_INCREMENT PRIMARY KEY, amount DECIMAL(12,2) NOT NULL,"
+                + " created_at DATE NOT NULL, date DATE NOT NULL, note VARCHAR(500), updated_at DATE,"
+                + " category_id BIGINT NOT NULL,"
+                + " CONSTRAINT fkpqh0v1ld0uy5wguh2ys1lrtfy FOREIGN KEY (category_id) REFERENCES categories (id))");
+        legacy.update("INSERT INTO categories (name) VALUES ('Legacy')");
+        legacy.update("INSERT INTO expenses (amount, created_at, date, category_id) VALUES (5.00, DATE '2024-03-01', DATE '2024-03-01', 1)");
+        return legacy;
+    }
+    
+    // As the application configures it: a database without migration history is baselined at 0
+    private void migrate(String url) {
+        Flyway flyway = Flyway.configure()
+                .dataSource(url, "sa", "")
+                .baselineOnMigrate(true)
+                .baselineVersion("0")
+                .javaMigrations(new LegacySchemaMigration())
+                .load();
+        flyway.migrate();
+        assertThat(flyway.info().current().getVersion().getVersion()).isEqualTo("6");
+    }
+    
+    private List<String> indexes(JdbcTemplate database, String table) {
+        return database.queryForList("SELECT index_name FROM information_schema.indexes WHERE table_name = ?", String.class, table);
+    }
+    
+    private List<String> uniqueKeys(JdbcTemplate database) {
+        return database.queryForList("SELECT constraint_name FROM information_schema.table_constraints"
+                + " WHERE table_name = 'categories' AND constraint_type = 'UNIQUE'", String.class);
+    }
+}
@@ -0,0 +1,55 @@
+package com.personalexpensetracker.expensetracker;
+
+import com.personalexpensetracker.expensetracker.repository.ExpenseRepository;
+import com.personalexpensetracker.expensetracker.service.CategoryService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "management.endpoints.web.exposure.include=prometheus",
+        "management.observations.annotations.enabled=true"
+})
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+class MetricsEndpointTests {
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private CategoryService categoryService;
+    
+    @Autowired
+    private ExpenseRepository expenseRepository;
+    
+    @Test
+    void exposesServiceRepositoryHibernateAndPoolMetrics() throws Exception {
+        categoryService.findAll();
+        expenseRepository.count();
+        mockMvc.perform(get("/categories/api")).andExpect(status().isOk());
+        
+        String scrape = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        
+        assertThat(scrape)
+                .containsPattern("expensetracker_service_seconds_count\\{[^}]*class=\"[^\"]*CategoryService\"[^}]*method=\"findAll\"")
+                .containsPattern("expensetracker_service_seconds_bucket\\{")
+                .containsPattern("spring_data_repository_invocations_seconds_count\\{[^}]*method=\"count\"[^}]*repository=\"ExpenseRepository\"")
+                .contains("hibernate_query_executions_total")
+                .contains("hibernate_entities_loads_total")
+                .contains("hibernate_cache_query_requests_total")
+                .contains("hibernate_second_level_cache_requests_total")
+                .contains("expensetracker_hibernate_cache_hit_ratio{region=\"categories\"")
+                .contains("hikaricp_connections_active")
+                .contains("expensetracker_startup_first_request_seconds");
+    }
+}
@@ -0,0 +1,79 @@
+package com.personalexpensetracker.expensetracker.config;
+
+import com.personalexpensetracker.expensetracker.model.Category;
+import com.personalexpensetracker.expensetracker.model.Expense;
+import com.personalexpensetracker.expensetracker.repository.ExpenseRepository;
+import com.personalexpensetracker.expensetracker.service.CategoryService;
+import com.personalexpensetracker.expensetracker.service.ExpenseRollupService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:generator;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "expensetracker.generator.expenses=3000",
+        "expensetracker.generator.batch-size=250",
+        "expensetracker.generator.producers=4"
+})
+@ActiveProfiles("generator")
+class ExpenseDataGeneratorTests {
+    
+    @Autowired
+    private ExpenseDataGenerator generator;
+    
+    @Autowired
+    private CategoryService categoryService;
+    
+    @Autowired
+    private ExpenseRepository expenseRepository;
+    
+    @Autowired
+    private ExpenseRollupService rollupService;
+    
+    @Test
+    void fillsTheDatabaseThroughParallelBatches() {
+        assertThat(categoryService.findAll()).hasSize(10);
+        assertThat(expenseRepository.count()).isEqualTo(3000);
+        assertThat(rollupService.verify().isConsistent()).isTrue();
+    }
+    
+    @Test
+    void chunksAreReproducibleAndSkewed() {
+        List<Category> categories = categoryService.findAll();
+        double[] weights = generator.zipfCumulativeWeights(categories.size());
+        
+        List<String> run1 = new ArrayList<>();
+        List<String> run2 = new ArrayList<>();
+        List<Expense> all = new ArrayList<>();
+        for (int chunk = 0; chunk < 12; chunk++) {
+            List<Expense> batch = generator.generateChunk(chunk, 12, categories, weights);
+            batch.forEach(expense -> run1.add(describe(expense)));
+            generator.generateChunk(chunk, 12, categories, weights).forEach(expense -> run2.add(describe(expense)));
+            all.addAll(batch);
+        }
+        assertThat(run1).hasSize(3000).isEqualTo(run2);
+        
+        // Default window: three years ending 2025-12-31
+        assertThat(all).allSatisfy(expense -> assertThat(expense.getDate())
+                .isBetween(LocalDate.of(2023, 1, 1), LocalDate.of(2025, 12, 31)));
+        Map<Long, Long> perCategory = all.stream()
+                .collect(Collectors.groupingBy(expense -> expense.getCategory().getId(), Collectors.counting()));
+        // Popularity follows list position: the first category is about 12x as frequent as the tenth
+        long first = perCategory.get(categories.get(0).getId());
+        long tenth = perCategory.get(categories.get(9).getId());
+        assertThat(first).isGreaterThan(tenth * 4);
+    }
+    
+    private String describe(Expense expense) {
+        return expense.getDate() + " " + expense.getAmount() + " " + expense.getCategory().getId() + " " + expense.getNote();
+    }
+}
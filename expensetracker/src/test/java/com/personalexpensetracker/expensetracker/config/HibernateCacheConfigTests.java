@@ -0,0 +1,82 @@
+package com.personalexpensetracker.expensetracker.config;
+
+import com.personalexpensetracker.expensetracker.model.Category;
+import com.personalexpensetracker.expensetracker.model.Expense;
+import com.personalexpensetracker.expensetracker.service.CategoryService;
+import com.personalexpensetracker.expensetracker.service.ExpenseService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class HibernateCacheConfigTests {
+    
+    private static final LocalDate DAY = LocalDate.of(2020, 2, 14);
+    
+    @Autowired
+    private ExpenseService expenseService;
+    
+    @Autowired
+    private CategoryService categoryService;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Test
+    void summaryQueriesAreCachedUntilAnExpenseIsWritten() {
+        Category category = categoryService.saveCategory(new Category("Query Cache", null));
+        expenseService.saveExpense(expense(category, "4.00"));
+        Statistics statistics = statistics();
+        
+        assertThat(expenseService.getTotalAmountByCategoryAndDateRange(category.getId(), DAY, DAY)).isEqualByComparingTo("4.00");
+        long hits = statistics.getQueryCacheHitCount();
+        assertThat(expenseService.getTotalAmountByCategoryAndDateRange(category.getId(), DAY, DAY)).isEqualByComparingTo("4.00");
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(hits + 1);
+        
+        // The rollup write invalidates the cached result
+        expenseService.saveExpense(expense(category, "6.00"));
+        assertThat(expenseService.getTotalAmountByCategoryAndDateRange(category.getId(), DAY, DAY)).isEqualByComparingTo("10.00");
+    }
+    
+    @Test
+    void categoriesAreServedFromTheSecondLevelCache() {
+        Category category = categoryService.saveCategory(new Category("Entity Cache", null));
+        Statistics statistics = statistics();
+        entityManagerFactory.getCache().evict(Category.class);
+        
+        transactionTemplate.executeWithoutResult(status -> categoryService.findAll());
+        long hits = statistics.getCacheRegionStatistics("categories").getHitCount();
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            assertThat(entityManager.find(Category.class, category.getId())).isNotNull();
+        } finally {
+            entityManager.close();
+        }
+        assertThat(statistics.getCacheRegionStatistics("categories").getHitCount()).isGreaterThan(hits);
+    }
+    
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+    
+    private Expense expense(Category category, String amount) {
+        Expense expense = new Expense();
+        expense.setAmount(new BigDecimal(amount));
+        expense.setDate(DAY);
+        expense.setCategory(category);
+        return expense;
+    }
+}
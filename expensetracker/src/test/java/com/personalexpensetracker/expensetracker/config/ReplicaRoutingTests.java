@@ -0,0 +1,180 @@
+package com.personalexpensetracker.expensetracker.config;
+
+import com.personalexpensetracker.expensetracker.dto.Dashboard;
+import com.personalexpensetracker.expensetracker.model.Category;
+import com.personalexpensetracker.expensetracker.model.Expense;
+import com.personalexpensetracker.expensetracker.service.CategoryService;
+import com.personalexpensetracker.expensetracker.service.DashboardService;
+import com.personalexpensetracker.expensetracker.service.ExpenseService;
+import jakarta.servlet.http.Cookie;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Two H2 databases stand in for a primary and its replica; the test "replicates" the heartbeat by hand
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + ReplicaRoutingTests.PRIMARY_URL,
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "expensetracker.datasource.routing.enabled=true",
+        "expensetracker.datasource.replicas=" + ReplicaRoutingTests.REPLICA_URL,
+        "expensetracker.datasource.max-lag-ms=60000",
+        // Checks run only when a test calls them
+        "expensetracker.datasource.health-check-interval-ms=3600000"
+})
+class ReplicaRoutingTests {
+    
+    static final String PRIMARY_URL = "jdbc:h2:mem:routing_primary;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_URL = "jdbc:h2:mem:routing_replica;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    
+    private static JdbcTemplate replica;
+    
+    @Autowired
+    private ReplicaHealthChecker healthChecker;
+    
+    @Autowired
+    private ReplicaRoutingDataSource routingDataSource;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private ExpenseService expenseService;
+    
+    @Autowired
+    private CategoryService categoryService;
+    
+    @Autowired
+    private DashboardService dashboardService;
+    
+    @BeforeAll
+    static void createReplicaSchema() {
+        Flyway.configure().dataSource(REPLICA_URL, "sa", "").load().migrate();
+        replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+    }
+    
+    @BeforeEach
+    void replicaIsCurrent() {
+        healthChecker.checkReplicas();
+        Long beat = jdbcTemplate.queryForObject("SELECT beat_at FROM replica_heartbeat WHERE id = 1", Long.class);
+        replica.update("MERGE INTO replica_heartbeat (id, beat_at) KEY (id) VALUES (1, ?)", beat);
+        healthChecker.checkReplicas();
+    }
+    
+    @Test
+    void readOnlyTransactionsUseTheReplicaAndWritesThePrimary() {
+        assertThat(routingDataSource.getReplicas().get(0).isHealthy()).isTrue();
+        assertThat(database(true)).isEqualTo("routing_replica");
+        assertThat(database(false)).isEqualTo("routing_primary");
+        
+        // The replica has the schema but never received this write, so read-only service calls miss it
+        Category category = categoryService.saveCategory(new Category("Routing", null));
+        Expense expense = new Expense();
+        expense.setAmount(new BigDecimal("9.99"));
+        expense.setDate(LocalDate.of(2024, 5, 1));
+        expense.setCategory(category);
+        Long id = expenseService.saveExpense(expense).getId();
+        assertThat(expenseService.findById(id)).isEmpty();
+        assertThat(ReadYourWrites.onPrimary(() -> expenseService.findById(id))).isPresent();
+        // The category cache always loads from the primary
+        assertThat(categoryService.findByName("Routing")).isPresent();
+    }
+    
+    @Test
+    void laggingReplicaFallsBackToThePrimary() {
+        replica.update("UPDATE replica_heartbeat SET beat_at = ? WHERE id = 1", System.currentTimeMillis() - 120_000);
+        healthChecker.checkReplicas();
+        
+        assertThat(routingDataSource.getReplicas().get(0).isHealthy()).isFalse();
+        assertThat(routingDataSource.getReplicas().get(0).getLagMillis()).isGreaterThanOrEqualTo(120_000);
+        assertThat(database(true)).isEqualTo("routing_primary");
+    }
+    
+    @Test
+    void unreachableOrEmptyReplicaFallsBackToThePrimary() {
+        replica.update("DELETE FROM replica_heartbeat");
+        healthChecker.checkReplicas();
+        
+        assertThat(routingDataSource.getReplicas().get(0).isHealthy()).isFalse();
+        assertThat(database(true)).isEqualTo("routing_primary");
+    }
+    
+    @Test
+    void requestsAfterAWriteStayOnThePrimary() throws Exception {
+        ReadYourWritesFilter filter = new ReadYourWritesFilter(5000);
+        AtomicReference<String> database = new AtomicReference<>();
+        
+        MockHttpServletResponse postResponse = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("POST", "/expenses"), postResponse,
+                (request, response) -> database.set(database(true)));
+        assertThat(database.get()).isEqualTo("routing_primary");
+        Cookie cookie = postResponse.getCookie(ReadYourWritesFilter.COOKIE);
+        assertThat(cookie).isNotNull();
+        
+        MockHttpServletRequest stickyGet = new MockHttpServletRequest("GET", "/expenses");
+        stickyGet.setCookies(cookie);
+        filter.doFilter(stickyGet, new MockHttpServletResponse(), (request, response) -> database.set(database(true)));
+        assertThat(database.get()).isEqualTo("routing_primary");
+        
+        MockHttpServletRequest expiredGet = new MockHttpServletRequest("GET", "/expenses");
+        expiredGet.setCookies(new Cookie(ReadYourWritesFilter.COOKIE, Long.toString(System.currentTimeMillis() - 1)));
+        filter.doFilter(expiredGet, new MockHttpServletResponse(), (request, response) -> database.set(database(true)));
+        assertThat(database.get()).isEqualTo("routing_replica");
+    }
+    
+    @Test
+    void executorTasksKeepThePinOfTheSubmittingThread() throws Exception {
+        TenantTaskDecorator decorator = new TenantTaskDecorator();
+        AtomicReference<String> database = new AtomicReference<>();
+        Runnable pinned = ReadYourWrites.onPrimary(() -> decorator.decorate(() -> database.set(database(true))));
+        Thread worker = new Thread(pinned);
+        worker.start();
+        worker.join();
+        assertThat(database.get()).isEqualTo("routing_primary");
+        
+        Thread unpinned = new Thread(decorator.decorate(() -> database.set(database(true))));
+        unpinned.start();
+        unpinned.join();
+        assertThat(database.get()).isEqualTo("routing_replica");
+    }
+    
+    @Test
+    void dashboardSummariesComeFromThePrimary() {
+        Category category = categoryService.saveCategory(new Category("Dashboard routing", null));
+        Expense expense = new Expense();
+        expense.setAmount(new BigDecimal("12.34"));
+        expense.setDate(LocalDate.now());
+        expense.setCategory(category);
+        expenseService.saveExpense(expense);
+        
+        // The replica never received the write or its rollups
+        Dashboard dashboard = dashboardService.load(10);
+        assertThat(dashboard.staleWidgets()).isEmpty();
+        assertThat(dashboard.currentMonthTotal()).isGreaterThanOrEqualTo(new BigDecimal("12.34"));
+        assertThat(dashboard.totalExpenses()).isGreaterThanOrEqualTo(new BigDecimal("12.34"));
+    }
+    
+    private String database(boolean readOnly) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(readOnly);
+        return transaction.execute(status -> jdbcTemplate.queryForObject("SELECT DATABASE()", String.class)).toLowerCase();
+    }
+}
@@ -0,0 +1,229 @@
+package com.personalexpensetracker.expensetracker.config;
+
+import com.personalexpensetracker.expensetracker.dto.AnalyticsResult;
+import com.personalexpensetracker.expensetracker.model.Category;
+import com.personalexpensetracker.expensetracker.model.Expense;
+import com.personalexpensetracker.expensetracker.service.CategoryCache;
+import com.personalexpensetracker.expensetracker.service.CategoryService;
+import com.personalexpensetracker.expensetracker.service.DataVersion;
+import com.personalexpensetracker.expensetracker.service.ExpenseBulkWriter;
+import com.personalexpensetracker.expensetracker.service.ExpenseColumnStore;
+import com.personalexpensetracker.expensetracker.service.ExpenseColumnStore.GroupBy;
+import com.personalexpensetracker.expensetracker.service.ExpenseRollupService;
+import com.personalexpensetracker.expensetracker.service.ExpenseService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.math.BigDecimal;
+import java.security.Principal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Runs on the migrated schema, so the tenant columns and indexes of V4 are what is exercised
+@Slf4j
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:tenants;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate"
+})
+class TenantIsolationTests {
+    
+    private static final Pattern SCAN_COUNT = Pattern.compile("scanCount: (\\d+)");
+    
+    @Autowired
+    private CategoryService categoryService;
+    
+    @Autowired
+    private ExpenseService expenseService;
+    
+    @Autowired
+    private ExpenseBulkWriter bulkWriter;
+    
+    @Autowired
+    private ExpenseColumnStore columnStore;
+    
+    @Autowired
+    private ExpenseRollupService rollupService;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private CategoryCache categoryCache;
+    
+    @Autowired
+    private DataVersion dataVersion;
+    
+    @Test
+    void tenantsSeeOnlyTheirOwnData() {
+        // The same category name in two tenants
+        Expense alice = TenantContext.as("alice", () -> save(categoryService.saveCategory(new Category("Groceries", null)),
+                "40.00", "alice weekly market"));
+        Expense bob = TenantContext.as("bob", () -> save(categoryService.saveCategory(new Category("Groceries", null)),
+                "7.00", "bob corner market"));
+        
+        TenantContext.as("alice", () -> {
+            assertThat(categoryService.findAll()).extracting(Category::getName).containsExactly("Groceries");
+            assertThat(expenseService.findAll()).extracting(Expense::getId).containsExactly(alice.getId());
+            assertThat(expenseService.findById(bob.getId())).isEmpty();
+            assertThat(expenseService.findViewById(bob.getId())).isEmpty();
+            assertThat(expenseService.getTotalExpenses()).isEqualByComparingTo("40.00");
+            assertThat(expenseService.searchByNote("market", null, null, null, PageRequest.of(0, 10)).getContent())
+                    .hasSize(1).allMatch(view -> view.id().equals(alice.getId()));
+            assertThat(columnStore.aggregate(GroupBy.NONE, null, null, null, "market").matchedRows()).isEqualTo(1);
+            // Another tenant's category cannot be attached, by a new expense or an update
+            assertThatThrownBy(() -> save(bob.getCategory(), "1.00", "sneaky"))
+                    .hasMessage("Category not found with id: " + bob.getCategory().getId());
+            Expense moved = expenseService.findById(alice.getId()).orElseThrow();
+            moved.setCategory(bob.getCategory());
+            assertThatThrownBy(() -> expenseService.updateExpense(alice.getId(), moved))
+                    .hasMessage("Category not found with id: " + bob.getCategory().getId());
+        });
+        TenantContext.as("bob", () -> {
+            assertThat(expenseService.getTotalExpenses()).isEqualByComparingTo("7.00");
+            assertThat(expenseService.getCategorySummary()).hasSize(1);
+        });
+        // The root tenant sees both, e.g. for the rollup check
+        assertThat(TenantContext.asRoot(() -> rollupService.verify().isConsistent())).isTrue();
+    }
+    
+    @Test
+    void requestTenantIsTheAuthenticatedUserOrAnAllowedHeader() throws Exception {
+        TenantFilter filter = new TenantFilter("X-Tenant-Id", "alice, bob");
+        
+        MockHttpServletRequest authenticated = new MockHttpServletRequest("GET", "/expenses");
+        authenticated.setUserPrincipal(principal("carol"));
+        assertThat(tenantOf(filter, authenticated)).isEqualTo("carol");
+        // An authenticated user cannot switch to another tenant, even an allowed one
+        authenticated.addHeader("X-Tenant-Id", "alice");
+        assertThat(tenantOf(filter, authenticated)).isNull();
+        
+        MockHttpServletRequest allowed = new MockHttpServletRequest("GET", "/expenses");
+        allowed.addHeader("X-Tenant-Id", "bob");
+        assertThat(tenantOf(filter, allowed)).isEqualTo("bob");
+        MockHttpServletRequest unknown = new MockHttpServletRequest("GET", "/expenses");
+        unknown.addHeader("X-Tenant-Id", "mallory");
+        assertThat(tenantOf(filter, unknown)).isNull();
+        assertThat(tenantOf(filter, new MockHttpServletRequest("GET", "/expenses"))).isEqualTo(TenantContext.DEFAULT);
+    }
+    
+    @Test
+    void writesOfOneTenantKeepOtherTenantsCachedCategoriesAndVersions() {
+        TenantContext.as("stable", () -> categoryService.saveCategory(new Category("Stable", null)));
+        String eTag = TenantContext.as("stable", () -> {
+            categoryService.findAll();
+            return dataVersion.current().eTag();
+        });
+        
+        TenantContext.as("busy", () -> categoryService.saveCategory(new Category("Busy", null)));
+        long misses = categoryCache.getStatistics().misses();
+        TenantContext.as("stable", () -> {
+            assertThat(categoryService.findAll()).extracting(Category::getName).containsExactly("Stable");
+            assertThat(dataVersion.current().eTag()).isEqualTo(eTag);
+        });
+        assertThat(categoryCache.getStatistics().misses()).isEqualTo(misses);
+        
+        TenantContext.as("stable", () -> {
+            categoryService.saveCategory(new Category("Stable Too", null));
+            assertThat(dataVersion.current().eTag()).isNotEqualTo(eTag);
+            assertThat(categoryService.findAll()).hasSize(2);
+        });
+        assertThat(categoryCache.getStatistics().misses()).isEqualTo(misses + 1);
+    }
+    
+    @Test
+    void heavyTenantDoesNotSlowLightTenantQueries() {
+        LocalDate from = LocalDate.of(2024, 1, 1);
+        LocalDate to = LocalDate.of(2024, 12, 31);
+        TenantContext.as("light", () -> {
+            Category category = categoryService.saveCategory(new Category("Light", null));
+            bulkWriter.insert(expenses(category, 200, from));
+        });
+        LightTenantRun before = lightTenantRun(from, to);
+        
+        long started = System.nanoTime();
+        TenantContext.as("heavy", () -> {
+            Category category = categoryService.saveCategory(new Category("Heavy", null));
+            for (int batch = 0; batch < 10; batch++) {
+                bulkWriter.insert(expenses(category, 5_000, from));
+            }
+        });
+        log.info("Inserted 50000 expenses for the heavy tenant in {} ms", (System.nanoTime() - started) / 1_000_000);
+        LightTenantRun after = lightTenantRun(from, to);
+        log.info("Light tenant before/after: {} ms / {} ms for the date range, {} / {} rows scanned by the index",
+                before.millis(), after.millis(), before.scanCount(), after.scanCount());
+        
+        // The tenant-leading index reads exactly the light tenant's rows, however large the heavy tenant grows
+        assertThat(after.rows()).isEqualTo(before.rows()).isEqualTo(200);
+        assertThat(after.scanCount()).isEqualTo(before.scanCount());
+        // The in-memory partitions likewise only ever scan the light tenant's rows
+        assertThat(after.analytics().scannedRows()).isEqualTo(before.analytics().scannedRows()).isEqualTo(200);
+    }
+    
+    private LightTenantRun lightTenantRun(LocalDate from, LocalDate to) {
+        return TenantContext.as("light", () -> {
+            long started = System.nanoTime();
+            int rows = expenseService.findByDateRange(from, to).size();
+            long millis = (System.nanoTime() - started) / 1_000_000;
+            // The statement Hibernate issues for the date range, with the tenant predicate it adds
+            String plan = jdbcTemplate.queryForObject(
+                    "EXPLAIN ANALYZE SELECT id, amount, date FROM expenses WHERE tenant_id = 'light' " +
+                    "AND date BETWEEN DATE '" + from + "' AND DATE '" + to + "' ORDER BY date DESC, id DESC", String.class);
+            Matcher scanCount = SCAN_COUNT.matcher(plan);
+            assertThat(plan).contains("idx_expenses_tenant_date_id");
+            assertThat(scanCount.find()).isTrue();
+            AnalyticsResult analytics = columnStore.aggregate(GroupBy.MONTH, null, from, to, null);
+            return new LightTenantRun(rows, millis, Long.parseLong(scanCount.group(1)), analytics);
+        });
+    }
+    
+    // The tenant the request ran as, or null when the filter refused it
+    private static String tenantOf(TenantFilter filter, MockHttpServletRequest request) throws Exception {
+        AtomicReference<String> tenant = new AtomicReference<>();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, (filtered, unused) -> tenant.set(TenantContext.current()));
+        assertThat(response.getStatus()).isIn(200, 403);
+        return tenant.get();
+    }
+    
+    private static Principal principal(String name) {
+        return () -> name;
+    }
+    
+    private Expense save(Category category, String amount, String note) {
+        Expense expense = new Expense();
+        expense.setAmount(new BigDecimal(amount));
+        expense.setDate(LocalDate.of(2024, 4, 1));
+        expense.setNote(note);
+        expense.setCategory(category);
+        return expenseService.saveExpense(expense);
+    }
+    
+    private List<Expense> expenses(Category category, int count, LocalDate from) {
+        List<Expense> expenses = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Expense expense = new Expense();
+            expense.setAmount(new BigDecimal("10.00"));
+            expense.setDate(from.plusDays(i % 366));
+            expense.setCategory(category);
+            expenses.add(expense);
+        }
+        return expenses;
+    }
+    
+    private record LightTenantRun(int rows, long millis, long scanCount, AnalyticsResult analytics) {
+    }
+}
@@ -0,0 +1,234 @@
+package com.personalexpensetracker.expensetracker.controller;
+
+import com.personalexpensetracker.expensetracker.config.TenantContext;
+import com.personalexpensetracker.expensetracker.model.Category;
+import com.personalexpensetracker.expensetracker.model.Expense;
+import com.personalexpensetracker.expensetracker.service.CategoryService;
+import com.personalexpensetracker.expensetracker.service.DataVersion;
+import com.personalexpensetracker.expensetracker.service.ExpenseRollupService;
+import com.personalexpensetracker.expensetracker.service.ExpenseService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ExpenseControllerTests {
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private ExpenseService expenseService;
+    
+    @Autowired
+    private CategoryService categoryService;
+    
+    @Autowired
+    private ExpenseRollupService rollupService;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    @Autowired
+    private DataVersion dataVersion;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    private Statistics statistics;
+    
+    @BeforeEach
+    void seedExpensesAcrossCategories() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        if (categoryService.findByName("List Test 0").isPresent()) {
+            return;
+        }
+        // Many distinct categories on one page is what used to trigger one select per category
+        for (int c = 0; c < 8; c++) {
+            Category category = categoryService.saveCategory(new Category("List Test " + c, null));
+            for (int i = 0; i < 5; i++) {
+                Expense expense = new Expense();
+                expense.setAmount(new BigDecimal("2.50"));
+                expense.setDate(LocalDate.of(2023, 6, 1).plusDays(i));
+                expense.setNote("list " + c + "/" + i);
+                expense.setCategory(category);
+                expenseService.saveExpense(expense);
+            }
+        }
+        // Warm the category cache so only expense queries are counted
+        categoryService.findAll();
+    }
+    
+    @Test
+    void keysetListPageIsASingleStatement() throws Exception {
+        statistics.clear();
+        mockMvc.perform(get("/expenses/api/scroll").param("size", "30"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(30))
+                .andExpect(jsonPath("$.content[0].categoryName").exists());
+        // The page, plus the tenant's data version row for the ETag
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        
+        statistics.clear();
+        mockMvc.perform(get("/expenses").param("cursor", "").param("size", "30")).andExpect(status().isOk());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+    
+    @Test
+    void offsetListPageIsOneSelectPlusItsCount() throws Exception {
+        statistics.clear();
+        mockMvc.perform(get("/expenses/api").param("size", "30"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(30));
+        // The page query and the total count, regardless of how many categories appear, plus the data version
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+        
+        statistics.clear();
+        mockMvc.perform(get("/expenses").param("size", "30")).andExpect(status().isOk());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+    
+    @Test
+    void conditionalGetsOnlyReadTheDataVersion() throws Exception {
+        String listTag = mockMvc.perform(get("/expenses/api").param("size", "5"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        Long id = expenseService.findViews(null, null, null, PageRequest.of(0, 1)).getContent().get(0).id();
+        String entityTag = mockMvc.perform(get("/expenses/api/{id}", id))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(listTag).isNotNull();
+        assertThat(entityTag).startsWith("\"" + TenantContext.DEFAULT + ":" + id + "-");
+        
+        statistics.clear();
+        mockMvc.perform(get("/expenses/api").param("size", "5").header(HttpHeaders.IF_NONE_MATCH, listTag))
+                .andExpect(status().isNotModified());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        // The version row and the id-only ownership check
+        mockMvc.perform(get("/expenses/api/{id}", id).header(HttpHeaders.IF_NONE_MATCH, entityTag))
+                .andExpect(status().isNotModified());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+        // From a list of candidates, only the matching tag is sent back, in its strong form
+        mockMvc.perform(get("/expenses/api/{id}", id)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"stale\", W/" + entityTag + ", \"other\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().stringValues(HttpHeaders.ETAG, entityTag));
+        
+        // A current-looking ETag for another tenant's expense is not confirmed with 304
+        Long otherId = TenantContext.as("other", () -> {
+            Expense other = new Expense();
+            other.setAmount(new BigDecimal("3.00"));
+            other.setDate(LocalDate.of(2023, 6, 1));
+            other.setCategory(categoryService.saveCategory(new Category("Other Tenant", null)));
+            return expenseService.saveExpense(other).getId();
+        });
+        mockMvc.perform(get("/expenses/api/{id}", otherId)
+                        .header(HttpHeaders.IF_NONE_MATCH, dataVersion.current().entityETag(otherId, LocalDate.now())))
+                .andExpect(status().isNotFound());
+        
+        // The version is read from the database, so a write by another instance is seen too
+        jdbcTemplate.update("UPDATE data_versions SET version = version + 1 WHERE tenant_id = ?", TenantContext.DEFAULT);
+        listTag = mockMvc.perform(get("/expenses/api").param("size", "5").header(HttpHeaders.IF_NONE_MATCH, listTag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        entityTag = mockMvc.perform(get("/expenses/api/{id}", id).header(HttpHeaders.IF_NONE_MATCH, entityTag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        
+        // Any committed write moves the data version on
+        Expense expense = new Expense();
+        expense.setAmount(new BigDecimal("1.00"));
+        expense.setDate(LocalDate.of(2023, 6, 1));
+        expense.setCategory(categoryService.findByName("List Test 0").orElseThrow());
+        Long newId = expenseService.saveExpense(expense).getId();
+        try {
+            mockMvc.perform(get("/expenses/api").param("size", "5").header(HttpHeaders.IF_NONE_MATCH, listTag))
+                    .andExpect(status().isOk());
+            mockMvc.perform(get("/expenses/api/{id}", id).header(HttpHeaders.IF_NONE_MATCH, entityTag))
+                    .andExpect(status().isOk());
+        } finally {
+            expenseService.deleteExpense(newId);
+        }
+    }
+    
+    @Test
+    void batchEndpointsReportEachItemAndReadInOneStatement() throws Exception {
+        Category from = categoryService.saveCategory(new Category("Batch From", null));
+        Category to = categoryService.saveCategory(new Category("Batch To", null));
+        Long first = saveBatchExpense(from, "10.00");
+        Long second = saveBatchExpense(from, "20.00");
+        Long third = saveBatchExpense(from, "30.00");
+        long missing = third + 1000;
+        
+        statistics.clear();
+        mockMvc.perform(get("/expenses/api/batch").param("ids", first + "," + missing + "," + second + "," + first))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].status").value(200))
+                .andExpect(jsonPath("$[0].expense.categoryName").value("Batch From"))
+                .andExpect(jsonPath("$[1].status").value(404))
+                .andExpect(jsonPath("$[2].id").value(second));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        
+        // Valid patches are applied even though others in the batch are rejected
+        String patches = "[{\"id\":" + first + ",\"amount\":15.00}," +
+                "{\"id\":" + second + ",\"categoryId\":" + to.getId() + ",\"note\":\"moved\"}," +
+                "{\"id\":" + third + ",\"amount\":-1}," +
+                "{\"id\":" + missing + ",\"amount\":1.00}]";
+        mockMvc.perform(patch("/expenses/api/batch").contentType(MediaType.APPLICATION_JSON).content(patches))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value(200))
+                .andExpect(jsonPath("$[0].expense.amount").value(15.00))
+                .andExpect(jsonPath("$[1].expense.categoryName").value("Batch To"))
+                .andExpect(jsonPath("$[2].status").value(400))
+                .andExpect(jsonPath("$[2].error").value("Amount must be greater than 0"))
+                .andExpect(jsonPath("$[3].status").value(404));
+        assertThat(expenseService.getTotalAmountByCategory(from.getId())).isEqualByComparingTo("45.00");
+        assertThat(expenseService.getTotalAmountByCategory(to.getId())).isEqualByComparingTo("20.00");
+        assertThat(expenseService.findById(second).orElseThrow().getNote()).isEqualTo("moved");
+        assertThat(rollupService.verify().isConsistent()).isTrue();
+        
+        mockMvc.perform(delete("/expenses/api/batch").param("ids", first + "," + second + "," + missing))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value(200))
+                .andExpect(jsonPath("$[1].status").value(200))
+                .andExpect(jsonPath("$[2].status").value(404));
+        assertThat(expenseService.findById(first)).isEmpty();
+        assertThat(expenseService.getTotalAmountByCategory(from.getId())).isEqualByComparingTo("30.00");
+        assertThat(rollupService.verify().isConsistent()).isTrue();
+        categoryService.deleteCategory(from.getId());
+        categoryService.deleteCategory(to.getId());
+    }
+    
+    private Long saveBatchExpense(Category category, String amount) {
+        Expense expense = new Expense();
+        expense.setAmount(new BigDecimal(amount));
+        expense.setDate(LocalDate.of(2022, 3, 1));
+        expense.setCategory(category);
+        return expenseService.saveExpense(expense).getId();
+    }
+}
@@ -0,0 +1,77 @@
+package com.personalexpensetracker.expensetracker.controller;
+
+import com.personalexpensetracker.expensetracker.model.Category;
+import com.personalexpensetracker.expensetracker.model.Expense;
+import com.personalexpensetracker.expensetracker.service.CategoryService;
+import com.personalexpensetracker.expensetracker.service.ExpenseService;
+import com.personalexpensetracker.expensetracker.service.RecentExpensesBuffer;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class HomeControllerTests {
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private ExpenseService expenseService;
+    
+    @Autowired
+    private CategoryService categoryService;
+    
+    @Autowired
+    private RecentExpensesBuffer recentExpensesBuffer;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    @Test
+    void dashboardNeverLoadsMoreThanTheRecentExpenseLimit() throws Exception {
+        Category category = categoryService.saveCategory(new Category("Dashboard Test", null));
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < 60; i++) {
+            Expense expense = new Expense();
+            expense.setAmount(new BigDecimal("1.00"));
+            expense.setDate(today.plusDays(i % 3));
+            expense.setNote("dashboard " + i);
+            expense.setCategory(category);
+            expenseService.saveExpense(expense);
+        }
+        
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        recentExpensesBuffer.invalidate();
+        statistics.clear();
+        
+        // Cold buffer: one top-N query, at most buffer-size entities
+        MvcResult result = mockMvc.perform(get("/")).andExpect(status().isOk()).andReturn();
+        long coldLoads = statistics.getEntityStatistics(Expense.class.getName()).getLoadCount();
+        assertThat(coldLoads).isLessThanOrEqualTo(recentExpensesBuffer.getCapacity());
+        
+        @SuppressWarnings("unchecked")
+        List<Expense> recentExpenses = (List<Expense>) result.getModelAndView().getModel().get("recentExpenses");
+        assertThat(recentExpenses).hasSize(HomeController.RECENT_EXPENSES_LIMIT);
+        assertThat(recentExpenses).allMatch(expense -> expense.getDate().equals(today.plusDays(2)));
+        
+        // Warm buffer: no expense entities loaded at all
+        statistics.clear();
+        mockMvc.perform(get("/")).andExpect(status().isOk());
+        assertThat(statistics.getEntityStatistics(Expense.class.getName()).getLoadCount()).isZero();
+    }
+}
@@ -0,0 +1,31 @@
+package com.personalexpensetracker.expensetracker.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MoneyTests {
+    
+    @Test
+    void convertsAtTheBigDecimalBoundary() {
+        assertThat(Money.of(new BigDecimal("12.5")).cents()).isEqualTo(1250);
+        assertThat(Money.of(new BigDecimal("7")).cents()).isEqualTo(700);
+        assertThat(Money.ofCents(1999).toBigDecimal()).isEqualTo(new BigDecimal("19.99"));
+        assertThat(Money.of(new BigDecimal("0.10")).plus(Money.of(new BigDecimal("0.20"))))
+                .isEqualTo(Money.of(new BigDecimal("0.30")));
+        assertThatThrownBy(() -> Money.of(new BigDecimal("1.005"))).isInstanceOf(ArithmeticException.class);
+    }
+    
+    @Test
+    void arithmeticFailsInsteadOfOverflowing() {
+        Money largest = Money.ofCents(Long.MAX_VALUE);
+        assertThatThrownBy(() -> largest.plus(Money.ofCents(1))).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> largest.times(2)).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Money.ofCents(Long.MIN_VALUE).negate()).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Money.sum(new long[] {Long.MAX_VALUE, 1}, 0, 2)).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Money.of(new BigDecimal("1e30"))).isInstanceOf(ArithmeticException.class);
+    }
+}
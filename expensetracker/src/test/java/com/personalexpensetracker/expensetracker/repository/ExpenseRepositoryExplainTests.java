@@ -0,0 +1,161 @@
+package com.personalexpensetracker.expensetracker.repository;
+
+import com.personalexpensetracker.expensetracker.model.Category;
+import com.personalexpensetracker.expensetracker.model.Expense;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs every ExpenseRepository query, captures the SQL Hibernate sends and fails when
+ * H2's EXPLAIN shows a full scan of the expenses table. H2 is not MySQL, but a query that
+ * wraps an indexed column in a function or filters on an unindexed column scans on both.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:explain;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+    "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.personalexpensetracker.expensetracker.repository.ExpenseRepositoryExplainTests$RecordingInspector"
+})
+class ExpenseRepositoryExplainTests {
+    
+    // Queries that must read every row, with the reason
+    private static final Map<String, String> FULL_SCANS_ALLOWED = Map.of(
+        "findByNoteContainingIgnoreCase", "infix note match; the note search index serves it",
+        "searchByNote", "infix note match; only the fallback while the note search index builds",
+        "findViews", "unfiltered list; its count query reads the whole table",
+        "getCategorySummary", "all-time totals; the service reads the rollup table instead"
+    );
+    private static final Pattern EXPENSES_SCAN = Pattern.compile("expenses\\.tableScan", Pattern.CASE_INSENSITIVE);
+    
+    @Autowired
+    private ExpenseRepository expenseRepository;
+    
+    @Autowired
+    private CategoryRepository categoryRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Test
+    void repositoryQueriesUseIndexes() throws Exception {
+        Category category = categoryRepository.save(new Category("Explain", null));
+        for (int i = 0; i < 20; i++) {
+            Expense expense = new Expense();
+            expense.setAmount(new BigDecimal("5.00"));
+            expense.setDate(LocalDate.of(2024, 1, 1).plusDays(i * 20L));
+            expense.setNote("explain " + i);
+            expense.setCategory(category);
+            expenseRepository.save(expense);
+        }
+        
+        List<Method> methods = new ArrayList<>(Arrays.asList(ExpenseRepository.class.getDeclaredMethods()));
+        methods.sort(Comparator.comparing(Method::getName));
+        List<String> scans = new ArrayList<>();
+        int explained = 0;
+        for (Method method : methods) {
+            RecordingInspector.STATEMENTS.clear();
+            method.invoke(expenseRepository, arguments(method, category.getId()));
+            for (String sql : RecordingInspector.STATEMENTS) {
+                if (!sql.toLowerCase().contains("expenses")) {
+                    continue;
+                }
+                explained++;
+                String plan = explain(sql);
+                if (EXPENSES_SCAN.matcher(plan).find() && !FULL_SCANS_ALLOWED.containsKey(method.getName())) {
+                    scans.add(method.getName() + ":\n" + plan);
+                }
+            }
+        }
+        
+        assertThat(explained).isGreaterThan(methods.size());
+        assertThat(scans).as("Queries scanning the expenses table").isEmpty();
+    }
+    
+    @Test
+    void monthlySummaryIsFilteredByDateRange() {
+        RecordingInspector.STATEMENTS.clear();
+        List<Object[]> months = expenseRepository.getMonthlySummary(2024);
+        
+        assertThat(months).allSatisfy(row -> assertThat(((Number) row[0]).intValue()).isBetween(1, 12));
+        assertThat(RecordingInspector.STATEMENTS).singleElement().satisfies(sql ->
+            assertThat(sql.toLowerCase()).doesNotContain("where year(").doesNotContain("where extract(year"));
+    }
+    
+    // Sample arguments by parameter type; sorted pages exercise the ORDER BY path too
+    private Object[] arguments(Method method, Long categoryId) {
+        Class<?>[] types = method.getParameterTypes();
+        String[] names = Arrays.stream(method.getParameters()).map(parameter -> parameter.getName()).toArray(String[]::new);
+        Object[] arguments = new Object[types.length];
+        for (int i = 0; i < types.length; i++) {
+            Class<?> type = types[i];
+            if (type == Pageable.class) {
+                arguments[i] = PageRequest.of(0, 10);
+            } else if (type == LocalDate.class) {
+                arguments[i] = names[i].toLowerCase().contains("end") ? LocalDate.of(2024, 6, 30) : LocalDate.of(2024, 3, 1);
+            } else if (type == Long.class) {
+                arguments[i] = categoryId;
+            } else if (type == String.class) {
+                arguments[i] = "explain";
+            } else if (Collection.class.isAssignableFrom(type)) {
+                arguments[i] = List.of(1L, 2L);
+            } else if (type == int.class) {
+                arguments[i] = 2024;
+            } else {
+                throw new IllegalStateException("No sample argument for " + type + " in " + method.getName());
+            }
+        }
+        return arguments;
+    }
+    
+    // EXPLAIN with every parameter bound to a value of its type, so H2 plans as for a real call
+    private String explain(String sql) {
+        return jdbcTemplate.execute((java.sql.Connection connection) -> {
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+                ParameterMetaData parameters = statement.getParameterMetaData();
+                for (int i = 1; i <= parameters.getParameterCount(); i++) {
+                    switch (parameters.getParameterType(i)) {
+                        case Types.DATE -> statement.setObject(i, LocalDate.of(2024, 3, 1));
+                        case Types.VARCHAR, Types.CHAR -> statement.setString(i, "explain");
+                        default -> statement.setLong(i, 1);
+                    }
+                }
+                try (ResultSet plan = statement.executeQuery()) {
+                    plan.next();
+                    return plan.getString(1);
+                }
+            }
+        });
+    }
+    
+    public static class RecordingInspector implements StatementInspector {
+        
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+        
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
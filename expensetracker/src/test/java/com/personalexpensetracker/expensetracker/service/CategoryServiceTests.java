@@ -0,0 +1,85 @@
+package com.personalexpensetracker.expensetracker.service;
+
+import com.personalexpensetracker.expensetracker.model.Category;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class CategoryServiceTests {
+    
+    @Autowired
+    private CategoryService categoryService;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    @Autowired
+    private CategoryCache categoryCache;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Test
+    void servesLookupsFromCacheUntilACategoryChanges() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Category category = categoryService.saveCategory(new Category("Cache Test", null));
+        categoryService.findAll();
+        
+        long queries = statistics.getPrepareStatementCount();
+        long hits = categoryService.getCacheStatistics().hits();
+        assertThat(categoryService.findById(category.getId())).isPresent();
+        assertThat(categoryService.findByName("cache test")).isPresent();
+        assertThat(categoryService.existsByName("CACHE TEST")).isTrue();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(queries);
+        assertThat(categoryService.getCacheStatistics().hits()).isEqualTo(hits + 3);
+        
+        // Uniqueness is enforced from the cache without a query
+        assertThatThrownBy(() -> categoryService.saveCategory(new Category("cache test", null)))
+                .hasMessageContaining("already exists");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(queries);
+        
+        long evictions = categoryService.getCacheStatistics().evictions();
+        category.setName("Cache Test Renamed");
+        categoryService.updateCategory(category.getId(), category);
+        assertThat(categoryService.getCacheStatistics().evictions()).isEqualTo(evictions + 1);
+        assertThat(categoryService.findByName("cache test")).isEmpty();
+        assertThat(categoryService.findByName("cache test renamed")).isPresent();
+    }
+    
+    @Test
+    void loadsInTheCallersTransactionWithoutASecondConnection() {
+        categoryService.saveCategory(new Category("Connection Test", null));
+        categoryCache.evict();
+        long misses = categoryService.getCacheStatistics().misses();
+        
+        long connections = connectionUsages();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            assertThat(categoryService.findByName("connection test")).isPresent();
+            assertThat(connectionUsages()).isEqualTo(connections);
+        });
+        
+        // Read-write and without category writes of its own, so the load was cached
+        assertThat(categoryService.findByName("connection test")).isPresent();
+        assertThat(categoryService.getCacheStatistics().misses()).isEqualTo(misses + 1);
+    }
+    
+    // Connections returned to the pool so far
+    private long connectionUsages() {
+        return meterRegistry.find("hikaricp.connections.usage").timers().stream().mapToLong(Timer::count).sum();
+    }
+}
@@ -0,0 +1,100 @@
+package com.personalexpensetracker.expensetracker.service;
+
+import com.personalexpensetracker.expensetracker.dto.Dashboard;
+import com.personalexpensetracker.expensetracker.model.Category;
+import com.personalexpensetracker.expensetracker.model.Expense;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.reset;
+
+@SpringBootTest(properties = {
+        "expensetracker.dashboard.widget-timeout-ms=300",
+        "expensetracker.dashboard.threads=4",
+        "expensetracker.dashboard.queue-size=4"
+})
+class DashboardServiceTests {
+    
+    @Autowired
+    private DashboardService dashboardService;
+    
+    @Autowired
+    private CategoryService categoryService;
+    
+    @MockitoSpyBean
+    private ExpenseService expenseService;
+    
+    @Test
+    void slowOrFailingWidgetsFallBackToTheirLastValue() {
+        Category category = categoryService.saveCategory(new Category("Dashboard Widgets", null));
+        Expense expense = new Expense();
+        expense.setAmount(new BigDecimal("7.00"));
+        expense.setDate(LocalDate.now());
+        expense.setCategory(category);
+        expenseService.saveExpense(expense);
+        
+        Dashboard fresh = dashboardService.load(5);
+        assertThat(fresh.isPartial()).isFalse();
+        
+        try {
+            doAnswer(invocation -> {
+                Thread.sleep(2_000);
+                return BigDecimal.ONE;
+            }).when(expenseService).getTotalExpenses();
+            doThrow(new IllegalStateException("database unavailable")).when(expenseService).findRecentExpenses(5);
+            
+            long started = System.nanoTime();
+            Dashboard partial = dashboardService.load(5);
+            long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+            
+            assertThat(elapsedMillis).isLessThan(1_500);
+            assertThat(partial.staleWidgets()).containsExactly("recentExpenses", "totalExpenses");
+            assertThat(partial.totalExpenses()).isEqualByComparingTo(fresh.totalExpenses());
+            assertThat(partial.recentExpenses()).extracting(Expense::getId)
+                    .containsExactlyElementsOf(fresh.recentExpenses().stream().map(Expense::getId).toList());
+            assertThat(partial.currentMonthTotal()).isEqualByComparingTo(fresh.currentMonthTotal());
+        } finally {
+            reset(expenseService);
+        }
+    }
+    
+    @Test
+    void widgetsAreRejectedInsteadOfQueueingWhenThePoolIsSaturated() {
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            doAnswer(invocation -> release.await(10, TimeUnit.SECONDS) ? BigDecimal.ONE : null)
+                    .when(expenseService).getTotalAmountByDateRange(any(), any());
+            doAnswer(invocation -> release.await(10, TimeUnit.SECONDS) ? BigDecimal.ONE : null)
+                    .when(expenseService).getTotalExpenses();
+            doAnswer(invocation -> release.await(10, TimeUnit.SECONDS) ? List.of() : null)
+                    .when(expenseService).getCategorySummaryByDateRange(any(), any());
+            doAnswer(invocation -> release.await(10, TimeUnit.SECONDS) ? List.of() : null)
+                    .when(expenseService).findRecentExpenses(anyInt());
+            
+            // The first load occupies every thread, the second fills the queue
+            assertThat(dashboardService.load(5).staleWidgets()).hasSize(4);
+            assertThat(dashboardService.load(5).staleWidgets()).hasSize(4);
+            
+            long started = System.nanoTime();
+            Dashboard rejected = dashboardService.load(5);
+            assertThat((System.nanoTime() - started) / 1_000_000).isLessThan(200);
+            assertThat(rejected.staleWidgets()).hasSize(4);
+        } finally {
+            release.countDown();
+            reset(expenseService);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.personalexpensetracker.expensetracker.service;
+
+import com.personalexpensetracker.expensetracker.config.TenantContext;
+import com.personalexpensetracker.expensetracker.model.Category;
+import com.personalexpensetracker.expensetracker.model.Expense;
+import com.personalexpensetracker.expensetracker.repository.ExpenseRepository;
+import com.personalexpensetracker.expensetracker.service.ExpenseArchive.ArchivedExpense;
+import com.personalexpensetracker.expensetracker.service.ExpenseArchive.Segment;
+import com.personalexpensetracker.expensetracker.service.ExpenseColumnStore.GroupBy;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.util.FileSystemUtils;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+// Own database and archive directory: archiving deletes table rows other tests would count
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:archive;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "expensetracker.archive.dir=" + ExpenseArchiverTests.ARCHIVE_DIR,
+        "expensetracker.archive.hot-years=2",
+        "expensetracker.archive.interval-hours=0"
+})
+class ExpenseArchiverTests {
+    
+    static final String ARCHIVE_DIR = "target/archive-tests";
+    
+    @Autowired
+    private ExpenseArchiver archiver;
+    
+    @Autowired
+    private ExpenseArchive archive;
+    
+    @Autowired
+    private ExpenseService expenseService;
+    
+    @Autowired
+    private CategoryService categoryService;
+    
+    @Autowired
+    private ExpenseRollupService rollupService;
+    
+    @Autowired
+    private ExpenseColumnStore columnStore;
+    
+    @Autowired
+    private ExpenseRepository expenseRepository;
+    
+    @BeforeAll
+    static void clearArchive() {
+        FileSystemUtils.deleteRecursively(Path.of(ARCHIVE_DIR).toFile());
+    }
+    
+    @Test
+    void closedYearsMoveToTheArchiveAndStayInTheSummaries() {
+        int closedYear = LocalDate.now().getYear() - 2;
+        Category category = categoryService.saveCategory(new Category("Archive", null));
+        Expense archived = save(category, "12.50", LocalDate.of(closedYear, 3, 14), "old train ticket");
+        save(category, "7.25", LocalDate.of(closedYear, 3, 14), null);
+        save(category, "30.00", LocalDate.of(closedYear - 1, 11, 2), "old hotel");
+        Expense hot = save(category, "4.00", LocalDate.now().withDayOfMonth(1), "fresh coffee");
+        List<Object[]> monthlyBefore = expenseService.getMonthlySummary(closedYear);
+        
+        assertThat(archiver.archiveClosedYears()).isEqualTo(3);
+        
+        // Only the hot year is left in the table, search and lookups
+        assertThat(expenseRepository.findAll()).extracting(Expense::getId).containsExactly(hot.getId());
+        assertThat(expenseService.findById(archived.getId())).isEmpty();
+        assertThat(expenseService.searchByNote("old", null, null, null, PageRequest.of(0, 10)).getContent()).isEmpty();
+        
+        // Summaries, analytics and the rollup check still cover the archived years
+        assertThat(expenseService.getTotalExpenses()).isEqualByComparingTo("53.75");
+        assertThat(expenseService.getMonthlySummary(closedYear))
+                .usingRecursiveFieldByFieldElementComparator().isEqualTo(monthlyBefore);
+        assertThat(columnStore.aggregate(GroupBy.YEAR, null, null, null, "old").matchedRows()).isEqualTo(2);
+        assertThat(rollupService.verify().isConsistent()).isTrue();
+        assertThat(TenantContext.asRoot(() -> rollupService.rebuild())).isEqualTo(3);
+        assertThat(expenseService.getTotalExpenses()).isEqualByComparingTo("53.75");
+        
+        List<ArchivedExpense> rows = archive.read(new Segment(TenantContext.DEFAULT, closedYear));
+        assertThat(rows).extracting(ArchivedExpense::amount, ArchivedExpense::note)
+                .containsExactlyInAnyOrder(
+                        tuple(new BigDecimal("12.50"), "old train ticket"),
+                        tuple(new BigDecimal("7.25"), null));
+        assertThat(rows).allSatisfy(row -> assertThat(row.createdAt()).isEqualTo(LocalDate.now()));
+        
+        // A late expense for a closed year is merged into the existing file by the next run
+        save(category, "1.00", LocalDate.of(closedYear, 12, 31), null);
+        assertThat(archiver.archiveClosedYears()).isEqualTo(1);
+        assertThat(archive.read(new Segment(TenantContext.DEFAULT, closedYear))).hasSize(3);
+        assertThat(rollupService.verify().isConsistent()).isTrue();
+        
+        // Deleting the category drops its archived rows too
+        categoryService.deleteCategory(category.getId());
+        assertThat(archive.segments(TenantContext.DEFAULT)).isEmpty();
+        assertThat(rollupService.verify().isConsistent()).isTrue();
+    }
+    
+    @Test
+    void expensesBackDatedIntoAnArchivedCellCanBeDeleted() {
+        LocalDate day = LocalDate.of(LocalDate.now().getYear() - 2, 5, 20);
+        // Own tenant, so the rows this leaves behind mid-test are not counted by the other test
+        TenantContext.as("late", () -> {
+            Category category = categoryService.saveCategory(new Category("Late", null));
+            save(category, "5.00", day, null);
+            save(category, "120.00", day, null);
+            assertThat(archiver.archiveYear("late", day.getYear())).isEqualTo(2);
+            
+            // The cell's only table row, its maximum, is removed: the extremes come from the archive
+            Expense late = save(category, "150.00", day, null);
+            expenseService.deleteExpense(late.getId());
+            assertThat(rollupService.verify().isConsistent()).isTrue();
+            
+            // With table rows left, an archived extreme beats them
+            Expense low = save(category, "1.00", day, null);
+            Expense kept = save(category, "50.00", day, null);
+            expenseService.deleteExpense(low.getId());
+            assertThat(rollupService.verify().isConsistent()).isTrue();
+            assertThat(expenseService.deleteExpenses(List.of(kept.getId()))).allMatch(result -> result.status() == 200);
+            assertThat(rollupService.verify().isConsistent()).isTrue();
+            
+            categoryService.deleteCategory(category.getId());
+            assertThat(archive.segments("late")).isEmpty();
+        });
+    }
+    
+    private Expense save(Category category, String amount, LocalDate date, String note) {
+        Expense expense = new Expense();
+        expense.setAmount(new BigDecimal(amount));
+        expense.setDate(date);
+        expense.setNote(note);
+        expense.setCategory(category);
+        return expenseService.saveExpense(expense);
+    }
+}
@@ -0,0 +1,187 @@
+package com.personalexpensetracker.expensetracker.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.personalexpensetracker.expensetracker.model.Category;
+import com.personalexpensetracker.expensetracker.model.Expense;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Real connections on their own database; flushes are triggered by the test instead of the timer
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:changes;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "expensetracker.stream.coalesce-ms=3600000",
+        "expensetracker.stream.max-batch-size=3"
+})
+class ExpenseChangeBusTests {
+    
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    
+    @LocalServerPort
+    private int port;
+    
+    @Autowired
+    private ExpenseChangeBus changeBus;
+    
+    @Autowired
+    private ExpenseService expenseService;
+    
+    @Autowired
+    private CategoryService categoryService;
+    
+    @Autowired
+    private ExpenseBulkWriter bulkWriter;
+    
+    @Test
+    void streamsCoalescedChangesWithTotalsAndReplaysFromAnOffset() throws Exception {
+        Category category = categoryService.saveCategory(new Category("Live", null));
+        changeBus.flush();
+        try (EventStream live = open(null)) {
+            assertThat(live.next().name()).isEqualTo("totals");
+            
+            // A burst: the update of the new expense and the short-lived one collapse within the batch
+            Expense coffee = save(category, "3.50", "coffee");
+            Expense typo = save(category, "99.00", "typo");
+            coffee.setAmount(new BigDecimal("4.00"));
+            expenseService.updateExpense(coffee.getId(), coffee);
+            expenseService.deleteExpense(typo.getId());
+            changeBus.flush();
+            
+            Event changes = live.next();
+            assertThat(changes.name()).isEqualTo("changes");
+            JsonNode batch = changes.data();
+            assertThat(batch.get("expenses")).hasSize(1);
+            assertThat(batch.at("/expenses/0/type").asText()).isEqualTo("CREATED");
+            assertThat(batch.at("/expenses/0/expense/amount").decimalValue()).isEqualByComparingTo("4.00");
+            assertThat(batch.at("/expenses/0/expense/categoryName").asText()).isEqualTo("Live");
+            Event totals = live.next();
+            assertThat(totals.name()).isEqualTo("totals");
+            assertThat(totals.data().get("currentMonthTotal").decimalValue()).isEqualByComparingTo("4.00");
+            
+            // Bulk writes are announced without listing every expense
+            bulkWriter.insert(List.of(expense(category, "1.00"), expense(category, "1.00"), expense(category, "1.00"),
+                    expense(category, "1.00")));
+            changeBus.flush();
+            Event bulk = live.next();
+            assertThat(bulk.data().get("truncated").asBoolean()).isTrue();
+            assertThat(bulk.data().get("expenses")).isEmpty();
+            assertThat(live.next().data().get("currentMonthTotal").decimalValue()).isEqualByComparingTo("8.00");
+            
+            // Resuming after the first batch replays only the bulk one; unknown offsets get a reset
+            try (EventStream resumed = open(changes.id()); EventStream stale = open("1")) {
+                assertThat(resumed.next().id()).isEqualTo(bulk.id());
+                assertThat(resumed.next().name()).isEqualTo("totals");
+                assertThat(stale.next().name()).isEqualTo("reset");
+                assertThat(changeBus.subscriberCount()).isEqualTo(3);
+            }
+        }
+    }
+    
+    private EventStream open(String lastEventId) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/expenses/api/stream"));
+        if (lastEventId != null) {
+            request.header("Last-Event-ID", lastEventId);
+        }
+        HttpResponse<Stream<String>> response = client.send(request.build(), HttpResponse.BodyHandlers.ofLines());
+        assertThat(response.statusCode()).isEqualTo(200);
+        EventStream stream = new EventStream(response.body());
+        Thread reader = new Thread(stream::read);
+        reader.setDaemon(true);
+        reader.start();
+        return stream;
+    }
+    
+    private Expense save(Category category, String amount, String note) {
+        Expense expense = expense(category, amount);
+        expense.setNote(note);
+        return expenseService.saveExpense(expense);
+    }
+    
+    private Expense expense(Category category, String amount) {
+        Expense expense = new Expense();
+        expense.setAmount(new BigDecimal(amount));
+        expense.setDate(LocalDate.now());
+        expense.setCategory(category);
+        return expense;
+    }
+    
+    private record Event(String name, String id, JsonNode data) {
+    }
+    
+    // Parses the event-stream format into events, skipping keep-alive comments; closing it disconnects
+    private final class EventStream implements AutoCloseable {
+        private final Stream<String> lines;
+        private final BlockingQueue<Event> events = new LinkedBlockingQueue<>();
+        
+        private EventStream(Stream<String> lines) {
+            this.lines = lines;
+        }
+        
+        private void read() {
+            try {
+                readEvents();
+            } catch (RuntimeException e) {
+                // Closed by the test, or the server ended the stream
+            }
+        }
+        
+        private void readEvents() {
+            List<String> fields = new ArrayList<>();
+            lines.forEach(line -> {
+                if (!line.isEmpty()) {
+                    fields.add(line);
+                    return;
+                }
+                String name = null;
+                String id = null;
+                StringBuilder data = new StringBuilder();
+                for (String field : fields) {
+                    if (field.startsWith("event:")) {
+                        name = field.substring(6);
+                    } else if (field.startsWith("id:")) {
+                        id = field.substring(3);
+                    } else if (field.startsWith("data:")) {
+                        data.append(field.substring(5));
+                    }
+                }
+                fields.clear();
+                if (name != null) {
+                    try {
+                        events.add(new Event(name, id, objectMapper.readTree(data.toString())));
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            });
+        }
+        
+        private Event next() throws InterruptedException {
+            Event event = events.poll(5, TimeUnit.SECONDS);
+            assertThat(event).as("event within 5 seconds").isNotNull();
+            return event;
+        }
+        
+        @Override
+        public void close() {
+            lines.close();
+        }
+    }
+}
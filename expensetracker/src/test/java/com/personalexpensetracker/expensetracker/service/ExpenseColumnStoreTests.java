@@ -0,0 +1,108 @@
+package com.personalexpensetracker.expensetracker.service;
+
+import com.personalexpensetracker.expensetracker.dto.AnalyticsResult;
+import com.personalexpensetracker.expensetracker.dto.AnalyticsResult.Group;
+import com.personalexpensetracker.expensetracker.event.CategoryChangedEvent;
+import com.personalexpensetracker.expensetracker.event.ChangeType;
+import com.personalexpensetracker.expensetracker.event.ExpenseChangedEvent;
+import com.personalexpensetracker.expensetracker.model.Category;
+import com.personalexpensetracker.expensetracker.model.Expense;
+import com.personalexpensetracker.expensetracker.service.ExpenseColumnStore.GroupBy;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ExpenseColumnStoreTests {
+    
+    private final CategoryCache categoryCache = mock(CategoryCache.class);
+    
+    @Test
+    void groupsByCategoryAndTimeBuckets() {
+        ExpenseColumnStore store = new ExpenseColumnStore(null, categoryCache, null, Integer.MAX_VALUE);
+        when(categoryCache.findById(1L)).thenReturn(Optional.of(new Category(1L, "Food", null, null, null)));
+        add(store, 1L, 1L, "12.50", LocalDate.of(2024, 1, 30), "Lunch");
+        add(store, 2L, 1L, "7.25", LocalDate.of(2024, 2, 2), "Coffee");
+        add(store, 3L, 2L, "100.00", LocalDate.of(2024, 2, 3), "Taxi to airport");
+        
+        AnalyticsResult byCategory = store.aggregate(GroupBy.CATEGORY, null, null, null, null);
+        assertThat(byCategory.groups()).extracting(Group::key).containsExactly("2", "Food");
+        assertThat(byCategory.groups().get(1).total()).isEqualByComparingTo("19.75");
+        assertThat(byCategory.groups().get(1).min()).isEqualByComparingTo("7.25");
+        assertThat(byCategory.groups().get(1).max()).isEqualByComparingTo("12.50");
+        
+        assertThat(store.aggregate(GroupBy.MONTH, null, null, null, null).groups())
+                .extracting(Group::key, Group::count)
+                .containsExactly(tuple("2024-01", 1L), tuple("2024-02", 2L));
+        // 2024-01-30 and 2024-02-02 fall in the same ISO week
+        assertThat(store.aggregate(GroupBy.WEEK, null, null, null, null).groups())
+                .extracting(Group::key).containsExactly("2024-W05");
+        
+        AnalyticsResult filtered = store.aggregate(GroupBy.NONE, List.of(1L, 2L), LocalDate.of(2024, 2, 1), null, "TAXI");
+        assertThat(filtered.matchedRows()).isEqualTo(1);
+        assertThat(filtered.groups().get(0).total()).isEqualByComparingTo("100.00");
+        assertThat(store.aggregate(GroupBy.NONE, List.of(99L), null, null, null).groups()).isEmpty();
+    }
+    
+    @Test
+    void followsUpdatesAndDeletes() {
+        ExpenseColumnStore store = new ExpenseColumnStore(null, categoryCache, null, Integer.MAX_VALUE);
+        Expense expense = add(store, 1L, 1L, "10.00", LocalDate.of(2024, 3, 1), null);
+        add(store, 2L, 3L, "5.00", LocalDate.of(2024, 3, 2), null);
+        
+        expense.setAmount(new BigDecimal("15.00"));
+        store.onExpenseChanged(new ExpenseChangedEvent(ChangeType.UPDATED, expense));
+        assertThat(store.aggregate(GroupBy.NONE, null, null, null, null).groups().get(0).total()).isEqualByComparingTo("20.00");
+        
+        store.onCategoryChanged(new CategoryChangedEvent(ChangeType.DELETED, 3L));
+        assertThat(store.aggregate(GroupBy.NONE, null, null, null, null).groups().get(0).total()).isEqualByComparingTo("15.00");
+        store.onExpenseChanged(new ExpenseChangedEvent(ChangeType.DELETED, expense));
+        assertThat(store.size()).isZero();
+        assertThat(store.aggregate(GroupBy.NONE, null, null, null, null).groups()).isEmpty();
+    }
+    
+    @Test
+    void parallelScanMatchesSequentialScan() {
+        ExpenseColumnStore sequential = new ExpenseColumnStore(null, categoryCache, null, Integer.MAX_VALUE);
+        ExpenseColumnStore parallel = new ExpenseColumnStore(null, categoryCache, null, 64);
+        for (long id = 1; id <= 5_000; id++) {
+            String amount = BigDecimal.valueOf(id % 977 + 1, 2).toPlainString();
+            LocalDate date = LocalDate.of(2023, 1, 1).plusDays(id % 500);
+            add(sequential, id, id % 7 + 1, amount, date, "note " + id % 13);
+            add(parallel, id, id % 7 + 1, amount, date, "note " + id % 13);
+        }
+        // Enough deletes to trigger compaction
+        for (long id = 1; id <= 3_000; id++) {
+            Expense expense = new Expense();
+            expense.setId(id);
+            sequential.onExpenseChanged(new ExpenseChangedEvent(ChangeType.DELETED, expense));
+            parallel.onExpenseChanged(new ExpenseChangedEvent(ChangeType.DELETED, expense));
+        }
+        
+        for (GroupBy groupBy : GroupBy.values()) {
+            assertThat(parallel.aggregate(groupBy, List.of(2L, 3L), LocalDate.of(2023, 3, 1), null, "note 1").groups())
+                    .isEqualTo(sequential.aggregate(groupBy, List.of(2L, 3L), LocalDate.of(2023, 3, 1), null, "note 1").groups());
+        }
+        assertThat(parallel.size()).isEqualTo(2_000);
+    }
+    
+    private Expense add(ExpenseColumnStore store, Long id, Long categoryId, String amount, LocalDate date, String note) {
+        Category category = new Category();
+        category.setId(categoryId);
+        Expense expense = new Expense();
+        expense.setId(id);
+        expense.setAmount(new BigDecimal(amount));
+        expense.setDate(date);
+        expense.setNote(note);
+        expense.setCategory(category);
+        store.onExpenseChanged(new ExpenseChangedEvent(ChangeType.CREATED, expense));
+        return expense;
+    }
+}
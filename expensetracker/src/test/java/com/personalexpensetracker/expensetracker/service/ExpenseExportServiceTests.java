@@ -0,0 +1,109 @@
+package com.personalexpensetracker.expensetracker.service;
+
+import com.personalexpensetracker.expensetracker.model.Category;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Exports a large table through a counting sink and checks that heap use stays flat.
+ * Uses a file-backed database so the rows do not live on the test JVM's heap.
+ * The default run exports 200k rows; {@code mvn test -Pexport-soak} exports 3M rows under -Xmx128m.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:file:./target/export-test-db;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class ExpenseExportServiceTests {
+    
+    private static final long ROWS = Long.getLong("export.test.rows", 200_000);
+    private static final long SAMPLE_EVERY = Math.max(ROWS / 10, 1);
+    private static final long MAX_HEAP_GROWTH = 32L * 1024 * 1024;
+    
+    @Autowired
+    private ExpenseExportService exportService;
+    
+    @Autowired
+    private CategoryService categoryService;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Test
+    void exportsLargeTablesWithFlatHeap() {
+        Category category = categoryService.saveCategory(new Category("Export Volume", null));
+        jdbcTemplate.update("INSERT INTO expenses (amount, date, note, category_id, created_at, updated_at) " +
+                "SELECT MOD(\"X\", 10000) / 100.0 + 1, DATEADD('DAY', -MOD(\"X\", 3650), DATE '2024-12-31'), " +
+                "CONCAT('export row ', \"X\"), ?, CURRENT_DATE, CURRENT_DATE FROM SYSTEM_RANGE(1, ?)",
+                category.getId(), ROWS);
+        
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long baseline = memory.getHeapMemoryUsage().getUsed();
+        HeapSamplingSink sink = new HeapSamplingSink(memory);
+        
+        long exported = exportService.exportCsv(category.getId(), null, null, sink);
+        
+        assertThat(exported).isEqualTo(ROWS);
+        assertThat(sink.lines).isEqualTo(ROWS + 1);
+        assertThat(sink.peakUsed - baseline).isLessThan(MAX_HEAP_GROWTH);
+    }
+    
+    @Test
+    void writesCsvAndNdjsonWithFilters() {
+        Category category = categoryService.saveCategory(new Category("Export Format", null));
+        jdbcTemplate.update("INSERT INTO expenses (amount, date, note, category_id, created_at, updated_at) " +
+                "VALUES (12.50, DATE '2023-06-01', 'Dinner, \"downtown\"', ?, CURRENT_DATE, CURRENT_DATE), " +
+                "(3.00, DATE '2023-07-01', NULL, ?, CURRENT_DATE, CURRENT_DATE)",
+                category.getId(), category.getId());
+        
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        exportService.exportCsv(category.getId(), LocalDate.of(2023, 6, 1), LocalDate.of(2023, 6, 30), csv);
+        assertThat(csv.toString(StandardCharsets.UTF_8))
+                .endsWith(",2023-06-01,12.50,Export Format,\"Dinner, \"\"downtown\"\"\"\n")
+                .startsWith("id,date,amount,category,note\n");
+        
+        ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+        long rows = exportService.exportNdjson(category.getId(), null, null, ndjson);
+        String[] lines = ndjson.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(rows).isEqualTo(2);
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).contains("\"date\":\"2023-07-01\"", "\"categoryName\":\"Export Format\"");
+    }
+    
+    // Discards output, counting lines and sampling heap after a GC every SAMPLE_EVERY lines
+    private static final class HeapSamplingSink extends OutputStream {
+        private final MemoryMXBean memory;
+        private long lines;
+        private long peakUsed;
+        
+        private HeapSamplingSink(MemoryMXBean memory) {
+            this.memory = memory;
+        }
+        
+        @Override
+        public void write(int b) {
+            if (b == '\n' && ++lines % SAMPLE_EVERY == 0) {
+                System.gc();
+                peakUsed = Math.max(peakUsed, memory.getHeapMemoryUsage().getUsed());
+            }
+        }
+        
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            for (int i = offset; i < offset + length; i++) {
+                write(bytes[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.personalexpensetracker.expensetracker.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.personalexpensetracker.expensetracker.model.Category;
+import com.personalexpensetracker.expensetracker.model.Expense;
+import com.personalexpensetracker.expensetracker.repository.ExpenseRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class ExpenseIngestPipelineTests {
+    
+    @Autowired
+    private ExpenseBulkWriter bulkWriter;
+    
+    @Autowired
+    private CategoryCache categoryCache;
+    
+    @Autowired
+    private CategoryService categoryService;
+    
+    @Autowired
+    private ExpenseRepository expenseRepository;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @TempDir
+    private Path tempDir;
+    
+    @Test
+    void fullQueueRejectsInsteadOfBlocking() {
+        Category category = categoryService.saveCategory(new Category("Ingest Backpressure", null));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ExpenseIngestPipeline pipeline = pipeline(registry, 3, "");
+        
+        for (int i = 0; i < 3; i++) {
+            assertThat(pipeline.enqueue(expense(category, "queued " + i))).isTrue();
+        }
+        assertThat(pipeline.enqueue(expense(category, "rejected"))).isFalse();
+        assertThat(pipeline.getQueueDepth()).isEqualTo(3);
+        assertThat(registry.get("expensetracker.ingest.queue.depth").gauge().value()).isEqualTo(3);
+        assertThat(registry.get("expensetracker.ingest.rejected").counter().count()).isEqualTo(1);
+    }
+    
+    @Test
+    void writerInsertsQueuedExpensesInBatches() throws Exception {
+        Category category = categoryService.saveCategory(new Category("Ingest Writer", null));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Path journal = tempDir.resolve("writer.journal");
+        ExpenseIngestPipeline pipeline = pipeline(registry, 100, journal.toString());
+        
+        for (int i = 0; i < 25; i++) {
+            assertThat(pipeline.enqueue(expense(category, "burst " + i))).isTrue();
+        }
+        pipeline.startWriter();
+        pipeline.stopWriter();
+        
+        assertThat(countByCategory(category)).isEqualTo(25);
+        assertThat(pipeline.getQueueDepth()).isZero();
+        assertThat(registry.get("expensetracker.ingest.batch.size").summary().count()).isLessThan(25);
+        // Everything was written, so the journal was truncated
+        assertThat(Files.size(journal)).isZero();
+        assertThat(Files.readString(Path.of(journal + ".checkpoint"))).isEqualTo("0");
+    }
+    
+    @Test
+    void replayInsertsOnlyJournalLinesPastTheCheckpoint() throws Exception {
+        Category category = categoryService.saveCategory(new Category("Ingest Replay", null));
+        Path journal = tempDir.resolve("replay.journal");
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            lines.add(objectMapper.writeValueAsString(new ExpenseIngestPipeline.JournalEntry(
+                    new BigDecimal("3.50"), LocalDate.of(2024, 2, 1), "journaled " + i, category.getId(), null)));
+        }
+        lines.add("{not json");
+        Files.write(journal, lines);
+        // The first two lines were committed before the crash
+        Files.writeString(Path.of(journal + ".checkpoint"), "2");
+        
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        pipeline(registry, 100, journal.toString()).replayJournal();
+        
+        assertThat(countByCategory(category)).isEqualTo(3);
+        assertThat(registry.get("expensetracker.ingest.failed").counter().count()).isEqualTo(1);
+        assertThat(Files.size(journal)).isZero();
+    }
+    
+    private ExpenseIngestPipeline pipeline(SimpleMeterRegistry registry, int capacity, String journal) {
+        return new ExpenseIngestPipeline(bulkWriter, categoryCache, objectMapper, registry,
+                true, capacity, 10, 5, journal, false);
+    }
+    
+    private long countByCategory(Category category) {
+        return expenseRepository.findAll().stream()
+                .filter(expense -> expense.getCategory().getId().equals(category.getId()))
+                .count();
+    }
+    
+    private Expense expense(Category category, String note) {
+        Expense expense = new Expense();
+        expense.setAmount(new BigDecimal("12.00"));
+        expense.setDate(LocalDate.of(2024, 2, 1));
+        expense.setNote(note);
+        expense.setCategory(category);
+        return expense;
+    }
+}
@@ -0,0 +1,96 @@
+package com.personalexpensetracker.expensetracker.service;
+
+import com.personalexpensetracker.expensetracker.config.TenantContext;
+import com.personalexpensetracker.expensetracker.model.Category;
+import com.personalexpensetracker.expensetracker.model.Expense;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class ExpenseRollupServiceTests {
+    
+    @Autowired
+    private ExpenseService expenseService;
+    
+    @Autowired
+    private CategoryService categoryService;
+    
+    @Autowired
+    private ExpenseRollupService rollupService;
+    
+    @Test
+    void rollupsTrackSaveUpdateAndDelete() {
+        Category category = categoryService.saveCategory(new Category("Rollup Test", null));
+        BigDecimal before = expenseService.getTotalExpenses();
+        
+        Expense expense = expenseService.saveExpense(expense(category, "10.25", LocalDate.of(2024, 3, 1)));
+        expenseService.saveExpense(expense(category, "4.75", LocalDate.of(2024, 3, 1)));
+        assertThat(expenseService.getTotalExpenses()).isEqualByComparingTo(before.add(new BigDecimal("15.00")));
+        
+        expenseService.updateExpense(expense.getId(), expense(category, "20.00", LocalDate.of(2024, 3, 2)));
+        assertThat(expenseService.getTotalExpenses()).isEqualByComparingTo(before.add(new BigDecimal("24.75")));
+        
+        expenseService.deleteExpense(expense.getId());
+        assertThat(expenseService.getTotalExpenses()).isEqualByComparingTo(before.add(new BigDecimal("4.75")));
+        
+        assertThat(rollupService.verify().isConsistent()).isTrue();
+    }
+    
+    @Test
+    void summariesAreAnsweredFromTheCube() {
+        Category category = categoryService.saveCategory(new Category("Cube Test", null));
+        Expense small = expenseService.saveExpense(expense(category, "2.00", LocalDate.of(2019, 7, 4)));
+        expenseService.saveExpense(expense(category, "5.00", LocalDate.of(2019, 7, 4)));
+        Expense large = expenseService.saveExpense(expense(category, "9.00", LocalDate.of(2019, 7, 4)));
+        expenseService.saveExpense(expense(category, "3.00", LocalDate.of(2019, 8, 1)));
+        
+        List<Object[]> monthly = expenseService.getMonthlySummary(2019);
+        assertThat(monthly).hasSize(2);
+        assertThat(((Number) monthly.get(0)[0]).intValue()).isEqualTo(7);
+        assertThat((BigDecimal) monthly.get(0)[1]).isEqualByComparingTo("16.00");
+        
+        // Removing the extremes of a cell recomputes min/max
+        expenseService.deleteExpense(small.getId());
+        expenseService.deleteExpense(large.getId());
+        Object[] july = expenseService.getCategoryStatisticsByDateRange(LocalDate.of(2019, 7, 1), LocalDate.of(2019, 7, 31)).get(0);
+        assertThat(july[0]).isEqualTo("Cube Test");
+        assertThat((BigDecimal) july[1]).isEqualByComparingTo("5.00");
+        assertThat(((Number) july[2]).longValue()).isEqualTo(1);
+        assertThat((BigDecimal) july[3]).isEqualByComparingTo("5.00");
+        assertThat((BigDecimal) july[4]).isEqualByComparingTo("5.00");
+        
+        assertThat(expenseService.getTotalAmountByCategoryAndDateRange(category.getId(),
+                LocalDate.of(2019, 1, 1), LocalDate.of(2019, 12, 31))).isEqualByComparingTo("8.00");
+        assertThat(rollupService.verify().isConsistent()).isTrue();
+    }
+    
+    @Test
+    void rebuildRepairsDriftedRollups() {
+        Category category = categoryService.saveCategory(new Category("Rollup Drift", null));
+        expenseService.saveExpense(expense(category, "8.00", LocalDate.of(2024, 5, 5)));
+        rollupService.add(new ExpenseRollupService.Contribution(TenantContext.DEFAULT, category.getId(), LocalDate.of(2024, 5, 5), new BigDecimal("1.00")));
+        
+        assertThat(rollupService.verify().mismatchCount()).isEqualTo(1);
+        
+        rollupService.rebuild();
+        assertThat(rollupService.verify().isConsistent()).isTrue();
+    }
+    
+    private Expense expense(Category category, String amount, LocalDate date) {
+        Expense expense = new Expense();
+        expense.setAmount(new BigDecimal(amount));
+        expense.setDate(date);
+        expense.setNote("rollup");
+        expense.setCategory(category);
+        return expense;
+    }
+}
@@ -0,0 +1,72 @@
+package com.personalexpensetracker.expensetracker.service;
+
+import com.personalexpensetracker.expensetracker.dto.CursorPage;
+import com.personalexpensetracker.expensetracker.dto.ExpenseView;
+import com.personalexpensetracker.expensetracker.model.Category;
+import com.personalexpensetracker.expensetracker.model.Expense;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@Transactional
+class ExpenseServiceTests {
+    
+    @Autowired
+    private ExpenseService expenseService;
+    
+    @Autowired
+    private CategoryService categoryService;
+    
+    @Test
+    void scrollVisitsEveryMatchingExpenseOnceInOrder() {
+        Category category = categoryService.saveCategory(new Category("Scroll Test", null));
+        LocalDate start = LocalDate.of(2021, 1, 1);
+        for (int i = 0; i < 23; i++) {
+            // Several expenses share a date so the id tie-breaker matters
+            expenseService.saveExpense(expense(category, start.plusDays(i / 4)));
+        }
+        
+        List<ExpenseView> visited = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<ExpenseView> page = expenseService.scroll(category.getId(), start, start.plusDays(30), cursor, 5);
+            visited.addAll(page.content());
+            cursor = page.nextCursor();
+        } while (cursor != null);
+        
+        assertThat(visited).hasSize(23);
+        assertThat(visited).extracting(ExpenseView::id).doesNotHaveDuplicates();
+        assertThat(visited).extracting(ExpenseView::categoryName).containsOnly("Scroll Test");
+        for (int i = 1; i < visited.size(); i++) {
+            ExpenseView previous = visited.get(i - 1);
+            ExpenseView current = visited.get(i);
+            assertThat(previous.date().isAfter(current.date())
+                    || (previous.date().equals(current.date()) && previous.id() > current.id())).isTrue();
+        }
+    }
+    
+    @Test
+    void scrollRejectsMalformedCursor() {
+        assertThatThrownBy(() -> expenseService.scroll(null, null, null, "not-a-cursor", 5))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+    
+    private Expense expense(Category category, LocalDate date) {
+        Expense expense = new Expense();
+        expense.setAmount(new BigDecimal("1.00"));
+        expense.setDate(date);
+        expense.setNote("scroll");
+        expense.setCategory(category);
+        return expense;
+    }
+}
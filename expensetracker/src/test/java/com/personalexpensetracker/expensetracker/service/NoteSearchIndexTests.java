@@ -0,0 +1,103 @@
+package com.personalexpensetracker.expensetracker.service;
+
+import com.personalexpensetracker.expensetracker.event.CategoryChangedEvent;
+import com.personalexpensetracker.expensetracker.event.ChangeType;
+import com.personalexpensetracker.expensetracker.event.ExpenseChangedEvent;
+import com.personalexpensetracker.expensetracker.model.Category;
+import com.personalexpensetracker.expensetracker.model.Expense;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NoteSearchIndexTests {
+    
+    private final NoteSearchIndex index = new NoteSearchIndex(null);
+    
+    @Test
+    void matchesPrefixesAndRanksExactTermsFirst() {
+        index(1L, 1L, "Coffee and pastry", LocalDate.of(2024, 1, 1));
+        index(2L, 1L, "Coffeehouse lunch", LocalDate.of(2024, 1, 5));
+        index(3L, 2L, "Grocery shopping", LocalDate.of(2024, 1, 3));
+        
+        assertThat(index.search("coffee", null, null, null, 0, 10).ids()).containsExactly(1L, 2L);
+        assertThat(index.search("COF", null, null, null, 0, 10).ids()).containsExactly(2L, 1L);
+        assertThat(index.search("coffee lun", null, null, null, 0, 10).ids()).containsExactly(2L);
+        assertThat(index.search("tea", null, null, null, 0, 10).totalMatches()).isZero();
+    }
+    
+    @Test
+    void appliesFiltersAndPagination() {
+        for (long id = 1; id <= 30; id++) {
+            index(id, id % 2 == 0 ? 1L : 2L, "Uber ride " + id, LocalDate.of(2024, 2, 1).plusDays(id));
+        }
+        
+        NoteSearchIndex.SearchResult result = index.search("uber", 1L, LocalDate.of(2024, 2, 10), null, 2, 3);
+        assertThat(result.totalMatches()).isEqualTo(11);
+        assertThat(result.ids()).containsExactly(26L, 24L, 22L);
+    }
+    
+    @Test
+    void intersectsRareTermsWithWidePrefixes() {
+        for (long id = 1; id <= 100; id++) {
+            index(id, 1L, "Item" + id + (id % 3 == 0 ? " taxi" : ""), LocalDate.of(2024, 1, 1).plusDays(id));
+        }
+        index(101L, 1L, "Zebras crossing", LocalDate.of(2024, 6, 1));
+        index(102L, 1L, "Zebra crossing", LocalDate.of(2024, 5, 1));
+        
+        // "it" spans a hundred terms; "taxi" drives and only its slots are looked up
+        NoteSearchIndex.SearchResult taxis = index.search("it taxi", null, null, null, 0, 3);
+        assertThat(taxis.totalMatches()).isEqualTo(33);
+        assertThat(taxis.ids()).containsExactly(99L, 96L, 93L);
+        assertThat(index.search("it taxi", null, null, null, 30, 10).ids()).containsExactly(9L, 6L, 3L);
+        assertThat(index.search("item", null, null, null, 0, 200).totalMatches()).isEqualTo(100);
+        // The exact term outranks the newer prefix match
+        assertThat(index.search("zebra cross", null, null, null, 0, 10).ids()).containsExactly(102L, 101L);
+    }
+    
+    @Test
+    void followsUpdatesAndDeletes() {
+        Expense expense = index(7L, 1L, "Movie ticket", LocalDate.of(2024, 3, 1));
+        expense.setNote("Concert ticket");
+        index.onExpenseChanged(new ExpenseChangedEvent(ChangeType.UPDATED, expense));
+        
+        assertThat(index.search("movie", null, null, null, 0, 10).ids()).isEmpty();
+        assertThat(index.search("concert", null, null, null, 0, 10).ids()).containsExactly(7L);
+        
+        index(8L, 3L, "Concert parking", LocalDate.of(2024, 3, 2));
+        index.onCategoryChanged(new CategoryChangedEvent(ChangeType.DELETED, 3L));
+        index.onExpenseChanged(new ExpenseChangedEvent(ChangeType.DELETED, expense));
+        assertThat(index.search("concert", null, null, null, 0, 10).ids()).isEmpty();
+    }
+    
+    @Test
+    void compactsSlotsLeftByUpdates() {
+        index(1L, 1L, "Rent", LocalDate.of(2024, 1, 1));
+        Expense expense = index(2L, 1L, "Gym 0", LocalDate.of(2024, 1, 2));
+        for (int update = 1; update <= 5_000; update++) {
+            expense.setNote("Gym " + update);
+            index.onExpenseChanged(new ExpenseChangedEvent(ChangeType.UPDATED, expense));
+        }
+        
+        assertThat(index.slotCount()).isLessThan(2_100);
+        assertThat(index.search("gym", null, null, null, 0, 10).ids()).containsExactly(2L);
+        assertThat(index.search("gym 5000", null, null, null, 0, 10).ids()).containsExactly(2L);
+        assertThat(index.search("gym 4999", null, null, null, 0, 10).ids()).isEmpty();
+        assertThat(index.search("rent", null, null, null, 0, 10).ids()).containsExactly(1L);
+    }
+    
+    private Expense index(Long id, Long categoryId, String note, LocalDate date) {
+        Category category = new Category();
+        category.setId(categoryId);
+        Expense expense = new Expense();
+        expense.setId(id);
+        expense.setAmount(BigDecimal.ONE);
+        expense.setDate(date);
+        expense.setNote(note);
+        expense.setCategory(category);
+        index.onExpenseChanged(new ExpenseChangedEvent(ChangeType.CREATED, expense));
+        return expense;
+    }
+}